@@ -0,0 +1,110 @@
+package edu.spring.javatimetracker.benchmark;
+
+import edu.spring.javatimetracker.JavaTimeTrackerApplication;
+import edu.spring.javatimetracker.command.RebuildWorkTimeRollupsCommand;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Контекст приложения для бенчмарков: профиль bench, встроенная H2, по умолчанию без веб-сервера.
+ * Данные заполняются пакетными INSERT через JDBC, минуя сервисы.
+ */
+final class BenchmarkApplication {
+
+    static final String USERNAME_PREFIX = "user";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... args) {
+        return new SpringApplicationBuilder(JavaTimeTrackerApplication.class)
+                .profiles("bench")
+                .web(WebApplicationType.NONE)
+                .run(args);
+    }
+
+    /**
+     * Запускает контекст со встроенным Tomcat на случайном порту
+     * @return контекст; порт - свойство local.server.port
+     */
+    static ConfigurableApplicationContext startServer(String... args) {
+        return new SpringApplicationBuilder(JavaTimeTrackerApplication.class)
+                .profiles("bench")
+                .web(WebApplicationType.SERVLET)
+                .properties("server.port=0")
+                .run(args);
+    }
+
+    /**
+     * Создает пользователей user0..userN с завершенными задачами за последние 30 дней и пересчитывает агрегаты
+     * @return идентификаторы пользователей
+     */
+    static List<UUID> seed(ConfigurableApplicationContext context, int users, int tasksPerUser) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        Clock clock = context.getBean(Clock.class);
+        Random random = new Random(42);
+        OffsetDateTime now = OffsetDateTime.now(clock);
+        List<UUID> ids = new ArrayList<>(users);
+        for (int u = 0; u < users; u++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            jdbc.update("INSERT INTO users (id, username, password, firstname, lastname) VALUES (?, ?, ?, ?, ?)",
+                    id, USERNAME_PREFIX + u, "password", "bench", "bench");
+            List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+            for (int t = 0; t < tasksPerUser; t++) {
+                OffsetDateTime startedAt = now.minusMinutes(random.nextInt(30 * 24 * 60) + 240);
+                OffsetDateTime finishedAt = startedAt.plusMinutes(random.nextInt(240) + 1);
+                rows.add(new Object[] { "task %d of %s".formatted(t, id), Timestamp.from(startedAt.toInstant()),
+                        Timestamp.from(finishedAt.toInstant()), id });
+                if (rows.size() == BATCH_SIZE) {
+                    insertTasks(jdbc, rows);
+                }
+            }
+            insertTasks(jdbc, rows);
+        }
+        context.getBean(RebuildWorkTimeRollupsCommand.class).rebuild(BATCH_SIZE);
+        return ids;
+    }
+
+    /**
+     * Добавляет задачи пользователя с заданными интервалами без пересчета агрегатов
+     * @param finishedAgo время от завершения задачи до текущего момента; null - задача не завершена
+     */
+    static void insertTasks(ConfigurableApplicationContext context, UUID userId, String prefix, int count,
+                            Duration startedAgo, Duration finishedAgo) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        OffsetDateTime now = OffsetDateTime.now(context.getBean(Clock.class));
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int t = 0; t < count; t++) {
+            Timestamp finishedAt = finishedAgo != null ? Timestamp.from(now.minus(finishedAgo).toInstant()) : null;
+            rows.add(new Object[] { prefix + " " + UUID.randomUUID(), Timestamp.from(now.minus(startedAgo).toInstant()),
+                    finishedAt, userId });
+            if (rows.size() == BATCH_SIZE) {
+                insertTasks(jdbc, rows);
+            }
+        }
+        insertTasks(jdbc, rows);
+    }
+
+    private static void insertTasks(JdbcTemplate jdbc, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbc.batchUpdate("INSERT INTO task (id, description, started_at, finished_at, assignee_id) " +
+                "VALUES (NEXT VALUE FOR task_seq, ?, ?, ?, ?)", rows);
+        rows.clear();
+    }
+}
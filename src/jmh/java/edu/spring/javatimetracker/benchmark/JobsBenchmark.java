@@ -0,0 +1,91 @@
+package edu.spring.javatimetracker.benchmark;
+
+import edu.spring.javatimetracker.scheduler.DeleteOldTasksJob;
+import edu.spring.javatimetracker.scheduler.FinishAllTasksJob;
+import edu.spring.javatimetracker.scheduler.JobReport;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задачи планировщика: каждый запуск обрабатывает заново подготовленные задачи.
+ * Подготовка данных выполняется вне измерения (Level.Invocation), поэтому режим - однократный запуск.
+ * Первый запуск deleteOldTasks удаляет и устаревшие задачи исходных данных и приходится на прогрев.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class JobsBenchmark {
+
+    @Param({ "10" })
+    private int users;
+
+    @Param({ "1000" })
+    private int tasksPerUser;
+
+    @Param({ "10000" })
+    private int affectedTasks;
+
+    private ConfigurableApplicationContext context;
+
+    private List<UUID> userIds;
+
+    private FinishAllTasksJob finishAllTasksJob;
+
+    private DeleteOldTasksJob deleteOldTasksJob;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        userIds = BenchmarkApplication.seed(context, users, tasksPerUser);
+        finishAllTasksJob = context.getBean(FinishAllTasksJob.class);
+        deleteOldTasksJob = context.getBean(DeleteOldTasksJob.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class RunningTasks {
+
+        @Setup(Level.Invocation)
+        public void setUp(JobsBenchmark benchmark) {
+            benchmark.insertTasks("running", Duration.ofHours(1), null);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ExpiredTasks {
+
+        @Setup(Level.Invocation)
+        public void setUp(JobsBenchmark benchmark) {
+            benchmark.insertTasks("expired", Duration.ofDays(30), Duration.ofDays(29));
+        }
+    }
+
+    private void insertTasks(String prefix, Duration startedAgo, Duration finishedAgo) {
+        int perUser = affectedTasks / userIds.size();
+        for (UUID userId : userIds) {
+            BenchmarkApplication.insertTasks(context, userId, prefix, perUser, startedAgo, finishedAgo);
+        }
+    }
+
+    @Benchmark
+    public JobReport finishAllTasks(RunningTasks tasks) {
+        return finishAllTasksJob.finishAllTasks();
+    }
+
+    @Benchmark
+    public JobReport deleteOldTasks(ExpiredTasks tasks) {
+        return deleteOldTasksJob.deleteOldTasks();
+    }
+}
@@ -0,0 +1,83 @@
+package edu.spring.javatimetracker.benchmark;
+
+import edu.spring.javatimetracker.handler.CorrelationIdFilter;
+import edu.spring.javatimetracker.scheduler.FinishAllTasksJob;
+import edu.spring.javatimetracker.service.TaskService;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Пропускная способность логирования в конфигурации по умолчанию (log4j2.xml, синхронно) и production
+ * (log4j2-prod.xml, асинхронно в JSON). serviceLine - строка о создании задачи, в production ограниченная
+ * по частоте; jobLine - строка без ограничения. Консольный вывод отбрасывается, файлы пишутся во временный
+ * каталог. При заполнении кольцевого буфера production-конфигурация отбрасывает INFO-события, поэтому
+ * результат показывает и пропускную способность отбрасывания.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class LoggingBenchmark {
+
+    @Param({ "log4j2.xml", "log4j2-prod.xml" })
+    private String config;
+
+    private PrintStream stdout;
+
+    private Logger serviceLogger;
+
+    private Logger jobLogger;
+
+    private final AtomicLong ids = new AtomicLong();
+
+    @State(Scope.Thread)
+    public static class Request {
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            MDC.put(CorrelationIdFilter.REQUEST_ID_KEY, UUID.randomUUID().toString());
+            MDC.put(CorrelationIdFilter.USER_KEY, BenchmarkApplication.USERNAME_PREFIX + 0);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, URISyntaxException {
+        System.setProperty("LOG_PATH", Files.createTempDirectory("logging-benchmark").toString());
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Configurator.reconfigure(getClass().getClassLoader().getResource(config).toURI());
+        serviceLogger = LoggerFactory.getLogger(TaskService.class);
+        jobLogger = LoggerFactory.getLogger(FinishAllTasksJob.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public void serviceLine(Request request) {
+        long id = ids.incrementAndGet();
+        serviceLogger.info("User '{}' create a task '{}' with id '{}'", "user0", "bench task", id);
+    }
+
+    @Benchmark
+    public void jobLine(Request request) {
+        jobLogger.info("Finished {} running tasks in {} chunks, took {} ms", ids.incrementAndGet(), 1, 0);
+    }
+}
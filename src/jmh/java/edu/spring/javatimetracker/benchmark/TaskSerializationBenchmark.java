@@ -0,0 +1,83 @@
+package edu.spring.javatimetracker.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.spring.javatimetracker.controller.TaskController;
+import edu.spring.javatimetracker.db.projection.TaskView;
+import edu.spring.javatimetracker.service.TaskService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Преобразование отчетов в DTO и сериализация в JSON/NDJSON без обращения к БД:
+ * сервис заменен заглушкой, возвращающей заранее построенный список
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskSerializationBenchmark {
+
+    @Param({ "100", "1000" })
+    private int rows;
+
+    private ObjectMapper objectMapper;
+
+    private TaskController taskController;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        OffsetDateTime start = OffsetDateTime.of(2000, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        List<TaskView> views = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            OffsetDateTime startedAt = start.plusMinutes(i * 10L);
+            Duration duration = Duration.ofMinutes(i % 240 + 1);
+            views.add(new TaskView((long) i, "task " + i, startedAt, startedAt.plus(duration), duration));
+        }
+        TaskService taskService = mock(TaskService.class);
+        when(taskService.findUserTasks(anyString(), any(), any())).thenReturn(views);
+        when(taskService.findUserIntervals(anyString(), any(), any())).thenReturn(views);
+        doAnswer(invocation -> {
+            Consumer<TaskView> consumer = invocation.getArgument(3);
+            views.forEach(consumer);
+            return null;
+        }).when(taskService).streamUserIntervals(anyString(), any(), any(), any());
+
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        taskController = new TaskController(taskService, objectMapper);
+    }
+
+    @Benchmark
+    public byte[] userTasksJson() throws IOException {
+        return objectMapper.writeValueAsBytes(taskController.findUserTasks("user", null, null, null, null).getBody());
+    }
+
+    @Benchmark
+    public byte[] userIntervalsJson() throws IOException {
+        return objectMapper.writeValueAsBytes(taskController.findUserIntervals("user", null, null, null, null).getBody());
+    }
+
+    @Benchmark
+    public byte[] userIntervalsNdjson() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        taskController.streamUserIntervals("user", null, null, response);
+        return response.getContentAsByteArray();
+    }
+}
@@ -0,0 +1,123 @@
+package edu.spring.javatimetracker.benchmark;
+
+import edu.spring.javatimetracker.db.projection.TaskView;
+import edu.spring.javatimetracker.domain.Task;
+import edu.spring.javatimetracker.service.TaskService;
+import edu.spring.javatimetracker.util.pagination.KeysetPage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Создание и завершение задач, отчеты за неделю и за весь период
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskServiceBenchmark {
+
+    @Param({ "10" })
+    private int users;
+
+    @Param({ "1000", "10000" })
+    private int tasksPerUser;
+
+    @Param({ "100" })
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+
+    private TaskService taskService;
+
+    private final AtomicLong descriptions = new AtomicLong();
+
+    private String username;
+
+    private LocalDate weekAgo;
+
+    private LocalDate today;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        BenchmarkApplication.seed(context, users, tasksPerUser);
+        taskService = context.getBean(TaskService.class);
+        username = BenchmarkApplication.USERNAME_PREFIX + 0;
+        today = LocalDate.now(context.getBean(Clock.class));
+        weekAgo = today.minusDays(7);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Task createTask() {
+        return taskService.createTask(username, "bench task " + descriptions.incrementAndGet());
+    }
+
+    /**
+     * Пакетное создание; сравнивать с createTask, умноженным на batchSize
+     */
+    @Benchmark
+    public List<Task> createTasksBatch() {
+        List<String> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            batch.add("bench task " + descriptions.incrementAndGet());
+        }
+        return taskService.createTasks(username, batch);
+    }
+
+    @Benchmark
+    public void createAndFinishTask() {
+        Task task = taskService.createTask(username, "bench task " + descriptions.incrementAndGet());
+        taskService.finishTask(task.getId());
+    }
+
+    @Benchmark
+    public List<TaskView> findUserTasksWeek() {
+        return taskService.findUserTasks(username, weekAgo, today);
+    }
+
+    @Benchmark
+    public List<TaskView> findUserTasksAll() {
+        return taskService.findUserTasks(username, null, null);
+    }
+
+    @Benchmark
+    public KeysetPage<TaskView> findUserTasksFirstPage() {
+        return taskService.findUserTasks(username, null, null, null, 100);
+    }
+
+    @Benchmark
+    public List<TaskView> findUserIntervalsWeek() {
+        return taskService.findUserIntervals(username, weekAgo, today);
+    }
+
+    @Benchmark
+    public List<TaskView> findUserIntervalsAll() {
+        return taskService.findUserIntervals(username, null, null);
+    }
+
+    @Benchmark
+    public void streamUserIntervalsAll(Blackhole blackhole) {
+        taskService.streamUserIntervals(username, null, null, blackhole::consume);
+    }
+
+    @Benchmark
+    public Duration findUserWorkTimeAll() {
+        return taskService.findUserWorkTime(username, null, null);
+    }
+}
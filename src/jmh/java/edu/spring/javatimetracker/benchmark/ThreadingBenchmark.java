@@ -0,0 +1,98 @@
+package edu.spring.javatimetracker.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обработка запросов в платформенных и виртуальных потоках при большом числе одновременных запросов.
+ * Одна операция - пачка из {@code concurrency} одновременных запросов отчета за неделю к разным
+ * пользователям; пул соединений меньше числа запросов, поэтому измеряется и ожидание соединений.
+ * H2 в памяти почти не блокирует потоки, поэтому выигрыш виртуальных потоков на реальной БД больше.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ThreadingBenchmark {
+
+    @Param({ "platform", "virtual" })
+    private String threads;
+
+    @Param({ "1000", "5000" })
+    private int concurrency;
+
+    @Param({ "100" })
+    private int users;
+
+    @Param({ "1000" })
+    private int tasksPerUser;
+
+    @Param({ "10" })
+    private int poolSize;
+
+    private ConfigurableApplicationContext context;
+
+    private ExecutorService clientExecutor;
+
+    private HttpClient client;
+
+    private List<HttpRequest> requests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.startServer(
+                "--spring.threads.virtual.enabled=" + threads.equals("virtual"),
+                "--spring.datasource.hikari.maximum-pool-size=" + poolSize);
+        BenchmarkApplication.seed(context, users, tasksPerUser);
+        String port = context.getEnvironment().getRequiredProperty("local.server.port");
+        LocalDate today = LocalDate.now(context.getBean(Clock.class));
+        requests = new ArrayList<>(users);
+        for (int u = 0; u < users; u++) {
+            requests.add(HttpRequest.newBuilder(URI.create("http://localhost:%s/api/%s%d/tasks/work-intervals?from=%s&to=%s"
+                    .formatted(port, BenchmarkApplication.USERNAME_PREFIX, u, today.minusDays(7), today))).build());
+        }
+        clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        clientExecutor.close();
+        context.close();
+    }
+
+    @Benchmark
+    public void concurrentReports(Blackhole blackhole) {
+        List<CompletableFuture<HttpResponse<byte[]>>> responses = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            responses.add(client.sendAsync(requests.get(i % users), HttpResponse.BodyHandlers.ofByteArray()));
+        }
+        for (CompletableFuture<HttpResponse<byte[]>> response : responses) {
+            HttpResponse<byte[]> result = response.join();
+            if (result.statusCode() != 200) {
+                throw new IllegalStateException("Unexpected status " + result.statusCode());
+            }
+            blackhole.consume(result.body());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package edu.spring.javatimetracker.command;
+
+import edu.spring.javatimetracker.configuration.AppProperties;
+import edu.spring.javatimetracker.service.TaskService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Сохраняет длительность задач, завершенных до появления столбца duration_nanos, при запуске приложения
+ * с аргументом {@code --backfill-durations}. Каждая порция обрабатывается в отдельной транзакции.
+ * На PostgreSQL такие задачи заполняет миграция V1_4, команда нужна для строк, загруженных в обход приложения.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BackfillTaskDurationsCommand implements ApplicationRunner {
+
+    public static final String OPTION = "backfill-durations";
+
+    private final TaskService taskService;
+
+    private final AppProperties appProperties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(OPTION)) {
+            return;
+        }
+        long total = 0;
+        int processed;
+        while ((processed = taskService.backfillDurations(appProperties.getJobs().getChunkSize())) > 0) {
+            total += processed;
+        }
+        log.info("Task durations stored for {} tasks", total);
+    }
+}
@@ -0,0 +1,54 @@
+package edu.spring.javatimetracker.command;
+
+import edu.spring.javatimetracker.configuration.AppProperties;
+import edu.spring.javatimetracker.db.projection.TaskTimes;
+import edu.spring.javatimetracker.service.WorkTimeRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Пересчитывает агрегаты рабочего времени при запуске приложения с аргументом {@code --rebuild-rollups}
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RebuildWorkTimeRollupsCommand implements ApplicationRunner {
+
+    public static final String OPTION = "rebuild-rollups";
+
+    private final WorkTimeRollupService rollupService;
+
+    private final AppProperties appProperties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption(OPTION)) {
+            rebuild(appProperties.getJobs().getChunkSize());
+        }
+    }
+
+    /**
+     * Пересчитывает все агрегаты по завершенным задачам; каждая порция учитывается в отдельной транзакции.
+     * Пока пересчет не закончен, агрегаты неполны, а задачи, завершенные во время пересчета, могут быть
+     * учтены дважды, поэтому пересчет запускается без нагрузки, а также после смены часового пояса приложения.
+     * @param chunkSize число задач в порции
+     * @return число учтенных задач
+     */
+    public long rebuild(int chunkSize) {
+        rollupService.clearAll();
+        long total = 0;
+        long afterId = 0;
+        List<TaskTimes> tasks;
+        while (!(tasks = rollupService.rebuildChunk(afterId, chunkSize)).isEmpty()) {
+            total += tasks.size();
+            afterId = tasks.getLast().id();
+        }
+        log.info("Work time rollups rebuilt from {} tasks", total);
+        return total;
+    }
+}
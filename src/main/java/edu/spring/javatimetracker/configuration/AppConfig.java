@@ -1,5 +1,7 @@
 package edu.spring.javatimetracker.configuration;
 
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
@@ -14,4 +16,12 @@ public class AppConfig {
     public Clock clock(AppProperties appProperties) {
         return Clock.system(appProperties.getTimeZone().toZoneId());
     }
+
+    /**
+     * Обрабатывает аннотации {@code @Timed} на сервисах: таймер app.service с тегами class и method
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
 }
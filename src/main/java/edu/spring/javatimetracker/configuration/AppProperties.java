@@ -1,9 +1,13 @@
 package edu.spring.javatimetracker.configuration;
 
+import edu.spring.javatimetracker.db.partition.TaskPartition;
+import edu.spring.javatimetracker.journal.TaskJournal;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.TimeZone;
 
@@ -15,4 +19,211 @@ public class AppProperties {
     private Duration taskTtl;
 
     private TimeZone timeZone;
+
+    private final Jobs jobs = new Jobs();
+
+    private final Partitioning partitioning = new Partitioning();
+
+    private final UserIds userIds = new UserIds();
+
+    private final Reports reports = new Reports();
+
+    private final ConnectionGuard connectionGuard = new ConnectionGuard();
+
+    private final Journal journal = new Journal();
+
+    private final Replica replica = new Replica();
+
+    private final IntervalStore intervalStore = new IntervalStore();
+
+    @Data
+    public static class Jobs {
+
+        /**
+         * Максимальное число задач, обрабатываемых задачей планировщика в одной транзакции
+         */
+        private int chunkSize = 1000;
+
+        /**
+         * Пауза между порциями, чтобы задачи планировщика не блокировали запросы API
+         */
+        private Duration pause = Duration.ZERO;
+    }
+
+    @Data
+    public static class Partitioning {
+
+        /**
+         * Таблица задач секционирована по started_at (только PostgreSQL, профиль {@code partitioned})
+         */
+        private boolean enabled = false;
+
+        private TaskPartition.Interval interval = TaskPartition.Interval.MONTH;
+
+        /**
+         * Число секций, создаваемых заранее после текущей
+         */
+        private int premade = 2;
+    }
+
+    @Data
+    public static class UserIds {
+
+        /**
+         * Максимальное число имен пользователей в кэше идентификаторов
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * Время жизни записи кэша; ограничивает устаревание, если пользователь изменен в обход сервиса
+         */
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Reports {
+
+        /**
+         * Максимальное суммарное число строк отчетов в кэше
+         */
+        private long maximumRows = 100_000;
+
+        /**
+         * Время жизни отчета за период, включающий сегодняшний день
+         */
+        private Duration liveTtl = Duration.ofSeconds(30);
+
+        /**
+         * Время жизни отчета за период, закончившийся до сегодняшнего дня
+         */
+        private Duration historicalTtl = Duration.ofHours(6);
+    }
+
+    @Data
+    public static class ConnectionGuard {
+
+        /**
+         * Ограничивать число одновременных соединений семафором в режиме виртуальных потоков
+         * (spring.threads.virtual.enabled)
+         */
+        private boolean enabled = true;
+
+        /**
+         * Число разрешений; 0 - по размеру пула соединений (spring.datasource.hikari.maximum-pool-size)
+         */
+        private int permits = 0;
+
+        /**
+         * Максимальное время ожидания соединения
+         */
+        private Duration acquireTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Journal {
+
+        /**
+         * Режим отложенной записи: запуск и завершение задач записываются в журнал на диске,
+         * а в БД переносятся фоновыми пакетами
+         */
+        private boolean enabled = false;
+
+        /**
+         * Каталог файлов журнала; должен быть локальным для экземпляра приложения
+         */
+        private Path directory = Path.of("journal");
+
+        /**
+         * Размер файла-сегмента журнала
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        /**
+         * Когда записи сбрасываются на диск: после каждой записи (группами одновременных), раз в
+         * {@code fsync-interval} или только операционной системой
+         */
+        private TaskJournal.FsyncPolicy fsync = TaskJournal.FsyncPolicy.ALWAYS;
+
+        private Duration fsyncInterval = Duration.ofMillis(10);
+
+        /**
+         * Максимальное число событий, переносимых в БД одной транзакцией
+         */
+        private int batchSize = 1000;
+
+        /**
+         * Сколько ждать накопления пакета, прежде чем перенести неполный
+         */
+        private Duration batchDelay = Duration.ofMillis(50);
+
+        /**
+         * Максимальное число записанных, но не перенесенных в БД событий; при превышении запись ждет
+         */
+        private int maxPending = 100_000;
+    }
+
+    @Data
+    public static class Replica {
+
+        /**
+         * Направлять транзакции только для чтения, объявленные в сервисах, на реплику
+         */
+        private boolean enabled = false;
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        /**
+         * Класс драйвера; по умолчанию определяется по url
+         */
+        private String driverClassName;
+
+        private int maximumPoolSize = 10;
+
+        /**
+         * Время ожидания соединения с репликой; при недоступности реплики чтение уходит на основную БД
+         */
+        private Duration connectionTimeout = Duration.ofSeconds(2);
+
+        /**
+         * Максимальное отставание реплики; при большем отставании чтение идет на основную БД
+         */
+        private Duration maxLag = Duration.ofSeconds(5);
+
+        private Duration lagCheckInterval = Duration.ofSeconds(1);
+
+        /**
+         * Запрос отставания реплики в секундах; по умолчанию - для потоковой репликации PostgreSQL
+         * (0, если все полученные изменения применены)
+         */
+        private String lagQuery = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+                + "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+    }
+
+    @Data
+    public static class IntervalStore {
+
+        /**
+         * Отвечать на отчеты по интервалам из хранящихся в памяти столбцов времени завершенных задач
+         */
+        private boolean enabled = false;
+
+        /**
+         * Хранить столбцы времени вне кучи (direct buffers)
+         */
+        private boolean offHeap = false;
+
+        /**
+         * Максимальное суммарное число интервалов в памяти; пользователи вытесняются целиком
+         */
+        private long maximumIntervals = 10_000_000;
+
+        /**
+         * Время, через которое интервалы неактивного пользователя удаляются из памяти
+         */
+        private Duration expireAfterAccess = Duration.ofMinutes(30);
+    }
 }
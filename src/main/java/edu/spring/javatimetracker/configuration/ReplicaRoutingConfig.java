@@ -0,0 +1,87 @@
+package edu.spring.javatimetracker.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import edu.spring.javatimetracker.db.pool.ReplicaRoutingDataSource;
+import edu.spring.javatimetracker.service.TaskService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+
+/**
+ * Чтение отчетов с реплики (app.replica.enabled=true). Вместо пула Spring Boot создаются два пула Hikari -
+ * primary по spring.datasource и replica по app.replica, - а приложение получает
+ * {@link ReplicaRoutingDataSource}, обернутый в LazyConnectionDataSourceProxy. На реплику направляются
+ * транзакции только для чтения, объявленные в сервисах; метрики пулов публикуются с тегом pool.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "app.replica", name = "enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(AppProperties appProperties) {
+        AppProperties.Replica replica = appProperties.getReplica();
+        DataSourceBuilder<HikariDataSource> builder = DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(replica.getUrl())
+                .username(replica.getUsername())
+                .password(replica.getPassword());
+        if (StringUtils.hasText(replica.getDriverClassName())) {
+            builder.driverClassName(replica.getDriverClassName());
+        }
+        HikariDataSource dataSource = builder.build();
+        dataSource.setPoolName("replica");
+        dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+        dataSource.setConnectionTimeout(replica.getConnectionTimeout().toMillis());
+        dataSource.setInitializationFailTimeout(-1);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                                      @Qualifier("replicaDataSource") DataSource replica,
+                                                      AppProperties appProperties) {
+        AppProperties.Replica properties = appProperties.getReplica();
+        return new ReplicaRoutingDataSource(primary, replica, TaskService.class.getPackageName() + ".",
+                properties.getMaxLag(), properties.getLagQuery());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public ReplicaLagCheck replicaLagCheck(ReplicaRoutingDataSource routingDataSource) {
+        return new ReplicaLagCheck(routingDataSource);
+    }
+
+    /**
+     * Проверяет отставание реплики раз в app.replica.lag-check-interval
+     */
+    public record ReplicaLagCheck(ReplicaRoutingDataSource routingDataSource) {
+
+        @Scheduled(fixedDelayString = "#{ appProperties.getReplica().getLagCheckInterval().toMillis() }")
+        public void check() {
+            routingDataSource.checkReplica();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package edu.spring.javatimetracker.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import edu.spring.javatimetracker.db.pool.GuardedDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Режим виртуальных потоков (spring.threads.virtual.enabled=true): Spring Boot переводит на виртуальные
+ * потоки обработку запросов Tomcat, задачи планировщика и асинхронные задачи. Здесь пул соединений
+ * оборачивается в {@link GuardedDataSource}, чтобы число потоков, одновременно обращающихся к БД,
+ * не превышало размер пула.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Slf4j
+public class VirtualThreadsConfig {
+
+    /**
+     * Размер пула Hikari по умолчанию; до запуска пула незаданный размер равен -1
+     */
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.connection-guard", name = "enabled", matchIfMissing = true)
+    public static BeanPostProcessor connectionGuardPostProcessor(ObjectProvider<AppProperties> appProperties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource dataSource)) {
+                    return bean;
+                }
+                AppProperties.ConnectionGuard guard = appProperties.getObject().getConnectionGuard();
+                int permits = guard.getPermits() > 0 ? guard.getPermits()
+                        : dataSource.getMaximumPoolSize() > 0 ? dataSource.getMaximumPoolSize() : DEFAULT_POOL_SIZE;
+                log.info("Data source '{}' limited to {} concurrent connections", beanName, permits);
+                return new GuardedDataSource(dataSource, permits, guard.getAcquireTimeout());
+            }
+        };
+    }
+
+    /**
+     * Метрики ограничителя соединений: app.connection-guard.waiting и app.connection-guard.available
+     * с тегом pool - имя пула (при чтении с реплики ограничены оба пула)
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.connection-guard", name = "enabled", matchIfMissing = true)
+    public MeterBinder connectionGuardMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.orderedStream().forEach(source -> {
+            if (source instanceof GuardedDataSource guarded) {
+                String pool = guarded.getTargetDataSource() instanceof HikariDataSource hikari
+                        && hikari.getPoolName() != null ? hikari.getPoolName() : "default";
+                Gauge.builder("app.connection-guard.waiting", guarded, GuardedDataSource::getWaitingThreads)
+                        .description("Threads waiting for a connection permit")
+                        .tag("pool", pool)
+                        .register(registry);
+                Gauge.builder("app.connection-guard.available", guarded, GuardedDataSource::getAvailablePermits)
+                        .description("Free connection permits")
+                        .tag("pool", pool)
+                        .register(registry);
+            }
+        });
+    }
+}
@@ -0,0 +1,43 @@
+package edu.spring.javatimetracker.controller;
+
+import edu.spring.javatimetracker.controller.dto.ImportReportDto;
+import edu.spring.javatimetracker.service.IntervalImportService;
+import edu.spring.javatimetracker.service.importer.ImportReport;
+import edu.spring.javatimetracker.service.importer.IntervalReader;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/import")
+@RequiredArgsConstructor
+public class ImportController {
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final IntervalImportService importService;
+
+    @PostMapping(value = "/intervals", consumes = TEXT_CSV_VALUE)
+    @Operation(summary = "Import finished work intervals from CSV with header username,description,startedAt,finishedAt")
+    public ResponseEntity<ImportReportDto> importCsv(InputStream body) {
+        return toResponse(importService.importIntervals(body, IntervalReader.Format.CSV));
+    }
+
+    @PostMapping(value = "/intervals", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Import finished work intervals from NDJSON, one {username, description, startedAt, finishedAt} per line")
+    public ResponseEntity<ImportReportDto> importNdjson(InputStream body) {
+        return toResponse(importService.importIntervals(body, IntervalReader.Format.NDJSON));
+    }
+
+    private static ResponseEntity<ImportReportDto> toResponse(ImportReport report) {
+        return new ResponseEntity<>(new ImportReportDto(report.imported(), report.rejected(), report.errors(),
+                report.elapsed().toMillis()), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,40 @@
+package edu.spring.javatimetracker.controller;
+
+import edu.spring.javatimetracker.controller.dto.UserWorkTimeDto;
+import edu.spring.javatimetracker.service.TaskService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+public class ReportController {
+
+    public static final int MAX_USERS = 1000;
+
+    private final TaskService taskService;
+
+    @PostMapping("/work-time")
+    @Operation(summary = "Find the work time of several users for a period in one request")
+    public ResponseEntity<List<UserWorkTimeDto>> findUsersWorkTime(
+            @Parameter(description = "Usernames") @NotEmpty @Size(max = MAX_USERS) @RequestBody List<@NotBlank @Size(max = 255) String> usernames,
+            @RequestParam(name = "from", required = false) LocalDate from,
+            @RequestParam(name = "to", required = false) LocalDate to) {
+        List<UserWorkTimeDto> response = taskService.findUsersWorkTime(new LinkedHashSet<>(usernames), from, to)
+                .entrySet().stream()
+                .map(entry -> new UserWorkTimeDto(entry.getKey(), TaskController.formatDuration(entry.getValue())))
+                .toList();
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+}
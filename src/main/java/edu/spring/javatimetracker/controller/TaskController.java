@@ -1,24 +1,47 @@
 package edu.spring.javatimetracker.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import edu.spring.javatimetracker.controller.dto.ActiveTaskDto;
 import edu.spring.javatimetracker.controller.dto.TaskCreatedDto;
 import edu.spring.javatimetracker.controller.dto.TaskDto;
+import edu.spring.javatimetracker.controller.dto.TasksCreatedDto;
 import edu.spring.javatimetracker.controller.dto.TimeIntervalDto;
 import edu.spring.javatimetracker.controller.dto.TimeSumDto;
+import edu.spring.javatimetracker.controller.dto.WorkBucketDto;
+import edu.spring.javatimetracker.db.projection.TaskView;
+import edu.spring.javatimetracker.db.projection.WorkTimeTotals;
+import edu.spring.javatimetracker.db.report.Granularity;
 import edu.spring.javatimetracker.domain.Task;
+import edu.spring.javatimetracker.journal.JournaledTaskWriter;
 import edu.spring.javatimetracker.service.TaskService;
+import edu.spring.javatimetracker.util.pagination.KeysetCursor;
+import edu.spring.javatimetracker.util.pagination.KeysetPage;
 import edu.spring.javatimetracker.util.validation.Username;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Duration;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/{username}/tasks")
@@ -27,62 +50,209 @@ public class TaskController {
 
     private final TaskService taskService;
 
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Запись через журнал, если включен режим отложенной записи (app.journal.enabled)
+     */
+    private final ObjectProvider<JournaledTaskWriter> journaledWriter;
+
+    /**
+     * Заголовок ответа с курсором следующей страницы
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    public static final int MAX_BATCH_SIZE = 1000;
+
     @PostMapping("/new")
     @Operation(summary = "Create new task for user")
     public ResponseEntity<TaskCreatedDto> createTask(
             @Parameter(description = "Username of user", schema = @Schema(type = "string", example = "username")) @Username @PathVariable(name = "username") String username,
             @Parameter(description = "Task's content", schema = @Schema(type = "string", example = "Do some job")) @NotBlank @RequestBody String description) {
-        Task task = taskService.createTask(username, description);
+        JournaledTaskWriter writer = journaledWriter.getIfAvailable();
+        Task task = writer != null ? writer.createTask(username, description) : taskService.createTask(username, description);
         return new ResponseEntity<>(new TaskCreatedDto(task.getId()), HttpStatus.CREATED);
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Create and start several tasks for user in one request")
+    public ResponseEntity<TasksCreatedDto> createTasks(
+            @Parameter(description = "Username of user", schema = @Schema(type = "string", example = "username")) @Username @PathVariable(name = "username") String username,
+            @Parameter(description = "Tasks' contents") @NotEmpty @Size(max = MAX_BATCH_SIZE) @RequestBody List<@NotBlank @Size(max = 255) String> descriptions) {
+        JournaledTaskWriter writer = journaledWriter.getIfAvailable();
+        List<Task> tasks = writer != null ? writer.createTasks(username, descriptions) : taskService.createTasks(username, descriptions);
+        List<Long> ids = tasks.stream()
+                .map(Task::getId)
+                .toList();
+        return new ResponseEntity<>(new TasksCreatedDto(ids), HttpStatus.CREATED);
+    }
+
     @PostMapping("/{task-id}/stop")
     public ResponseEntity<Void> finishTask(@NotNull @PathVariable(name = "task-id") Long taskId) {
-        taskService.finishTask(taskId);
+        JournaledTaskWriter writer = journaledWriter.getIfAvailable();
+        if (writer != null) {
+            writer.finishTask(taskId);
+        } else {
+            taskService.finishTask(taskId);
+        }
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
-    private String formatDuration(Duration duration) {
+    static String formatDuration(Duration duration) {
         long m = duration.getSeconds() / 60;
         return "%02d:%02d".formatted(m / 60, m % 60);
     }
 
+    private TaskDto toTaskDto(TaskView task) {
+        return new TaskDto(task.description(), formatDuration(task.duration()));
+    }
+
+    private TimeIntervalDto toTimeIntervalDto(TaskView task) {
+        return new TimeIntervalDto(task.startedAt(), task.finishedAt(), task.description());
+    }
+
+    private static <T, D> ResponseEntity<Iterable<D>> toPageResponse(KeysetPage<T> page, Function<T, D> mapper) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.next() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.next().encode());
+        }
+        List<D> body = page.items().stream().map(mapper).toList();
+        return response.body(body);
+    }
+
+    private static void write(SequenceWriter writer, Object value) {
+        try {
+            writer.write(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private SequenceWriter ndjsonWriter(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        return objectMapper.writer().withRootValueSeparator("\n").writeValues(response.getOutputStream());
+    }
+
     @GetMapping
+    @Operation(summary = "Find user tasks ordered by duration; with 'limit' or 'after' the result is paged " +
+            "and the next page cursor is returned in the " + NEXT_CURSOR_HEADER + " header")
     public ResponseEntity<Iterable<TaskDto>> findUserTasks(
             @Username @PathVariable(name = "username") String username,
             @RequestParam(name = "from", required = false) LocalDate from,
-            @RequestParam(name = "to", required = false) LocalDate to) {
+            @RequestParam(name = "to", required = false) LocalDate to,
+            @Positive @Max(MAX_PAGE_SIZE) @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "after", required = false) String after) {
+        if (limit != null || after != null) {
+            KeysetCursor cursor = after != null ? KeysetCursor.decode(after) : null;
+            return toPageResponse(taskService.findUserTasks(username, from, to, cursor,
+                    limit != null ? limit : DEFAULT_PAGE_SIZE), this::toTaskDto);
+        }
         Iterable<TaskDto> response = taskService.findUserTasks(username, from, to).stream()
-                .map(task -> new TaskDto(
-                        task.getDescription(), formatDuration(Duration.between(task.getStartedAt(), task.getFinishedAt()))))
+                .map(this::toTaskDto)
                 .toList();
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream user tasks as NDJSON, one task per line")
+    public void streamUserTasks(
+            @Username @PathVariable(name = "username") String username,
+            @RequestParam(name = "from", required = false) LocalDate from,
+            @RequestParam(name = "to", required = false) LocalDate to,
+            HttpServletResponse response) throws IOException {
+        try (SequenceWriter writer = ndjsonWriter(response)) {
+            taskService.streamUserTasks(username, from, to, task -> write(writer, toTaskDto(task)));
+        }
+    }
+
     @GetMapping("/work-intervals")
+    @Operation(summary = "Find user work intervals ordered by start; with 'limit' or 'after' the result is paged " +
+            "and the next page cursor is returned in the " + NEXT_CURSOR_HEADER + " header")
     public ResponseEntity<Iterable<TimeIntervalDto>> findUserIntervals(
             @Username @PathVariable(name = "username") String username,
             @RequestParam(name = "from", required = false) LocalDate from,
-            @RequestParam(name = "to", required = false) LocalDate to) {
+            @RequestParam(name = "to", required = false) LocalDate to,
+            @Positive @Max(MAX_PAGE_SIZE) @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "after", required = false) String after) {
+        if (limit != null || after != null) {
+            KeysetCursor cursor = after != null ? KeysetCursor.decode(after) : null;
+            return toPageResponse(taskService.findUserIntervals(username, from, to, cursor,
+                    limit != null ? limit : DEFAULT_PAGE_SIZE), this::toTimeIntervalDto);
+        }
         Iterable<TimeIntervalDto> response = taskService.findUserIntervals(username, from, to).stream()
-                .map(task -> new TimeIntervalDto(task.getStartedAt(), task.getFinishedAt(), task.getDescription()))
+                .map(this::toTimeIntervalDto)
+                .toList();
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/work-intervals", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream user work intervals as NDJSON, one interval per line")
+    public void streamUserIntervals(
+            @Username @PathVariable(name = "username") String username,
+            @RequestParam(name = "from", required = false) LocalDate from,
+            @RequestParam(name = "to", required = false) LocalDate to,
+            HttpServletResponse response) throws IOException {
+        try (SequenceWriter writer = ndjsonWriter(response)) {
+            taskService.streamUserIntervals(username, from, to, task -> write(writer, toTimeIntervalDto(task)));
+        }
+    }
+
+    @GetMapping("/active")
+    @Operation(summary = "Find running tasks of the user in start order; duration is the time since start")
+    public ResponseEntity<Iterable<ActiveTaskDto>> findActiveTasks(
+            @Username @PathVariable(name = "username") String username) {
+        Iterable<ActiveTaskDto> response = taskService.findActiveTasks(username).stream()
+                .map(task -> new ActiveTaskDto(task.id(), task.description(), task.startedAt(),
+                        formatDuration(task.duration())))
                 .toList();
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
     @GetMapping("/work-time")
+    @Operation(summary = "Find user work time; in 'effective' mode the time of simultaneously running tasks " +
+            "is also returned counted once")
     public ResponseEntity<TimeSumDto> findUserWorkTime(
             @Username @PathVariable(name = "username") String username,
             @RequestParam(name = "from", required = false) LocalDate from,
-            @RequestParam(name = "to", required = false) LocalDate to) {
+            @RequestParam(name = "to", required = false) LocalDate to,
+            @Pattern(regexp = "total|effective") @RequestParam(name = "mode", defaultValue = "total") String mode) {
+        if (mode.equals("effective")) {
+            WorkTimeTotals workTime = taskService.findUserEffectiveWorkTime(username, from, to);
+            return new ResponseEntity<>(new TimeSumDto(formatDuration(workTime.total()),
+                    formatDuration(workTime.effective())), HttpStatus.OK);
+        }
         TimeSumDto response = new TimeSumDto(formatDuration(
                 taskService.findUserWorkTime(username, from, to)));
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    @GetMapping("/work-histogram")
+    @Operation(summary = "Find user work time split into days, weeks or months in the application time zone; " +
+            "only non-empty periods are returned")
+    public ResponseEntity<Iterable<WorkBucketDto>> findUserWorkHistogram(
+            @Username @PathVariable(name = "username") String username,
+            @RequestParam(name = "from", required = false) LocalDate from,
+            @RequestParam(name = "to", required = false) LocalDate to,
+            @Pattern(regexp = "day|week|month") @RequestParam(name = "granularity", defaultValue = "day") String granularity) {
+        Iterable<WorkBucketDto> response = taskService.findUserWorkHistogram(username, from, to,
+                        Granularity.valueOf(granularity.toUpperCase())).stream()
+                .map(bucket -> new WorkBucketDto(bucket.start(), formatDuration(bucket.duration())))
+                .toList();
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
     @DeleteMapping
     public ResponseEntity<Void> deleteUserTasks(@Username @PathVariable(name = "username") String username) {
-        taskService.clearUserTasks(username);
+        JournaledTaskWriter writer = journaledWriter.getIfAvailable();
+        if (writer != null) {
+            writer.clearUserTasks(username);
+        } else {
+            taskService.clearUserTasks(username);
+        }
         return new ResponseEntity<>(HttpStatus.OK);
     }
 }
@@ -0,0 +1,21 @@
+package edu.spring.javatimetracker.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActiveTaskDto {
+
+    private Long id;
+
+    private String description;
+
+    private OffsetDateTime startedAt;
+
+    private String duration;
+}
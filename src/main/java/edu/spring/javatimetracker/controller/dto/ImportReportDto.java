@@ -0,0 +1,21 @@
+package edu.spring.javatimetracker.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportReportDto {
+
+    private long imported;
+
+    private long rejected;
+
+    private List<String> errors;
+
+    private long elapsedMillis;
+}
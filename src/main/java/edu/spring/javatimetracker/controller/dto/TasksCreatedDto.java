@@ -0,0 +1,15 @@
+package edu.spring.javatimetracker.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TasksCreatedDto {
+
+    private List<Long> ids;
+}
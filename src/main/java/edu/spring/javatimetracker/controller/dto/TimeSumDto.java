@@ -1,5 +1,6 @@
 package edu.spring.javatimetracker.controller.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -10,4 +11,14 @@ import lombok.NoArgsConstructor;
 public class TimeSumDto {
 
     private String duration;
+
+    /**
+     * Время без повторного учета одновременно запущенных задач; только в режиме effective
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String effectiveDuration;
+
+    public TimeSumDto(String duration) {
+        this.duration = duration;
+    }
 }
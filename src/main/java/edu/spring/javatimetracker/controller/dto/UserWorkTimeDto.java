@@ -0,0 +1,15 @@
+package edu.spring.javatimetracker.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserWorkTimeDto {
+
+    private String username;
+
+    private String duration;
+}
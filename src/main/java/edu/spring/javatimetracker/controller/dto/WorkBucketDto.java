@@ -0,0 +1,17 @@
+package edu.spring.javatimetracker.controller.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WorkBucketDto {
+
+    private LocalDate start;
+
+    private String duration;
+}
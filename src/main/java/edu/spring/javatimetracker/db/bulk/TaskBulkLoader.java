@@ -0,0 +1,150 @@
+package edu.spring.javatimetracker.db.bulk;
+
+import edu.spring.javatimetracker.db.projection.TaskTimes;
+import edu.spring.javatimetracker.domain.Task;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Загружает строки в таблицу задач, минуя контекст персистентности. На PostgreSQL строки передаются одной
+ * командой COPY, на остальных БД (H2) - пакетным INSERT. Выполняется на соединении текущей транзакции.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TaskBulkLoader {
+
+    private static final String COPY_SQL = "COPY task (id, description, started_at, finished_at, duration_nanos, assignee_id) "
+            + "FROM STDIN WITH (FORMAT csv)";
+
+    private static final String INSERT_SQL = "INSERT INTO task (id, description, started_at, finished_at, duration_nanos, assignee_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String FINISH_SQL =
+            "UPDATE task SET finished_at = ?, duration_nanos = ? WHERE id = ? AND finished_at IS NULL";
+
+    private static final String DURATION_SQL = "UPDATE task SET duration_nanos = ? WHERE id = ? AND duration_nanos IS NULL";
+
+    private final DataSource dataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param rows строки задач с выделенными идентификаторами
+     * @return число загруженных строк
+     */
+    public long load(List<TaskRow> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            if (connection.isWrapperFor(PGConnection.class)) {
+                return copy(connection.unwrap(PGConnection.class).getCopyAPI(), rows);
+            }
+        } catch (SQLException e) {
+            DataAccessException translated = jdbcTemplate.getExceptionTranslator().translate("COPY", COPY_SQL, e);
+            throw translated != null ? translated : new IllegalStateException("COPY into task failed", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (statement, row) -> {
+            statement.setLong(1, row.id());
+            statement.setString(2, row.description());
+            statement.setObject(3, row.startedAt());
+            statement.setObject(4, row.finishedAt());
+            statement.setObject(5, Task.durationNanos(row.startedAt(), row.finishedAt()));
+            statement.setObject(6, row.assigneeId());
+        });
+        return rows.size();
+    }
+
+    /**
+     * Завершает задачи пакетным UPDATE, у каждой задачи - свое время завершения; уже завершенные не изменяются
+     * @param tasks задачи с временем завершения
+     * @return задачи, которые были завершены этим вызовом
+     */
+    public List<TaskTimes> finish(List<TaskTimes> tasks) {
+        if (tasks.isEmpty()) {
+            return List.of();
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(FINISH_SQL, tasks, tasks.size(), (statement, task) -> {
+            statement.setObject(1, task.finishedAt());
+            statement.setObject(2, Task.durationNanos(task.startedAt(), task.finishedAt()));
+            statement.setLong(3, task.id());
+        });
+        return updated(tasks, counts);
+    }
+
+    /**
+     * Сохраняет длительность завершенных задач, у которых она еще не сохранена (задачи, завершенные
+     * до появления столбца duration_nanos)
+     * @param tasks завершенные задачи
+     * @return задачи, длительность которых сохранена этим вызовом
+     */
+    public List<TaskTimes> storeDurations(List<TaskTimes> tasks) {
+        if (tasks.isEmpty()) {
+            return List.of();
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(DURATION_SQL, tasks, tasks.size(), (statement, task) -> {
+            statement.setObject(1, Task.durationNanos(task.startedAt(), task.finishedAt()));
+            statement.setLong(2, task.id());
+        });
+        return updated(tasks, counts);
+    }
+
+    private static List<TaskTimes> updated(List<TaskTimes> tasks, int[][] counts) {
+        List<TaskTimes> finished = new ArrayList<>(tasks.size());
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count != 0) {
+                    finished.add(tasks.get(index));
+                }
+                index++;
+            }
+        }
+        return finished;
+    }
+
+    private long copy(CopyManager copyManager, List<TaskRow> rows) throws SQLException {
+        StringBuilder csv = new StringBuilder(rows.size() * 96);
+        for (TaskRow row : rows) {
+            csv.append(row.id()).append(',')
+                    .append('"').append(row.description().replace("\"", "\"\"")).append('"').append(',')
+                    .append(row.startedAt()).append(',')
+                    .append(nullable(row.finishedAt())).append(',')
+                    .append(nullable(Task.durationNanos(row.startedAt(), row.finishedAt()))).append(',')
+                    .append(row.assigneeId()).append('\n');
+        }
+        try {
+            long copied = copyManager.copyIn(COPY_SQL, new StringReader(csv.toString()));
+            log.debug("Copied {} task rows", copied);
+            return copied;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Пустое значение без кавычек - NULL в формате csv команды COPY
+     */
+    private static Object nullable(Object value) {
+        return value != null ? value : "";
+    }
+}
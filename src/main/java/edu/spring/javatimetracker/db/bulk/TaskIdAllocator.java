@@ -0,0 +1,74 @@
+package edu.spring.javatimetracker.db.bulk;
+
+import edu.spring.javatimetracker.domain.Task;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Выделяет идентификаторы задач для загрузки в обход Hibernate. Выделение согласовано с оптимизатором pooled,
+ * которым пользуется Hibernate: значение v последовательности task_seq резервирует идентификаторы
+ * (v - {@value Task#ID_ALLOCATION_SIZE}, v], поэтому одно обращение к последовательности дает целый блок.
+ * Для выдачи по одному идентификатору ({@link #next}) блок хранится в памяти, как в оптимизаторе pooled.
+ */
+@Component
+public class TaskIdAllocator {
+
+    private static final String SEQUENCE_NAME = "task_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String nextValueSql;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long[] block = new long[0];
+
+    private int next;
+
+    public TaskIdAllocator(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nextValueSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport().getSequenceNextValString(SEQUENCE_NAME);
+    }
+
+    /**
+     * @param count число идентификаторов
+     * @return возрастающие уникальные идентификаторы
+     */
+    public long[] allocate(int count) {
+        long[] ids = new long[count];
+        int next = 0;
+        while (next < count) {
+            Long value = jdbcTemplate.queryForObject(nextValueSql, Long.class);
+            if (value == null) {
+                throw new IllegalStateException("Sequence %s returned no value".formatted(SEQUENCE_NAME));
+            }
+            for (long id = Math.max(value - Task.ID_ALLOCATION_SIZE + 1, 1); id <= value && next < count; id++) {
+                ids[next++] = id;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Выдает очередной идентификатор из блока в памяти; к последовательности обращается раз в
+     * {@value Task#ID_ALLOCATION_SIZE} вызовов. Блокировка не закрепляет виртуальный поток за платформенным.
+     * @return уникальный идентификатор
+     */
+    public long next() {
+        lock.lock();
+        try {
+            if (next == block.length) {
+                block = allocate(Task.ID_ALLOCATION_SIZE);
+                next = 0;
+            }
+            return block[next++];
+        } finally {
+            lock.unlock();
+        }
+    }
+}
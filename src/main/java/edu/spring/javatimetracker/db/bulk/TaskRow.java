@@ -0,0 +1,15 @@
+package edu.spring.javatimetracker.db.bulk;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Строка таблицы задач для массовой загрузки
+ * @param id идентификатор, выделенный {@link TaskIdAllocator}
+ * @param description описание задачи
+ * @param startedAt время запуска
+ * @param finishedAt время завершения
+ * @param assigneeId идентификатор ответственного
+ */
+public record TaskRow(long id, String description, OffsetDateTime startedAt, OffsetDateTime finishedAt, UUID assigneeId) {
+}
@@ -0,0 +1,84 @@
+package edu.spring.javatimetracker.db.bulk;
+
+import edu.spring.javatimetracker.domain.WorkTimeRollupId;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Прибавляет время к агрегатам рабочего времени пакетом запросов. На PostgreSQL используется
+ * INSERT ... ON CONFLICT DO UPDATE: в отличие от MERGE он атомарен при параллельной вставке одного агрегата,
+ * на остальных БД (H2) - MERGE. Выполняется на соединении текущей транзакции.
+ */
+@Component
+@RequiredArgsConstructor
+public class WorkTimeRollupWriter {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO work_time_rollup (assignee_id, started_on, finished_on, total_nanos) VALUES (?, ?, ?, ?)
+            ON CONFLICT (assignee_id, started_on, finished_on)
+            DO UPDATE SET total_nanos = work_time_rollup.total_nanos + EXCLUDED.total_nanos
+            """;
+
+    private static final String MERGE_SQL = """
+            MERGE INTO work_time_rollup existing
+            USING (SELECT CAST(? AS uuid) AS assignee_id, CAST(? AS date) AS started_on,
+                          CAST(? AS date) AS finished_on, CAST(? AS bigint) AS nanos) delta
+            ON existing.assignee_id = delta.assignee_id AND existing.started_on = delta.started_on
+                AND existing.finished_on = delta.finished_on
+            WHEN MATCHED THEN UPDATE SET total_nanos = existing.total_nanos + delta.nanos
+            WHEN NOT MATCHED THEN INSERT (assignee_id, started_on, finished_on, total_nanos)
+                VALUES (delta.assignee_id, delta.started_on, delta.finished_on, delta.nanos)
+            """;
+
+    /**
+     * Агрегаты изменяются в одном порядке, чтобы параллельные транзакции не блокировали друг друга крест-накрест
+     */
+    private static final Comparator<Map.Entry<WorkTimeRollupId, Long>> LOCK_ORDER = Comparator
+            .comparing((Map.Entry<WorkTimeRollupId, Long> entry) -> entry.getKey().getAssigneeId())
+            .thenComparing(entry -> entry.getKey().getStartedOn())
+            .thenComparing(entry -> entry.getKey().getFinishedOn());
+
+    private final DataSource dataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Прибавляет время к агрегатам, создавая их при необходимости
+     * @param rollups время в наносекундах по агрегатам; отрицательное значение вычитается
+     */
+    public void add(Map<WorkTimeRollupId, Long> rollups) {
+        if (rollups.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<WorkTimeRollupId, Long>> entries = rollups.entrySet().stream().sorted(LOCK_ORDER).toList();
+        jdbcTemplate.batchUpdate(isPostgreSql() ? UPSERT_SQL : MERGE_SQL, entries, entries.size(), (statement, entry) -> {
+            statement.setObject(1, entry.getKey().getAssigneeId());
+            statement.setObject(2, entry.getKey().getStartedOn());
+            statement.setObject(3, entry.getKey().getFinishedOn());
+            statement.setLong(4, entry.getValue());
+        });
+    }
+
+    private boolean isPostgreSql() {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            return connection.isWrapperFor(PGConnection.class);
+        } catch (SQLException e) {
+            DataAccessException translated = jdbcTemplate.getExceptionTranslator().translate("isWrapperFor", null, e);
+            throw translated != null ? translated : new IllegalStateException("Database type check failed", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+}
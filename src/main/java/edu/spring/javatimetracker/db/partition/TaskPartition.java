@@ -0,0 +1,82 @@
+package edu.spring.javatimetracker.db.partition;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Optional;
+
+/**
+ * Секция таблицы задач, содержащая задачи с started_at из интервала [from, to)
+ * @param interval размер секции
+ * @param from первый день секции
+ * @param zone часовой пояс, в котором считаются границы
+ */
+public record TaskPartition(Interval interval, LocalDate from, ZoneId zone) {
+
+    private static final String PREFIX = "task_p";
+
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    public enum Interval {
+        WEEK, MONTH;
+
+        LocalDate start(LocalDate date) {
+            return switch (this) {
+                case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> date.withDayOfMonth(1);
+            };
+        }
+
+        LocalDate next(LocalDate start) {
+            return switch (this) {
+                case WEEK -> start.plusWeeks(1);
+                case MONTH -> start.plusMonths(1);
+            };
+        }
+    }
+
+    /**
+     * Возвращает секцию, содержащую указанный момент
+     */
+    public static TaskPartition containing(OffsetDateTime time, Interval interval, ZoneId zone) {
+        return new TaskPartition(interval, interval.start(time.atZoneSameInstant(zone).toLocalDate()), zone);
+    }
+
+    /**
+     * Восстанавливает секцию по имени таблицы
+     * @return секция или пусто, если таблица не является секцией этого размера
+     */
+    public static Optional<TaskPartition> fromName(String name, Interval interval, ZoneId zone) {
+        if (!name.startsWith(PREFIX)) {
+            return Optional.empty();
+        }
+        try {
+            LocalDate from = LocalDate.parse(name.substring(PREFIX.length()), SUFFIX_FORMAT);
+            return interval.start(from).equals(from)
+                    ? Optional.of(new TaskPartition(interval, from, zone))
+                    : Optional.empty();
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    public TaskPartition next() {
+        return new TaskPartition(interval, interval.next(from), zone);
+    }
+
+    public String name() {
+        return PREFIX + from.format(SUFFIX_FORMAT);
+    }
+
+    public OffsetDateTime lowerBound() {
+        return from.atStartOfDay(zone).toOffsetDateTime();
+    }
+
+    public OffsetDateTime upperBound() {
+        return interval.next(from).atStartOfDay(zone).toOffsetDateTime();
+    }
+}
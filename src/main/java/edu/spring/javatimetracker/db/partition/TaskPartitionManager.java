@@ -0,0 +1,132 @@
+package edu.spring.javatimetracker.db.partition;
+
+import edu.spring.javatimetracker.configuration.AppProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Управляет секциями таблицы задач, секционированной по started_at (см. db/migration/partitioned).
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.partitioning", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class TaskPartitionManager {
+
+    private static final String LIST_PARTITIONS = """
+            SELECT child.relname FROM pg_inherits
+            JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+            JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+            WHERE parent.relname = 'task'
+            """;
+
+    private static final String HAS_LIVE_TASKS = "SELECT EXISTS (SELECT 1 FROM %s WHERE finished_at IS NULL OR finished_at >= ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final AppProperties appProperties;
+
+    private final Clock clock;
+
+    /**
+     * Создает недостающие секции для текущего периода и {@code app.partitioning.premade} следующих.
+     * Секции должны создаваться заранее: если строки периода уже попали в секцию по умолчанию,
+     * PostgreSQL не даст создать для него секцию.
+     * @return число созданных секций
+     */
+    public int createPartitions() {
+        AppProperties.Partitioning properties = appProperties.getPartitioning();
+        Set<String> existing = new HashSet<>(listPartitions());
+        TaskPartition partition = TaskPartition.containing(
+                OffsetDateTime.now(clock), properties.getInterval(), clock.getZone());
+        int created = 0;
+        for (int i = 0; i <= properties.getPremade(); i++, partition = partition.next()) {
+            if (!existing.contains(partition.name())) {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS %s PARTITION OF task FOR VALUES FROM ('%s') TO ('%s')"
+                        .formatted(partition.name(), partition.lowerBound(), partition.upperBound()));
+                log.info("Created task partition '{}'", partition.name());
+                created++;
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Отсоединяет и удаляет секции, все задачи которых завершены раньше threshold.
+     * Задачи завершаются не позже конца дня, в который начаты (см. FinishAllTasksJob), поэтому
+     * секция считается устаревшей, если ее верхняя граница плюс сутки не позже threshold.
+     * Агрегаты рабочего времени за дни секции удаляются вместе с ней в одной транзакции (см. {@link #drop}).
+     * @param threshold граница времени завершения задач
+     * @return имена удаленных секций
+     */
+    public List<String> dropExpiredPartitions(OffsetDateTime threshold) {
+        AppProperties.Partitioning properties = appProperties.getPartitioning();
+        List<String> dropped = new ArrayList<>();
+        for (String name : listPartitions()) {
+            TaskPartition.fromName(name, properties.getInterval(), clock.getZone())
+                    .filter(partition -> !partition.upperBound().plusDays(1).isAfter(threshold))
+                    .filter(partition -> Boolean.TRUE.equals(
+                            transactionTemplate.execute(status -> drop(partition, threshold, status))))
+                    .ifPresent(partition -> dropped.add(partition.name()));
+        }
+        return dropped;
+    }
+
+    /**
+     * Отсоединяет секцию, удаляет ее и агрегаты за ее дни. Задачи секции проверяются после отсоединения:
+     * оно блокирует таблицу задач до конца транзакции, поэтому после проверки в секцию ничего не попадет.
+     * Если в секции есть незавершенные задачи или задачи, завершенные не раньше threshold (например,
+     * завершенные вручную позже конца дня), транзакция откатывается и секция остается.
+     * @return удалена ли секция
+     */
+    private boolean drop(TaskPartition partition, OffsetDateTime threshold, TransactionStatus status) {
+        jdbcTemplate.execute("ALTER TABLE task DETACH PARTITION " + partition.name());
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(HAS_LIVE_TASKS.formatted(partition.name()),
+                Boolean.class, threshold))) {
+            status.setRollbackOnly();
+            log.warn("Task partition '{}' kept: it has tasks not finished before {}", partition.name(), threshold);
+            return false;
+        }
+        jdbcTemplate.execute("DROP TABLE " + partition.name());
+        jdbcTemplate.update("DELETE FROM work_time_rollup WHERE started_on >= ? AND started_on < ?",
+                partition.from(), partition.next().from());
+        log.info("Dropped expired task partition '{}'", partition.name());
+        return true;
+    }
+
+    /**
+     * Блокирует до конца текущей транзакции создание задач пользователей (pg_advisory_xact_lock по идентификатору
+     * пользователя). Уникальный ключ секционированной таблицы обязан включать ключ секционирования, поэтому
+     * ключа (assignee_id, description) нет и занятость описания проверяется запросом: проверка и INSERT
+     * должны выполняться под этой блокировкой, иначе параллельные запросы создадут задачи с одним описанием.
+     * Блокировки берутся в порядке ключей, чтобы транзакции с несколькими пользователями не взаимоблокировались.
+     * @param assigneeIds идентификаторы пользователей
+     */
+    public void lockAssignees(Collection<UUID> assigneeIds) {
+        assigneeIds.stream()
+                .map(assigneeId -> assigneeId.getMostSignificantBits() ^ assigneeId.getLeastSignificantBits())
+                .distinct()
+                .sorted()
+                .forEach(key -> jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", row -> { }, key));
+    }
+
+    private List<String> listPartitions() {
+        return jdbcTemplate.queryForList(LIST_PARTITIONS, String.class);
+    }
+}
@@ -0,0 +1,120 @@
+package edu.spring.javatimetracker.db.pool;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Направляет транзакции только для чтения, объявленные в классах пакета transactionPrefix, на реплику,
+ * остальные соединения - на основную БД. Транзакции репозиториев Spring Data по умолчанию тоже только для
+ * чтения, но идут на основную БД: проверки перед записью не должны видеть отстающие данные.
+ * <p>
+ * Ключ выбирается при получении соединения, поэтому источник должен быть обернут в
+ * LazyConnectionDataSourceProxy: JpaTransactionManager запрашивает соединение до того, как признак
+ * read-only транзакции становится известен. Отставание реплики проверяется {@link #checkReplica};
+ * пока оно больше maxLag или реплика недоступна, чтение идет на основную БД.
+ * Решения публикуются как счетчик app.datasource.routing с тегами target и reason.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements MeterBinder {
+
+    public enum Target { PRIMARY, REPLICA }
+
+    private enum Reason { DEFAULT, READ_ONLY, REPLICA_LAG }
+
+    private final JdbcTemplate replicaTemplate;
+
+    private final String transactionPrefix;
+
+    private final Duration maxLag;
+
+    private final String lagQuery;
+
+    private volatile boolean replicaAvailable;
+
+    private volatile double lagSeconds = Double.NaN;
+
+    private volatile Map<Reason, Counter> counters = Map.of();
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, String transactionPrefix,
+                                    Duration maxLag, String lagQuery) {
+        this.replicaTemplate = new JdbcTemplate(replica);
+        this.transactionPrefix = transactionPrefix;
+        this.maxLag = maxLag;
+        this.lagQuery = lagQuery;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Reason reason = routeToReplica() ? (replicaAvailable ? Reason.READ_ONLY : Reason.REPLICA_LAG) : Reason.DEFAULT;
+        Counter counter = counters.get(reason);
+        if (counter != null) {
+            counter.increment();
+        }
+        return reason == Reason.READ_ONLY ? Target.REPLICA : Target.PRIMARY;
+    }
+
+    private boolean routeToReplica() {
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && name != null && name.startsWith(transactionPrefix);
+    }
+
+    /**
+     * Измеряет отставание реплики запросом lagQuery (секунды) и по нему разрешает или запрещает чтение с реплики
+     */
+    public void checkReplica() {
+        boolean wasAvailable = replicaAvailable;
+        try {
+            Double lag = replicaTemplate.queryForObject(lagQuery, Double.class);
+            lagSeconds = lag != null ? lag : 0;
+            replicaAvailable = lagSeconds * 1000 <= maxLag.toMillis();
+        } catch (RuntimeException e) {
+            lagSeconds = Double.NaN;
+            replicaAvailable = false;
+            if (wasAvailable) {
+                log.warn("Replica lag check failed", e);
+            }
+        }
+        if (wasAvailable != replicaAvailable) {
+            log.info("Replica reads {}, lag {} s", replicaAvailable ? "enabled" : "disabled", lagSeconds);
+        }
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Map<Reason, Counter> bound = new EnumMap<>(Reason.class);
+        for (Reason reason : Reason.values()) {
+            Target target = reason == Reason.READ_ONLY ? Target.REPLICA : Target.PRIMARY;
+            bound.put(reason, Counter.builder("app.datasource.routing")
+                    .description("Connections routed to the primary database or the replica")
+                    .tag("target", target.name().toLowerCase())
+                    .tag("reason", reason.name().toLowerCase().replace('_', '-'))
+                    .register(registry));
+        }
+        counters = bound;
+        Gauge.builder("app.datasource.replica.lag", this, source -> source.lagSeconds)
+                .description("Replica lag in seconds; NaN - replica is unavailable")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("app.datasource.replica.available", this, source -> source.replicaAvailable ? 1 : 0)
+                .description("Whether read-only transactions go to the replica")
+                .register(registry);
+    }
+}
@@ -0,0 +1,14 @@
+package edu.spring.javatimetracker.db.projection;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Запущенная и не завершенная задача
+ * @param id идентификатор задачи
+ * @param assigneeId идентификатор ответственного
+ * @param description описание задачи
+ * @param startedAt время запуска
+ */
+public record RunningTask(Long id, UUID assigneeId, String description, OffsetDateTime startedAt) {
+}
@@ -0,0 +1,11 @@
+package edu.spring.javatimetracker.db.projection;
+
+import java.util.UUID;
+
+/**
+ * Ключ уникальности задачи: описание в пределах задач пользователя
+ * @param assigneeId идентификатор ответственного
+ * @param description описание задачи
+ */
+public record TaskKey(UUID assigneeId, String description) {
+}
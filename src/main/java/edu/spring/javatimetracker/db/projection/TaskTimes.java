@@ -0,0 +1,18 @@
+package edu.spring.javatimetracker.db.projection;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Время выполнения задачи без загрузки сущности
+ * @param id идентификатор задачи
+ * @param assigneeId идентификатор ответственного
+ * @param startedAt время запуска
+ * @param finishedAt время завершения; null - задача не завершена
+ */
+public record TaskTimes(Long id, UUID assigneeId, OffsetDateTime startedAt, OffsetDateTime finishedAt) {
+
+    public TaskTimes finishedAt(OffsetDateTime finishedAt) {
+        return new TaskTimes(id, assigneeId, startedAt, finishedAt);
+    }
+}
@@ -0,0 +1,15 @@
+package edu.spring.javatimetracker.db.projection;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+
+/**
+ * Завершенная задача для отчетов; строится запросом без загрузки сущностей Task и User
+ * @param id идентификатор задачи
+ * @param description описание задачи
+ * @param startedAt время запуска
+ * @param finishedAt время завершения
+ * @param duration длительность выполнения, вычисленная в БД
+ */
+public record TaskView(Long id, String description, OffsetDateTime startedAt, OffsetDateTime finishedAt, Duration duration) {
+}
@@ -0,0 +1,11 @@
+package edu.spring.javatimetracker.db.projection;
+
+import java.util.UUID;
+
+/**
+ * Идентификатор и имя пользователя без загрузки сущности
+ * @param id идентификатор пользователя
+ * @param username имя пользователя
+ */
+public record UserIdentity(UUID id, String username) {
+}
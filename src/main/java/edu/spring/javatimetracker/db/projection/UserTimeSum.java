@@ -0,0 +1,11 @@
+package edu.spring.javatimetracker.db.projection;
+
+import java.util.UUID;
+
+/**
+ * Суммарное рабочее время пользователя
+ * @param assigneeId идентификатор пользователя
+ * @param totalNanos рабочее время в наносекундах
+ */
+public record UserTimeSum(UUID assigneeId, Long totalNanos) {
+}
@@ -0,0 +1,12 @@
+package edu.spring.javatimetracker.db.projection;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Рабочее время пользователя за день, неделю или месяц
+ * @param start первый день периода в часовом поясе приложения
+ * @param duration рабочее время внутри периода
+ */
+public record WorkBucket(LocalDate start, Duration duration) {
+}
@@ -0,0 +1,11 @@
+package edu.spring.javatimetracker.db.projection;
+
+import java.time.Duration;
+
+/**
+ * Рабочее время пользователя с учетом и без учета одновременно запущенных задач
+ * @param total сумма длительностей задач; время параллельных задач учтено несколько раз
+ * @param effective время, когда была запущена хотя бы одна задача
+ */
+public record WorkTimeTotals(Duration total, Duration effective) {
+}
@@ -0,0 +1,57 @@
+package edu.spring.javatimetracker.db.report;
+
+import edu.spring.javatimetracker.db.projection.WorkTimeTotals;
+import edu.spring.javatimetracker.db.repository.TaskJpaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Считает рабочее время пользователя без повторного учета одновременно запущенных задач.
+ * Интервалы читаются курсором в порядке started_at, как в отчете work-intervals, и сразу передаются
+ * в {@link WorkTimeSweep}: границы выбираются в БД как микросекунды от эпохи, поэтому на строку
+ * не создается ни сущностей, ни объектов времени. Задачи выбираются так же, как в остальных отчетах.
+ */
+@Component
+@RequiredArgsConstructor
+public class EffectiveWorkTimeQuery {
+
+    private static final String INTERVALS_SQL = """
+            SELECT CAST(EXTRACT(EPOCH FROM started_at) * 1000000 AS bigint),
+                   CAST(EXTRACT(EPOCH FROM finished_at) * 1000000 AS bigint)
+            FROM task
+            WHERE assignee_id = ? AND started_at IS NOT NULL AND finished_at IS NOT NULL
+                AND started_at >= ? AND started_at < ? AND finished_at < ?
+            ORDER BY started_at
+            """;
+
+    private static final int FETCH_SIZE = Integer.parseInt(TaskJpaRepository.STREAM_FETCH_SIZE);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Выполняется в транзакции: иначе драйвер PostgreSQL не читает результат курсором
+     * @param assigneeId идентификатор пользователя
+     * @param from начало периода отчета
+     * @param to конец периода отчета, не включительно
+     */
+    public WorkTimeTotals find(UUID assigneeId, OffsetDateTime from, OffsetDateTime to) {
+        WorkTimeSweep sweep = new WorkTimeSweep();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INTERVALS_SQL);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setObject(1, assigneeId);
+            statement.setObject(2, from);
+            statement.setObject(3, to);
+            statement.setObject(4, to);
+            return statement;
+        }, (RowCallbackHandler) row -> sweep.add(row.getLong(1) * 1000, row.getLong(2) * 1000));
+        return new WorkTimeTotals(Duration.ofNanos(sweep.totalNanos()), Duration.ofNanos(sweep.effectiveNanos()));
+    }
+}
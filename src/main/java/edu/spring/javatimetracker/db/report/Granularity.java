@@ -0,0 +1,41 @@
+package edu.spring.javatimetracker.db.report;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Размер периода гистограммы рабочего времени. Недели начинаются с понедельника, как в date_trunc('week')
+ */
+public enum Granularity {
+    DAY, WEEK, MONTH;
+
+    /**
+     * Первый день периода, содержащего date
+     */
+    public LocalDate start(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    /**
+     * Первый день следующего периода
+     */
+    public LocalDate next(LocalDate start) {
+        return switch (this) {
+            case DAY -> start.plusDays(1);
+            case WEEK -> start.plusWeeks(1);
+            case MONTH -> start.plusMonths(1);
+        };
+    }
+
+    /**
+     * Единица date_trunc и шаг generate_series в PostgreSQL
+     */
+    String unit() {
+        return name().toLowerCase();
+    }
+}
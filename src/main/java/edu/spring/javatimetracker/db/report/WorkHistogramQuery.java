@@ -0,0 +1,123 @@
+package edu.spring.javatimetracker.db.report;
+
+import edu.spring.javatimetracker.db.projection.WorkBucket;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Строит гистограмму рабочего времени пользователя: время завершенных задач, разбитое по дням, неделям или
+ * месяцам в часовом поясе приложения. Задача, пересекающая границу периода, делится между периодами.
+ * <p>
+ * На PostgreSQL разбиение и суммирование выполняются в БД: каждая задача разворачивается в периоды через
+ * generate_series от date_trunc времени запуска, и клиенту возвращаются только суммы периодов. Границы
+ * считаются в местном времени и переводятся обратно в абсолютное, поэтому сутки перехода на летнее время
+ * короче остальных. На остальных БД (H2) интервалы читаются и делятся в приложении.
+ * Задачи выбираются так же, как в остальных отчетах: начатые в [from, to) и завершенные до to.
+ */
+@Component
+@RequiredArgsConstructor
+public class WorkHistogramQuery {
+
+    private static final String HISTOGRAM_SQL = """
+            SELECT bucket_start, micros FROM (
+                SELECT CAST(bucket AS date) AS bucket_start,
+                       CAST(SUM(EXTRACT(EPOCH FROM
+                           LEAST(task.finished_at, (bucket + params.step) AT TIME ZONE params.zone)
+                           - GREATEST(task.started_at, bucket AT TIME ZONE params.zone))) * 1000000 AS bigint) AS micros
+                FROM task
+                CROSS JOIN (SELECT CAST(? AS text) AS zone, CAST(? AS text) AS unit, CAST(? AS interval) AS step) params
+                CROSS JOIN LATERAL generate_series(date_trunc(params.unit, task.started_at AT TIME ZONE params.zone),
+                                                   task.finished_at AT TIME ZONE params.zone, params.step) AS bucket
+                WHERE task.assignee_id = ? AND task.finished_at IS NOT NULL
+                    AND task.started_at >= ? AND task.started_at < ? AND task.finished_at < ?
+                GROUP BY bucket
+            ) buckets
+            WHERE micros > 0
+            ORDER BY bucket_start
+            """;
+
+    private static final String INTERVALS_SQL = """
+            SELECT started_at, finished_at FROM task
+            WHERE assignee_id = ? AND finished_at IS NOT NULL AND started_at >= ? AND started_at < ? AND finished_at < ?
+            """;
+
+    private final DataSource dataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param assigneeId идентификатор пользователя
+     * @param from начало периода отчета
+     * @param to конец периода отчета, не включительно
+     * @param granularity размер периода гистограммы
+     * @param zone часовой пояс границ периодов
+     * @return непустые периоды в порядке начала
+     */
+    public List<WorkBucket> find(UUID assigneeId, OffsetDateTime from, OffsetDateTime to,
+                                 Granularity granularity, ZoneId zone) {
+        if (isPostgres()) {
+            return jdbcTemplate.query(HISTOGRAM_SQL,
+                    (row, i) -> new WorkBucket(row.getObject(1, LocalDate.class), Duration.of(row.getLong(2), ChronoUnit.MICROS)),
+                    zone.getId(), granularity.unit(), "1 " + granularity.unit(), assigneeId, from, to, to);
+        }
+        Map<LocalDate, Duration> buckets = new TreeMap<>();
+        jdbcTemplate.query(INTERVALS_SQL, row -> {
+            split(row.getObject(1, OffsetDateTime.class).toInstant(), row.getObject(2, OffsetDateTime.class).toInstant(),
+                    granularity, zone, buckets);
+        }, assigneeId, from, to, to);
+        return buckets.entrySet().stream()
+                .filter(bucket -> bucket.getValue().isPositive())
+                .map(bucket -> new WorkBucket(bucket.getKey(), bucket.getValue()))
+                .toList();
+    }
+
+    /**
+     * Делит интервал [startedAt, finishedAt) между периодами, прибавляя части к buckets
+     */
+    static void split(Instant startedAt, Instant finishedAt, Granularity granularity, ZoneId zone,
+                      Map<LocalDate, Duration> buckets) {
+        LocalDate bucket = granularity.start(startedAt.atZone(zone).toLocalDate());
+        Instant bucketStart = bucket.atStartOfDay(zone).toInstant();
+        while (bucketStart.isBefore(finishedAt)) {
+            LocalDate next = granularity.next(bucket);
+            Instant bucketEnd = next.atStartOfDay(zone).toInstant();
+            Instant partStart = startedAt.isAfter(bucketStart) ? startedAt : bucketStart;
+            Instant partEnd = finishedAt.isBefore(bucketEnd) ? finishedAt : bucketEnd;
+            if (partStart.isBefore(partEnd)) {
+                buckets.merge(bucket, Duration.between(partStart, partEnd), Duration::plus);
+            }
+            bucket = next;
+            bucketStart = bucketEnd;
+        }
+    }
+
+    private boolean isPostgres() {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            return connection.isWrapperFor(PGConnection.class);
+        } catch (SQLException e) {
+            DataAccessException translated = jdbcTemplate.getExceptionTranslator().translate("isWrapperFor", null, e);
+            throw translated != null ? translated : new IllegalStateException("Database type check failed", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+}
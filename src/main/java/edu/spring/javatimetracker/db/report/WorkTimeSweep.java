@@ -0,0 +1,61 @@
+package edu.spring.javatimetracker.db.report;
+
+/**
+ * Объединяет пересекающиеся интервалы за один проход. Интервалы подаются упорядоченными по началу,
+ * поэтому достаточно помнить только текущий отрезок объединения: память не зависит от числа интервалов,
+ * а границы хранятся примитивными значениями без объектов на каждый интервал.
+ */
+public final class WorkTimeSweep {
+
+    private long totalNanos;
+
+    private long mergedNanos;
+
+    private long runStart;
+
+    private long runEnd;
+
+    private long lastStart = Long.MIN_VALUE;
+
+    private boolean open;
+
+    /**
+     * @param startNanos начало интервала, наносекунды от эпохи
+     * @param endNanos конец интервала, наносекунды от эпохи
+     * @throws IllegalArgumentException интервал начинается раньше предыдущего
+     */
+    public void add(long startNanos, long endNanos) {
+        if (startNanos < lastStart) {
+            throw new IllegalArgumentException("Intervals must be ordered by start");
+        }
+        lastStart = startNanos;
+        if (endNanos <= startNanos) {
+            return;
+        }
+        totalNanos += endNanos - startNanos;
+        if (!open || startNanos > runEnd) {
+            if (open) {
+                mergedNanos += runEnd - runStart;
+            }
+            runStart = startNanos;
+            runEnd = endNanos;
+            open = true;
+        } else if (endNanos > runEnd) {
+            runEnd = endNanos;
+        }
+    }
+
+    /**
+     * Сумма длительностей всех интервалов
+     */
+    public long totalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Длина объединения интервалов
+     */
+    public long effectiveNanos() {
+        return mergedNanos + (open ? runEnd - runStart : 0);
+    }
+}
@@ -1,64 +1,291 @@
 package edu.spring.javatimetracker.db.repository;
 
+import edu.spring.javatimetracker.db.projection.RunningTask;
+import edu.spring.javatimetracker.db.projection.TaskKey;
+import edu.spring.javatimetracker.db.projection.TaskTimes;
+import edu.spring.javatimetracker.db.projection.TaskView;
 import edu.spring.javatimetracker.domain.Task;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
 
+/**
+ * Запросы выбирают задачи пользователя по assignee_id без соединения с таблицей users;
+ * идентификатор по имени пользователя разрешает UserIdCache.
+ * <p>
+ * Запросы отчетов ограничивают started_at с двух сторон: условие {@code task.startedAt < :to} следует из остальных,
+ * но позволяет PostgreSQL отсекать лишние секции таблицы задач, секционированной по started_at.
+ * <p>
+ * Отчеты возвращают {@link TaskView}: выбираются только нужные столбцы задачи, строка пользователя не загружается,
+ * а результат не попадает в контекст персистентности и не участвует в проверке изменений.
+ * <p>
+ * Каждому запросу соответствует индекс из миграций db/migration (V2__task_report_indexes.sql); новый запрос
+ * добавляется вместе с индексом, а TaskQueryPlanTest проверяет, что запросы не читают таблицу целиком.
+ */
 public interface TaskJpaRepository extends JpaRepository<Task, Long> {
 
+    /**
+     * Число строк, получаемых из курсора БД за одно обращение при потоковом чтении
+     */
+    String STREAM_FETCH_SIZE = "500";
+
+    /**
+     * Конструктор проекции {@link TaskView} для запросов отчетов
+     */
+    String TASK_VIEW = "new edu.spring.javatimetracker.db.projection.TaskView(" +
+            "task.id, task.description, task.startedAt, task.finishedAt, task.finishedAt - task.startedAt)";
+
     /**
      * Возвращает список задач пользователя за период c N (включительно) по M (не включительно), отсортированный
      * по длительности выполнения
-     * @param username имя пользователя
+     * @param assigneeId идентификатор пользователя
      * @param from дата начала периода
      * @param to дата конца периода
      * @return список задач
      */
-    @Query("SELECT task FROM Task task JOIN User user ON task.assignee.id = user.id " +
-            "WHERE user.username = :username AND task.startedAt IS NOT NULL AND task.finishedAt IS NOT NULL AND " +
-            "task.startedAt >= :from AND task.finishedAt < :to " +
-            "ORDER BY task.finishedAt - task.startedAt DESC")
-    List<Task> findUserTasks(@Param("username") String username, @Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to);
+    @Query("SELECT " + TASK_VIEW + " FROM Task task " +
+            "WHERE task.assignee.id = :assigneeId AND task.startedAt IS NOT NULL AND task.finishedAt IS NOT NULL AND " +
+            "task.startedAt >= :from AND task.startedAt < :to AND task.finishedAt < :to " +
+            "ORDER BY task.durationNanos DESC")
+    List<TaskView> findUserTasks(@Param("assigneeId") UUID assigneeId, @Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to);
 
     /**
      * Возвращает список интервалов пользователя за период c N (включительно) по M (не включительно), отсортированный
      * по началу выполнения задач
-     * @param username имя пользователя
+     * @param assigneeId идентификатор пользователя
+     * @param from дата начала периода
+     * @param to дата конца периода
+     * @return список задач
+     */
+    @Query("SELECT " + TASK_VIEW + " FROM Task task " +
+            "WHERE task.assignee.id = :assigneeId AND task.startedAt IS NOT NULL AND task.finishedAt IS NOT NULL AND " +
+            "task.startedAt >= :from AND task.startedAt < :to AND task.finishedAt < :to " +
+            "ORDER BY task.startedAt")
+    List<TaskView> findUserIntervals(@Param("assigneeId") UUID assigneeId, @Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to);
+
+    /**
+     * Возвращает страницу задач пользователя за период, отсортированных по убыванию длительности и по идентификатору.
+     * Страница начинается сразу после задачи (afterDuration, afterId), поэтому стоимость запроса
+     * не зависит от номера страницы. Порядок задает сохраненный столбец duration_nanos, поэтому PostgreSQL
+     * читает первые limit задач по индексу (assignee_id, duration_nanos DESC) без сортировки всех задач пользователя.
+     * @param assigneeId идентификатор пользователя
+     * @param from дата начала периода
+     * @param to дата конца периода
+     * @param afterDuration длительность последней задачи предыдущей страницы в наносекундах
+     * @param afterId идентификатор последней задачи предыдущей страницы
+     * @param pageable размер страницы
+     * @return список задач
+     */
+    @Query("SELECT " + TASK_VIEW + " FROM Task task " +
+            "WHERE task.assignee.id = :assigneeId AND task.startedAt IS NOT NULL AND task.finishedAt IS NOT NULL AND " +
+            "task.startedAt >= :from AND task.startedAt < :to AND task.finishedAt < :to AND " +
+            "(task.durationNanos < :afterDuration OR " +
+            "(task.durationNanos = :afterDuration AND task.id > :afterId)) " +
+            "ORDER BY task.durationNanos DESC, task.id")
+    List<TaskView> findUserTasksAfter(@Param("assigneeId") UUID assigneeId, @Param("from") OffsetDateTime from,
+                                  @Param("to") OffsetDateTime to, @Param("afterDuration") long afterDuration,
+                                  @Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Возвращает страницу интервалов пользователя за период, отсортированных по началу выполнения и по идентификатору.
+     * Страница начинается сразу после задачи (afterStartedAt, afterId).
+     * @param assigneeId идентификатор пользователя
      * @param from дата начала периода
      * @param to дата конца периода
+     * @param afterStartedAt начало последней задачи предыдущей страницы
+     * @param afterId идентификатор последней задачи предыдущей страницы
+     * @param pageable размер страницы
      * @return список задач
      */
-    @Query("SELECT task FROM Task task JOIN User user ON task.assignee.id = user.id " +
-            "WHERE user.username = :username AND task.startedAt IS NOT NULL AND task.finishedAt IS NOT NULL AND " +
-            "task.startedAt >= :from AND task.finishedAt < :to " +
+    @Query("SELECT " + TASK_VIEW + " FROM Task task " +
+            "WHERE task.assignee.id = :assigneeId AND task.startedAt IS NOT NULL AND task.finishedAt IS NOT NULL AND " +
+            "task.startedAt >= :from AND task.startedAt < :to AND task.finishedAt < :to AND " +
+            "(task.startedAt > :afterStartedAt OR (task.startedAt = :afterStartedAt AND task.id > :afterId)) " +
+            "ORDER BY task.startedAt, task.id")
+    List<TaskView> findUserIntervalsAfter(@Param("assigneeId") UUID assigneeId, @Param("from") OffsetDateTime from,
+                                      @Param("to") OffsetDateTime to, @Param("afterStartedAt") OffsetDateTime afterStartedAt,
+                                      @Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Потоковый вариант {@link #findUserTasks}: строки читаются из курсора БД порциями по
+     * {@value #STREAM_FETCH_SIZE}. Поток должен читаться и закрываться внутри транзакции.
+     * @param assigneeId идентификатор пользователя
+     * @param from дата начала периода
+     * @param to дата конца периода
+     * @return поток задач
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE)
+    })
+    @Query("SELECT " + TASK_VIEW + " FROM Task task " +
+            "WHERE task.assignee.id = :assigneeId AND task.startedAt IS NOT NULL AND task.finishedAt IS NOT NULL AND " +
+            "task.startedAt >= :from AND task.startedAt < :to AND task.finishedAt < :to " +
+            "ORDER BY task.durationNanos DESC")
+    Stream<TaskView> streamUserTasks(@Param("assigneeId") UUID assigneeId, @Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to);
+
+    /**
+     * Потоковый вариант {@link #findUserIntervals}: строки читаются из курсора БД порциями по
+     * {@value #STREAM_FETCH_SIZE}. Поток должен читаться и закрываться внутри транзакции.
+     * @param assigneeId идентификатор пользователя
+     * @param from дата начала периода
+     * @param to дата конца периода
+     * @return поток задач
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE)
+    })
+    @Query("SELECT " + TASK_VIEW + " FROM Task task " +
+            "WHERE task.assignee.id = :assigneeId AND task.startedAt IS NOT NULL AND task.finishedAt IS NOT NULL AND " +
+            "task.startedAt >= :from AND task.startedAt < :to AND task.finishedAt < :to " +
             "ORDER BY task.startedAt")
-    List<Task> findUserIntervals(@Param("username") String username, @Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to);
+    Stream<TaskView> streamUserIntervals(@Param("assigneeId") UUID assigneeId, @Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to);
 
     /**
      * Возвращает суммарное рабочее время пользователя
-     * @param username имя пользователя
+     * @param assigneeId идентификатор пользователя
      * @param from дата начала периода
      * @param to дата конца периода
      * @return рабочее время в наносекундах
      */
-    @Query("SELECT SUM(task.finishedAt - task.startedAt) FROM Task task JOIN User user ON task.assignee.id = user.id " +
-            "WHERE user.username = :username AND task.startedAt IS NOT NULL AND task.finishedAt IS NOT NULL AND " +
-            "task.startedAt >= :from AND task.finishedAt < :to ")
-    Long getUserTimeSum(@Param("username") String username, @Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to);
+    @Query("SELECT SUM(task.finishedAt - task.startedAt) FROM Task task " +
+            "WHERE task.assignee.id = :assigneeId AND task.startedAt IS NOT NULL AND task.finishedAt IS NOT NULL AND " +
+            "task.startedAt >= :from AND task.startedAt < :to AND task.finishedAt < :to ")
+    Long getUserTimeSum(@Param("assigneeId") UUID assigneeId, @Param("from") OffsetDateTime from, @Param("to") OffsetDateTime to);
 
     /**
      * Удаляет все задачи пользователя
-     * @param username имя пользователя
+     * @param assigneeId идентификатор пользователя
      */
     @Modifying
-    @Query("DELETE FROM Task task JOIN User user ON task.assignee.id = user.id WHERE user.username = :username")
-    void deleteUserTasks(@Param("username") String username);
+    @Query("DELETE FROM Task task WHERE task.assignee.id = :assigneeId")
+    void deleteUserTasks(@Param("assigneeId") UUID assigneeId);
+
+    /**
+     * Возвращает запущенные, но не завершенные задачи
+     * @param pageable ограничение размера выборки
+     * @return список задач
+     */
+    @Query("SELECT new edu.spring.javatimetracker.db.projection.TaskTimes(" +
+            "task.id, task.assignee.id, task.startedAt, task.finishedAt) FROM Task task " +
+            "WHERE task.finishedAt IS NULL AND task.startedAt IS NOT NULL ORDER BY task.id")
+    List<TaskTimes> findRunningTasks(Pageable pageable);
+
+    /**
+     * Возвращает задачи из списка, которые запущены и еще не завершены
+     * @param ids идентификаторы задач
+     * @return список задач
+     */
+    @Query("SELECT new edu.spring.javatimetracker.db.projection.TaskTimes(" +
+            "task.id, task.assignee.id, task.startedAt, task.finishedAt) FROM Task task " +
+            "WHERE task.id IN :ids AND task.finishedAt IS NULL AND task.startedAt IS NOT NULL")
+    List<TaskTimes> findRunningTasks(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Возвращает идентификаторы из списка, под которыми задачи уже сохранены
+     * @param ids идентификаторы задач
+     * @return существующие идентификаторы
+     */
+    @Query("SELECT task.id FROM Task task WHERE task.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Возвращает порцию запущенных задач после указанного идентификатора; выборка по индексу на finished_at
+     * @param afterId идентификатор последней задачи предыдущей порции
+     * @param pageable ограничение размера выборки
+     * @return список задач, отсортированный по идентификатору
+     */
+    @Query("SELECT new edu.spring.javatimetracker.db.projection.RunningTask(" +
+            "task.id, task.assignee.id, task.description, task.startedAt) FROM Task task " +
+            "WHERE task.finishedAt IS NULL AND task.startedAt IS NOT NULL AND task.id > :afterId " +
+            "AND task.assignee IS NOT NULL ORDER BY task.id")
+    List<RunningTask> findRunningTasksAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Возвращает завершенные задачи без сохраненной длительности (завершенные до появления столбца duration_nanos)
+     * @param pageable ограничение размера выборки
+     * @return список задач, отсортированный по идентификатору
+     */
+    @Query("SELECT new edu.spring.javatimetracker.db.projection.TaskTimes(" +
+            "task.id, task.assignee.id, task.startedAt, task.finishedAt) FROM Task task " +
+            "WHERE task.durationNanos IS NULL AND task.startedAt IS NOT NULL AND task.finishedAt IS NOT NULL ORDER BY task.id")
+    List<TaskTimes> findTasksWithoutDuration(Pageable pageable);
+
+    /**
+     * Возвращает задачи, завершенные раньше указанного времени
+     * @param threshold граница времени завершения (не включительно)
+     * @param pageable ограничение размера выборки
+     * @return список задач
+     */
+    @Query("SELECT new edu.spring.javatimetracker.db.projection.TaskTimes(" +
+            "task.id, task.assignee.id, task.startedAt, task.finishedAt) FROM Task task " +
+            "WHERE task.finishedAt < :threshold ORDER BY task.finishedAt")
+    List<TaskTimes> findFinishedBefore(@Param("threshold") OffsetDateTime threshold, Pageable pageable);
+
+    /**
+     * Возвращает завершенные задачи с идентификатором больше указанного, упорядоченные по идентификатору
+     * @param afterId идентификатор последней задачи предыдущей выборки
+     * @param pageable ограничение размера выборки
+     * @return список задач
+     */
+    @Query("SELECT new edu.spring.javatimetracker.db.projection.TaskTimes(" +
+            "task.id, task.assignee.id, task.startedAt, task.finishedAt) FROM Task task " +
+            "WHERE task.id > :afterId AND task.startedAt IS NOT NULL AND task.finishedAt IS NOT NULL ORDER BY task.id")
+    List<TaskTimes> findFinishedTasks(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Удаляет указанные задачи одним запросом
+     * @param ids идентификаторы задач
+     * @return число удаленных задач
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Task task WHERE task.id IN :ids")
+    int deleteTasks(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Задача пользователя по описанию; описание уникально только в пределах задач пользователя
+     * @param assigneeId идентификатор пользователя
+     * @param description описание задачи
+     */
+    Optional<Task> findByAssigneeIdAndDescription(UUID assigneeId, String description);
 
-    Optional<Task> findByDescription(String description);
+    /**
+     * Проверяет, занято ли описание задачей пользователя
+     * @param assigneeId идентификатор пользователя
+     * @param description описание задачи
+     */
+    boolean existsByAssigneeIdAndDescription(UUID assigneeId, String description);
+
+    /**
+     * Возвращает описания из списка, которые уже заняты задачами пользователя
+     * @param assigneeId идентификатор пользователя
+     * @param descriptions описания задач
+     * @return занятые описания
+     */
+    @Query("SELECT task.description FROM Task task " +
+            "WHERE task.assignee.id = :assigneeId AND task.description IN :descriptions")
+    List<String> findExistingDescriptions(@Param("assigneeId") UUID assigneeId,
+                                          @Param("descriptions") Collection<String> descriptions);
+
+    /**
+     * Возвращает занятые пары пользователь-описание среди задач указанных пользователей
+     * @param assigneeIds идентификаторы пользователей
+     * @param descriptions описания задач
+     * @return ключи существующих задач
+     */
+    @Query("SELECT new edu.spring.javatimetracker.db.projection.TaskKey(task.assignee.id, task.description) " +
+            "FROM Task task WHERE task.assignee.id IN :assigneeIds AND task.description IN :descriptions")
+    List<TaskKey> findExistingKeys(@Param("assigneeIds") Collection<UUID> assigneeIds,
+                                   @Param("descriptions") Collection<String> descriptions);
 }
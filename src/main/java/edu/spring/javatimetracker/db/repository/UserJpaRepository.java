@@ -1,12 +1,34 @@
 package edu.spring.javatimetracker.db.repository;
 
+import edu.spring.javatimetracker.db.projection.UserIdentity;
 import edu.spring.javatimetracker.domain.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface UserJpaRepository extends JpaRepository<User, UUID> {
 
     Optional<User> findByUsername(String username);
+
+    /**
+     * Возвращает идентификатор пользователя без загрузки сущности
+     * @param username имя пользователя
+     * @return идентификатор; пусто - пользователь не найден
+     */
+    @Query("SELECT user.id FROM User user WHERE user.username = :username")
+    Optional<UUID> findIdByUsername(@Param("username") String username);
+
+    /**
+     * Возвращает идентификаторы пользователей по именам одним запросом
+     * @param usernames имена пользователей
+     * @return найденные пользователи
+     */
+    @Query("SELECT new edu.spring.javatimetracker.db.projection.UserIdentity(user.id, user.username) " +
+            "FROM User user WHERE user.username IN :usernames")
+    List<UserIdentity> findIdentities(@Param("usernames") Collection<String> usernames);
 }
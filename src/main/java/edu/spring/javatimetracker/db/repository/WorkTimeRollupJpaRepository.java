@@ -0,0 +1,62 @@
+package edu.spring.javatimetracker.db.repository;
+
+import edu.spring.javatimetracker.db.projection.UserTimeSum;
+import edu.spring.javatimetracker.domain.WorkTimeRollup;
+import edu.spring.javatimetracker.domain.WorkTimeRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Чтение и удаление агрегатов рабочего времени; время к агрегатам прибавляет WorkTimeRollupWriter
+ */
+public interface WorkTimeRollupJpaRepository extends JpaRepository<WorkTimeRollup, WorkTimeRollupId> {
+
+    /**
+     * Возвращает суммарное рабочее время пользователя по задачам, начатым не раньше дня N
+     * и завершенным раньше дня M
+     * @param assigneeId идентификатор пользователя
+     * @param from первый день периода
+     * @param to день, следующий за последним днем периода
+     * @return рабочее время в наносекундах; null - задач нет
+     */
+    @Query("SELECT SUM(workTime.totalNanos) FROM WorkTimeRollup workTime " +
+            "WHERE workTime.id.assigneeId = :assigneeId AND workTime.id.startedOn >= :from AND workTime.id.finishedOn < :to")
+    Long getUserTimeSum(@Param("assigneeId") UUID assigneeId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Возвращает суммарное рабочее время нескольких пользователей одним запросом с группировкой по пользователю;
+     * границы периода те же, что в {@link #getUserTimeSum}
+     * @param assigneeIds идентификаторы пользователей
+     * @param from первый день периода
+     * @param to день, следующий за последним днем периода
+     * @return время пользователей, у которых есть задачи за период
+     */
+    @Query("SELECT new edu.spring.javatimetracker.db.projection.UserTimeSum(workTime.id.assigneeId, SUM(workTime.totalNanos)) " +
+            "FROM WorkTimeRollup workTime WHERE workTime.id.assigneeId IN :assigneeIds " +
+            "AND workTime.id.startedOn >= :from AND workTime.id.finishedOn < :to GROUP BY workTime.id.assigneeId")
+    List<UserTimeSum> getUsersTimeSums(@Param("assigneeIds") Collection<UUID> assigneeIds,
+                                       @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Удаляет агрегаты пользователей, время которых стало нулевым после вычитания
+     * @param assigneeIds идентификаторы пользователей
+     */
+    @Modifying
+    @Query("DELETE FROM WorkTimeRollup workTime WHERE workTime.id.assigneeId IN :assigneeIds AND workTime.totalNanos <= 0")
+    void deleteEmpty(@Param("assigneeIds") Collection<UUID> assigneeIds);
+
+    /**
+     * Удаляет все агрегаты пользователя
+     * @param assigneeId идентификатор пользователя
+     */
+    @Modifying
+    @Query("DELETE FROM WorkTimeRollup workTime WHERE workTime.id.assigneeId = :assigneeId")
+    void deleteUserRollups(@Param("assigneeId") UUID assigneeId);
+}
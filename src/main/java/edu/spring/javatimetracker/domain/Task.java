@@ -5,29 +5,51 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.Clock;
+import java.time.Duration;
 import java.time.OffsetDateTime;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = Task.DESCRIPTION_CONSTRAINT, columnNames = {"assignee_id", "description"}))
 @Getter
 @NoArgsConstructor
 @EqualsAndHashCode
 public class Task {
 
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * Описание задачи уникально в пределах задач одного пользователя
+     */
+    public static final String DESCRIPTION_CONSTRAINT = "task_assignee_description_key";
+
+    /**
+     * Идентификаторы выделяются из последовательности блоками по {@value #ID_ALLOCATION_SIZE}:
+     * в отличие от IDENTITY это позволяет Hibernate объединять INSERT в пакеты
+     */
     @Setter
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_seq")
+    @SequenceGenerator(name = "task_seq", sequenceName = "task_seq", allocationSize = Task.ID_ALLOCATION_SIZE)
     private Long id;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String description;
 
     private OffsetDateTime startedAt;
 
+    @Column(name = "finished_at")
     private OffsetDateTime finishedAt;
 
+    /**
+     * Длительность выполнения в наносекундах, сохраняемая при завершении задачи: отчет по длительности
+     * читает первые N задач по индексу task_assignee_duration_idx вместо сортировки всех задач пользователя
+     */
+    @Column(name = "duration_nanos")
+    private Long durationNanos;
+
     @Setter(AccessLevel.PACKAGE)
     @EqualsAndHashCode.Exclude
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "assignee_id")
     private User assignee;
 
@@ -35,12 +57,22 @@ public class Task {
         this.description = description;
         this.startedAt = startedAt;
         this.finishedAt = finishedAt;
+        this.durationNanos = durationNanos(startedAt, finishedAt);
     }
 
     public Task(String description) {
         this.description = description;
     }
 
+    /**
+     * Создает задачу с ответственным, не изменяя коллекцию задач пользователя; позволяет передать
+     * ссылку на пользователя без его загрузки
+     */
+    public Task(String description, User assignee) {
+        this.description = description;
+        this.assignee = assignee;
+    }
+
     public void start(Clock clock) {
         if (startedAt != null || finishedAt != null) {
             throw new TaskNotCreatedException("Task '%s' already started".formatted(description));
@@ -53,9 +85,17 @@ public class Task {
             throw new TaskNotCreatedException("Task '%s' already finished or not started".formatted(description));
         }
         finishedAt = OffsetDateTime.now(clock);
+        durationNanos = durationNanos(startedAt, finishedAt);
     }
 
     public boolean isFinished() {
         return finishedAt != null;
     }
+
+    /**
+     * Значение столбца duration_nanos; null - задача не запущена или не завершена
+     */
+    public static Long durationNanos(OffsetDateTime startedAt, OffsetDateTime finishedAt) {
+        return startedAt != null && finishedAt != null ? Duration.between(startedAt, finishedAt).toNanos() : null;
+    }
 }
@@ -0,0 +1,33 @@
+package edu.spring.javatimetracker.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Суммарное время завершенных задач пользователя, начатых в день startedOn и завершенных в день finishedOn
+ * (дни считаются в часовом поясе приложения). Задачи не переходят через полночь (см. FinishAllTasksJob),
+ * поэтому на пользователя приходится примерно одна строка в день.
+ */
+@Entity
+@Table(name = "work_time_rollup")
+@Getter
+@NoArgsConstructor
+@EqualsAndHashCode
+public class WorkTimeRollup {
+
+    @EmbeddedId
+    private WorkTimeRollupId id;
+
+    @Column(name = "total_nanos", nullable = false)
+    private long totalNanos;
+
+    public WorkTimeRollup(WorkTimeRollupId id, long totalNanos) {
+        this.id = id;
+        this.totalNanos = totalNanos;
+    }
+}
@@ -0,0 +1,29 @@
+package edu.spring.javatimetracker.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Embeddable
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class WorkTimeRollupId implements Serializable {
+
+    @Column(name = "assignee_id", nullable = false)
+    private UUID assigneeId;
+
+    @Column(name = "started_on", nullable = false)
+    private LocalDate startedOn;
+
+    @Column(name = "finished_on", nullable = false)
+    private LocalDate finishedOn;
+}
@@ -0,0 +1,60 @@
+package edu.spring.javatimetracker.handler;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Добавляет в контекст логирования (MDC) идентификатор запроса и имя пользователя из адреса запроса,
+ * чтобы все строки лога одного запроса можно было связать. Идентификатор берется из заголовка
+ * {@value #REQUEST_ID_HEADER} или создается и возвращается клиенту в том же заголовке.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+    public static final String REQUEST_ID_KEY = "requestId";
+
+    public static final String USER_KEY = "user";
+
+    private static final int MAX_REQUEST_ID_LENGTH = 64;
+
+    /**
+     * /api/{username}/tasks/... и /api/users/{username}
+     */
+    private static final Pattern USER_PATH = Pattern.compile("^/api/(?:users/([^/]+)|(?!users/|import/)([^/]+)/tasks)(?:/|$)");
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (requestId == null || requestId.isBlank() || requestId.length() > MAX_REQUEST_ID_LENGTH) {
+            requestId = UUID.randomUUID().toString();
+        }
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+        MDC.put(REQUEST_ID_KEY, requestId);
+        Matcher matcher = USER_PATH.matcher(request.getRequestURI());
+        if (matcher.find()) {
+            MDC.put(USER_KEY, matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(REQUEST_ID_KEY);
+            MDC.remove(USER_KEY);
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package edu.spring.javatimetracker.handler;
 
 import edu.spring.javatimetracker.controller.dto.ValidationErrorDto;
+import edu.spring.javatimetracker.util.exception.InvalidCursorException;
 import edu.spring.javatimetracker.util.exception.NotFoundException;
 import edu.spring.javatimetracker.util.exception.ResourceExistsException;
 import edu.spring.javatimetracker.util.exception.TaskNotCreatedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.MessageSourceResolvable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,12 +20,27 @@ import org.springframework.web.method.annotation.HandlerMethodValidationExceptio
 import java.util.stream.Collectors;
 
 @RestControllerAdvice
+@RequiredArgsConstructor
 @Slf4j
 public class GlobalControllerExceptionHandler {
 
+    /**
+     * Реестр метрик; отсутствует в тестовых срезах MVC
+     */
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    /**
+     * Учитывает обработанное исключение в счетчике app.api.errors с тегами exception и status
+     */
+    private void count(Exception ex, HttpStatus status) {
+        meterRegistry.ifAvailable(registry -> registry.counter("app.api.errors",
+                "exception", ex.getClass().getSimpleName(), "status", String.valueOf(status.value())).increment());
+    }
+
     @ExceptionHandler(HandlerMethodValidationException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<ValidationErrorDto> handleValidationErrors(HandlerMethodValidationException ex) {
+        count(ex, HttpStatus.BAD_REQUEST);
         String errors = ex.getAllErrors().stream()
                 .map(MessageSourceResolvable::getDefaultMessage)
                 .collect(Collectors.joining("\n"));
@@ -32,9 +51,20 @@ public class GlobalControllerExceptionHandler {
                 .body(new ValidationErrorDto(400, "Bad Request", message));
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<ValidationErrorDto> handleInvalidCursorException(InvalidCursorException ex) {
+        count(ex, HttpStatus.BAD_REQUEST);
+        log.debug("Invalid cursor exception: ", ex);
+        return ResponseEntity
+                .badRequest()
+                .body(new ValidationErrorDto(400, "Bad Request", ex.getMessage()));
+    }
+
     @ExceptionHandler(NotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ResponseEntity<String> handleNotFoundException(NotFoundException ex) {
+        count(ex, HttpStatus.NOT_FOUND);
         log.error("Resource not found exception: ", ex);
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
     }
@@ -42,6 +72,7 @@ public class GlobalControllerExceptionHandler {
     @ExceptionHandler(ResourceExistsException.class)
     @ResponseStatus(HttpStatus.CONFLICT)
     public ResponseEntity<String> handleResourceExistsException(ResourceExistsException ex) {
+        count(ex, HttpStatus.CONFLICT);
         log.error("Resource conflict exception: ", ex);
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.CONFLICT);
     }
@@ -49,6 +80,7 @@ public class GlobalControllerExceptionHandler {
     @ExceptionHandler(TaskNotCreatedException.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ResponseEntity<String> handleTaskNotCreatedException(TaskNotCreatedException ex) {
+        count(ex, HttpStatus.INTERNAL_SERVER_ERROR);
         log.error("Task not create exception: ", ex);
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
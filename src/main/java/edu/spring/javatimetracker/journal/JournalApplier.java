@@ -0,0 +1,134 @@
+package edu.spring.javatimetracker.journal;
+
+import edu.spring.javatimetracker.configuration.AppProperties;
+import edu.spring.javatimetracker.service.TaskService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Фоновый перенос событий {@link TaskJournal} в БД пакетами до app.journal.batch-size событий в транзакции.
+ * При запуске приложения первыми переносятся события, не перенесенные до остановки; при остановке перенос
+ * продолжается, пока очередь не опустеет.
+ * <p>
+ * Если пакет нарушает ограничения БД (например, описание занято задачей, созданной в обход журнала), события
+ * пакета переносятся по одному, а нарушающие ограничения пропускаются с записью в лог; задача отклоненного
+ * запуска убирается из реестра запущенных задач. При любых других ошибках
+ * пакет повторяется с паузой: событие без отметки о переносе держит контрольную точку журнала и место в очереди,
+ * поэтому пропущенный пакет в конце концов остановил бы запись в журнал.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.journal", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class JournalApplier implements SmartLifecycle {
+
+    private static final Duration RETRY_PAUSE = Duration.ofSeconds(1);
+
+    /**
+     * Перенос запускается раньше веб-сервера и останавливается после него: события, прочитанные при запуске,
+     * попадают в реестр запущенных задач до первых запросов, а принятые при остановке - переносятся
+     */
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final TaskJournal journal;
+
+    private final JournaledTaskWriter writer;
+
+    private final TaskService taskService;
+
+    private final AppProperties appProperties;
+
+    private volatile boolean running;
+
+    private Thread thread;
+
+    @Override
+    public void start() {
+        writer.recover(journal.recovered());
+        running = true;
+        thread = Thread.ofPlatform().name("journal-applier").start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void run() {
+        AppProperties.Journal properties = appProperties.getJournal();
+        while (running || journal.hasQueued()) {
+            try {
+                List<TaskEvent> events = journal.poll(properties.getBatchSize(), properties.getBatchDelay());
+                if (!events.isEmpty()) {
+                    apply(events);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Journal applier iteration failed", e);
+            }
+        }
+    }
+
+    /**
+     * Переносит пакет, повторяя его при ошибках, пока приложение работает. Повтор безопасен и после
+     * частичного переноса по одному: уже перенесенные события повторно не применяются.
+     */
+    void apply(List<TaskEvent> events) throws InterruptedException {
+        boolean oneByOne = false;
+        while (true) {
+            try {
+                if (oneByOne) {
+                    events.forEach(this::applySingle);
+                } else {
+                    taskService.applyJournal(events);
+                }
+                break;
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Journal batch of {} events violates constraints, applying one by one", events.size());
+                oneByOne = true;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    log.error("Journal batch of {} events not applied, left for replay", events.size(), e);
+                    return;
+                }
+                log.warn("Journal batch of {} events not applied, retrying", events.size(), e);
+                Thread.sleep(RETRY_PAUSE);
+            }
+        }
+        journal.markApplied(events);
+        writer.applied(events);
+    }
+
+    private void applySingle(TaskEvent event) {
+        try {
+            taskService.applyJournal(List.of(event));
+        } catch (DataIntegrityViolationException e) {
+            log.error("Journal event {} rejected by the database and skipped", event, e);
+            writer.rejected(event);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package edu.spring.javatimetracker.journal;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Файл-сегмент журнала фиксированного размера, отображенный в память. Запись - длина, контрольная сумма
+ * CRC32C и закодированное событие; нулевая длина отмечает конец записей (новый файл заполнен нулями).
+ * Запись с неверной суммой считается недописанной при сбое и вместе с последующими не читается.
+ * Доступ к сегменту синхронизирует {@link TaskJournal}.
+ */
+@Slf4j
+final class JournalSegment implements Closeable {
+
+    private static final String SUFFIX = ".journal";
+
+    private static final int HEADER_SIZE = 8;
+
+    @Getter
+    private final Path path;
+
+    @Getter
+    private final long firstSeq;
+
+    @Getter
+    private long lastSeq;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer buffer;
+
+    private JournalSegment(Path path, long firstSeq, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.firstSeq = firstSeq;
+        this.lastSeq = firstSeq - 1;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Создает пустой сегмент, первое событие которого получит номер firstSeq
+     */
+    static JournalSegment create(Path directory, long firstSeq, int size) throws IOException {
+        Path path = directory.resolve("%020d%s".formatted(firstSeq, SUFFIX));
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new JournalSegment(path, firstSeq, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+    }
+
+    /**
+     * Открывает сегмент, оставшийся от предыдущего запуска, и читает его записи
+     * @param events список, в который добавляются прочитанные события
+     */
+    static JournalSegment open(Path path, List<TaskEvent> events) throws IOException {
+        String name = path.getFileName().toString();
+        long firstSeq = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        JournalSegment segment = new JournalSegment(path, firstSeq, channel,
+                channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+        segment.read(events);
+        return segment;
+    }
+
+    /**
+     * @return сегменты каталога в порядке номеров событий
+     */
+    static List<Path> list(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+    }
+
+    /**
+     * Дописывает событие
+     * @return false - в сегменте нет места
+     */
+    boolean append(TaskEvent event) {
+        byte[] payload = event.encode();
+        if (buffer.remaining() < HEADER_SIZE + payload.length + Integer.BYTES) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        int start = buffer.position();
+        buffer.position(start + Integer.BYTES);
+        buffer.putInt((int) crc.getValue()).put(payload);
+        buffer.putInt(start, payload.length);
+        lastSeq = event.seq();
+        return true;
+    }
+
+    /**
+     * Сбрасывает записанные события на диск
+     */
+    void force() {
+        buffer.force();
+    }
+
+    private void read(List<TaskEvent> events) {
+        List<TaskEvent> read = new ArrayList<>();
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining() - Integer.BYTES) {
+                buffer.position(start);
+                break;
+            }
+            int checksum = buffer.getInt();
+            ByteBuffer payload = buffer.slice(buffer.position(), length);
+            CRC32C crc = new CRC32C();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                log.warn("Journal segment {} has a torn record at offset {}, the rest is ignored", path, start);
+                buffer.position(start);
+                break;
+            }
+            try {
+                read.add(TaskEvent.decode(payload));
+            } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+                log.warn("Journal segment {} has a malformed record at offset {}, the rest is ignored", path, start);
+                buffer.position(start);
+                break;
+            }
+            buffer.position(buffer.position() + length);
+        }
+        if (!read.isEmpty()) {
+            lastSeq = read.get(read.size() - 1).seq();
+        }
+        events.addAll(read);
+    }
+
+    /**
+     * Закрывает и удаляет файл сегмента
+     */
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,227 @@
+package edu.spring.javatimetracker.journal;
+
+import edu.spring.javatimetracker.db.bulk.TaskIdAllocator;
+import edu.spring.javatimetracker.db.projection.RunningTask;
+import edu.spring.javatimetracker.db.projection.TaskKey;
+import edu.spring.javatimetracker.db.repository.TaskJpaRepository;
+import edu.spring.javatimetracker.domain.Task;
+import edu.spring.javatimetracker.service.RunningTaskRegistry;
+import edu.spring.javatimetracker.service.UserIdCache;
+import edu.spring.javatimetracker.util.exception.NotFoundException;
+import edu.spring.javatimetracker.util.exception.ResourceExistsException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Запуск и завершение задач и удаление задач пользователя в режиме отложенной записи (app.journal.enabled): событие записывается
+ * в {@link TaskJournal}, клиент получает ответ после его сохранения на диске, а в БД событие переносит
+ * {@link JournalApplier}. Запрос не держит транзакцию и соединение с БД, кроме чтения для проверок.
+ * <p>
+ * Ответы те же, что у TaskService: идентификатор задачи выделяется сразу, занятое описание и неизвестный
+ * пользователь отклоняются. Запущенные задачи сразу видны в реестре запущенных задач; отчеты и агрегаты
+ * учитывают событие после переноса в БД.
+ * <p>
+ * Пока режим включен, все изменения задач пользователя идут через журнал: запись в БД в обход него
+ * не видит описаний, ожидающих переноса, и не упорядочена с ними.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.journal", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class JournaledTaskWriter {
+
+    private static final String TASK_NOT_FOUND = "Task with id '%d' not found";
+
+    private static final String USER_NOT_FOUND = "User '%s' not found";
+
+    private static final String TASK_EXISTS = "Task '%s' already exists";
+
+    private final TaskJournal journal;
+
+    private final TaskJpaRepository taskRepository;
+
+    private final TaskIdAllocator taskIdAllocator;
+
+    private final UserIdCache userIdCache;
+
+    private final RunningTaskRegistry runningTasks;
+
+    private final Clock clock;
+
+    /**
+     * Описания задач, записанных в журнал, но еще не перенесенных в БД
+     */
+    private final Set<TaskKey> pendingKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Создает и запускает задачу пользователя, записывая событие запуска в журнал
+     * @param username имя пользователя
+     * @param description описание задачи
+     * @return запущенная задача с выделенным идентификатором
+     * @throws ResourceExistsException у пользователя уже есть задача с заданным описанием
+     * @throws NotFoundException пользователь не найден
+     */
+    public Task createTask(String username, String description) throws ResourceExistsException, NotFoundException {
+        UUID userId = userIdCache.find(username).orElseThrow(() ->
+                new NotFoundException(USER_NOT_FOUND.formatted(username)));
+        TaskKey key = new TaskKey(userId, description);
+        if (!pendingKeys.add(key)) {
+            throw new ResourceExistsException(TASK_EXISTS.formatted(description));
+        }
+        try {
+            if (taskRepository.existsByAssigneeIdAndDescription(userId, description)) {
+                throw new ResourceExistsException(TASK_EXISTS.formatted(description));
+            }
+            Task task = new Task(description);
+            task.start(clock);
+            task.setId(taskIdAllocator.next());
+            journal.append(TaskEvent.start(task.getId(), userId, description, task.getStartedAt().toInstant()));
+            runningTasks.add(new RunningTask(task.getId(), userId, description, task.getStartedAt()));
+            log.info("User '{}' create a task '{}' with id '{}'", username, description, task.getId());
+            return task;
+        } catch (RuntimeException e) {
+            pendingKeys.remove(key);
+            throw e;
+        }
+    }
+
+    /**
+     * Создает и запускает несколько задач пользователя, записывая события запуска в журнал. Описания
+     * проверяются так же, как в {@link #createTask}.
+     * @param username имя пользователя
+     * @param descriptions описания задач
+     * @return запущенные задачи в порядке описаний
+     * @throws ResourceExistsException описания повторяются или у пользователя уже есть задачи с такими описаниями
+     * @throws NotFoundException пользователь не найден
+     */
+    public List<Task> createTasks(String username, List<String> descriptions) throws ResourceExistsException, NotFoundException {
+        Set<String> unique = new LinkedHashSet<>(descriptions);
+        if (unique.size() != descriptions.size()) {
+            throw new ResourceExistsException("Task descriptions in the batch are not unique");
+        }
+        UUID userId = userIdCache.find(username).orElseThrow(() ->
+                new NotFoundException(USER_NOT_FOUND.formatted(username)));
+        List<TaskKey> reserved = new ArrayList<>(descriptions.size());
+        int appended = 0;
+        try {
+            for (String description : descriptions) {
+                TaskKey key = new TaskKey(userId, description);
+                if (!pendingKeys.add(key)) {
+                    throw new ResourceExistsException(TASK_EXISTS.formatted(description));
+                }
+                reserved.add(key);
+            }
+            List<String> existing = taskRepository.findExistingDescriptions(userId, unique);
+            if (!existing.isEmpty()) {
+                throw new ResourceExistsException("Tasks '%s' already exist".formatted(String.join("', '", existing)));
+            }
+            List<Task> tasks = new ArrayList<>(descriptions.size());
+            for (String description : descriptions) {
+                Task task = new Task(description);
+                task.start(clock);
+                task.setId(taskIdAllocator.next());
+                journal.append(TaskEvent.start(task.getId(), userId, description, task.getStartedAt().toInstant()));
+                appended++;
+                runningTasks.add(new RunningTask(task.getId(), userId, description, task.getStartedAt()));
+                tasks.add(task);
+            }
+            log.info("User '{}' create {} tasks", username, tasks.size());
+            return tasks;
+        } catch (RuntimeException e) {
+            // описания уже записанных запусков освободит их перенос в БД
+            reserved.subList(appended, reserved.size()).forEach(pendingKeys::remove);
+            throw e;
+        }
+    }
+
+    /**
+     * Завершает задачу, записывая событие завершения в журнал. Задача ищется в реестре запущенных задач,
+     * при отсутствии в нем - в БД.
+     * @param taskId идентификатор задачи
+     * @throws NotFoundException задача не найдена
+     */
+    public void finishTask(Long taskId) throws NotFoundException {
+        RunningTask running = runningTasks.findTask(taskId).orElseGet(() -> loadRunning(taskId));
+        OffsetDateTime finishedAt = OffsetDateTime.now(clock);
+        journal.append(TaskEvent.stop(taskId, running.assigneeId(), finishedAt.toInstant()));
+        runningTasks.remove(running.assigneeId(), taskId);
+        log.info("Task '{}' with id '{}' finished", running.description(), taskId);
+    }
+
+    /**
+     * Удаляет все задачи пользователя, записывая событие удаления в журнал. При переносе оно удаляет задачи,
+     * уже сохраненные в БД, в том числе по событиям, записанным в журнал раньше него, поэтому ожидающие
+     * переноса запуски и завершения удаленные задачи не возвращают.
+     * @param username имя пользователя; неизвестный пользователь пропускается
+     */
+    public void clearUserTasks(String username) {
+        userIdCache.find(username).ifPresent(userId -> {
+            journal.append(TaskEvent.clear(userId, clock.instant()));
+            runningTasks.removeUser(userId);
+        });
+        log.info("User '{}' delete all his tasks", username);
+    }
+
+    /**
+     * Проверяет задачу, которой нет в реестре, по БД; завершенная или не запущенная задача
+     * отклоняется так же, как {@link Task#finish}
+     */
+    private RunningTask loadRunning(Long taskId) {
+        Task task = taskRepository.findById(taskId).orElseThrow(() ->
+                new NotFoundException(TASK_NOT_FOUND.formatted(taskId)));
+        task.finish(clock);
+        if (task.getAssignee() == null) {
+            throw new NotFoundException(TASK_NOT_FOUND.formatted(taskId));
+        }
+        return new RunningTask(task.getId(), task.getAssignee().getId(), task.getDescription(), task.getStartedAt());
+    }
+
+    /**
+     * Регистрирует события, прочитанные из журнала при запуске: запущенные по ним задачи попадают в реестр,
+     * а их описания считаются занятыми до переноса в БД
+     */
+    public void recover(Collection<TaskEvent> events) {
+        for (TaskEvent event : events) {
+            switch (event.type()) {
+                case START -> {
+                    pendingKeys.add(new TaskKey(event.assigneeId(), event.description()));
+                    runningTasks.add(new RunningTask(event.taskId(), event.assigneeId(), event.description(),
+                            OffsetDateTime.ofInstant(event.time(), clock.getZone())));
+                }
+                case STOP -> runningTasks.remove(event.assigneeId(), event.taskId());
+                case CLEAR -> runningTasks.removeUser(event.assigneeId());
+            }
+        }
+    }
+
+    /**
+     * Освобождает описания задач, запуски которых перенесены в БД: дальше их занятость проверяет запрос к БД
+     */
+    public void applied(Collection<TaskEvent> events) {
+        events.stream()
+                .filter(event -> event.type() == TaskEvent.Type.START)
+                .forEach(event -> pendingKeys.remove(new TaskKey(event.assigneeId(), event.description())));
+    }
+
+    /**
+     * Убирает из реестра запущенных задач задачу, запуск которой БД отклонила: такой задачи в БД нет,
+     * и завершить ее нельзя
+     */
+    public void rejected(TaskEvent event) {
+        if (event.type() == TaskEvent.Type.START) {
+            runningTasks.remove(event.assigneeId(), event.taskId());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package edu.spring.javatimetracker.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Событие журнала: запуск или завершение задачи, удаление задач пользователя
+ * @param seq порядковый номер в журнале; 0 - событие еще не записано
+ * @param type вид события
+ * @param taskId идентификатор задачи; 0 у удаления задач пользователя
+ * @param assigneeId идентификатор ответственного
+ * @param description описание задачи; только у запуска
+ * @param time время события
+ */
+public record TaskEvent(long seq, Type type, long taskId, UUID assigneeId, String description, Instant time) {
+
+    public enum Type { START, STOP, CLEAR }
+
+    public static TaskEvent start(long taskId, UUID assigneeId, String description, Instant startedAt) {
+        return new TaskEvent(0, Type.START, taskId, assigneeId, description, startedAt);
+    }
+
+    public static TaskEvent stop(long taskId, UUID assigneeId, Instant finishedAt) {
+        return new TaskEvent(0, Type.STOP, taskId, assigneeId, null, finishedAt);
+    }
+
+    public static TaskEvent clear(UUID assigneeId, Instant clearedAt) {
+        return new TaskEvent(0, Type.CLEAR, 0, assigneeId, null, clearedAt);
+    }
+
+    public TaskEvent withSeq(long seq) {
+        return new TaskEvent(seq, type, taskId, assigneeId, description, time);
+    }
+
+    /**
+     * Кодирует событие: seq, вид, задача, ответственный, время, длина описания в байтах (-1 - нет) и описание
+     */
+    byte[] encode() {
+        byte[] text = description != null ? description.getBytes(StandardCharsets.UTF_8) : null;
+        ByteBuffer buffer = ByteBuffer.allocate(49 + (text != null ? text.length : 0));
+        buffer.putLong(seq)
+                .put((byte) type.ordinal())
+                .putLong(taskId)
+                .putLong(assigneeId.getMostSignificantBits())
+                .putLong(assigneeId.getLeastSignificantBits())
+                .putLong(time.getEpochSecond())
+                .putInt(time.getNano())
+                .putInt(text != null ? text.length : -1);
+        if (text != null) {
+            buffer.put(text);
+        }
+        return buffer.array();
+    }
+
+    static TaskEvent decode(ByteBuffer buffer) {
+        long seq = buffer.getLong();
+        Type type = Type.values()[buffer.get()];
+        long taskId = buffer.getLong();
+        UUID assigneeId = new UUID(buffer.getLong(), buffer.getLong());
+        Instant time = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+        int length = buffer.getInt();
+        String description = null;
+        if (length >= 0) {
+            byte[] text = new byte[length];
+            buffer.get(text);
+            description = new String(text, StandardCharsets.UTF_8);
+        }
+        return new TaskEvent(seq, type, taskId, assigneeId, description, time);
+    }
+}
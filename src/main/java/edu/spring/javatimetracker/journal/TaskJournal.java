@@ -0,0 +1,375 @@
+package edu.spring.javatimetracker.journal;
+
+import edu.spring.javatimetracker.configuration.AppProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Журнал событий запуска и завершения задач на локальном диске (app.journal).
+ * <p>
+ * События дописываются в сегменты, отображенные в память, и получают возрастающие номера.
+ * {@link #append} возвращает управление, когда событие сохранено согласно {@link FsyncPolicy}; затем оно
+ * попадает в очередь переноса в БД ({@link #poll}). После переноса {@link #markApplied} продвигает контрольную
+ * точку - номер, до которого включительно все события в БД, - и удаляет сегменты, ставшие ненужными.
+ * При запуске события после контрольной точки читаются из сегментов и снова ставятся в очередь.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.journal", name = "enabled", havingValue = "true")
+@Slf4j
+public class TaskJournal implements MeterBinder, DisposableBean {
+
+    public enum FsyncPolicy {
+        /**
+         * Каждая запись ждет сброса на диск; одновременные записи сбрасываются одним вызовом
+         */
+        ALWAYS,
+        /**
+         * Запись ждет ближайшего периодического сброса (app.journal.fsync-interval)
+         */
+        INTERVAL,
+        /**
+         * Запись не ждет сброса: событие переживет падение процесса, но не сбой питания
+         */
+        NONE
+    }
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final FsyncPolicy fsync;
+
+    private final Duration fsyncInterval;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    private final ReentrantLock forceLock = new ReentrantLock();
+
+    private final Condition forced = forceLock.newCondition();
+
+    private final Deque<JournalSegment> segments = new ArrayDeque<>();
+
+    private long lastSeq;
+
+    private volatile long durableSeq;
+
+    private long checkpoint;
+
+    private final ConcurrentSkipListSet<Long> unapplied = new ConcurrentSkipListSet<>();
+
+    private final BlockingQueue<TaskEvent> queue = new LinkedBlockingQueue<>();
+
+    private final Semaphore capacity;
+
+    private final List<TaskEvent> recovered;
+
+    private final Thread flusher;
+
+    private volatile boolean closed;
+
+    public TaskJournal(AppProperties appProperties) throws IOException {
+        AppProperties.Journal properties = appProperties.getJournal();
+        this.directory = Files.createDirectories(properties.getDirectory());
+        this.segmentSize = (int) properties.getSegmentSize().toBytes();
+        this.fsync = properties.getFsync();
+        this.fsyncInterval = properties.getFsyncInterval();
+        this.checkpoint = readCheckpoint();
+        this.lastSeq = checkpoint;
+        List<TaskEvent> events = new ArrayList<>();
+        for (Path path : JournalSegment.list(directory)) {
+            JournalSegment segment = JournalSegment.open(path, events);
+            if (segment.getLastSeq() < segment.getFirstSeq()) {
+                segment.delete();
+            } else {
+                segments.add(segment);
+            }
+        }
+        this.recovered = events.stream().filter(event -> event.seq() > checkpoint).toList();
+        for (TaskEvent event : recovered) {
+            lastSeq = Math.max(lastSeq, event.seq());
+            unapplied.add(event.seq());
+        }
+        queue.addAll(recovered);
+        this.durableSeq = lastSeq;
+        this.capacity = new Semaphore(properties.getMaxPending() - recovered.size(), true);
+        segments.add(JournalSegment.create(directory, lastSeq + 1, segmentSize));
+        deleteAppliedSegments();
+        if (fsync == FsyncPolicy.INTERVAL) {
+            this.flusher = Thread.ofPlatform().name("journal-flusher").daemon().start(this::flushPeriodically);
+        } else {
+            this.flusher = null;
+        }
+        log.info("Task journal opened in {}, {} events to replay after checkpoint {}",
+                directory, recovered.size(), checkpoint);
+    }
+
+    /**
+     * @return события, записанные до запуска и не перенесенные в БД, в порядке номеров
+     */
+    public List<TaskEvent> recovered() {
+        return recovered;
+    }
+
+    /**
+     * Записывает событие и ставит его в очередь переноса в БД. Если не перенесенных событий больше
+     * app.journal.max-pending, ждет, пока перенос их разгрузит.
+     * @param event событие без номера
+     * @return событие с присвоенным номером
+     */
+    public TaskEvent append(TaskEvent event) {
+        if (closed) {
+            throw new IllegalStateException("Task journal is closed");
+        }
+        capacity.acquireUninterruptibly();
+        TaskEvent written;
+        appendLock.lock();
+        try {
+            written = event.withSeq(lastSeq + 1);
+            JournalSegment segment = segments.getLast();
+            if (!segment.append(written)) {
+                segment.force();
+                segment = JournalSegment.create(directory, written.seq(), segmentSize);
+                segments.add(segment);
+                if (!segment.append(written)) {
+                    throw new IllegalStateException("Journal event %d exceeds the segment size".formatted(written.seq()));
+                }
+            }
+            lastSeq = written.seq();
+            unapplied.add(written.seq());
+        } catch (IOException e) {
+            capacity.release();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            capacity.release();
+            throw e;
+        } finally {
+            appendLock.unlock();
+        }
+        switch (fsync) {
+            case ALWAYS -> force(written.seq());
+            case INTERVAL -> awaitForced(written.seq());
+            case NONE -> { }
+        }
+        queue.add(written);
+        return written;
+    }
+
+    /**
+     * Забирает из очереди пакет событий: ждет первое событие не дольше delay, затем до delay
+     * дополняет пакет, пока в нем меньше maxEvents событий
+     * @return события в порядке постановки в очередь; пусто - за время ожидания событий не было
+     */
+    public List<TaskEvent> poll(int maxEvents, Duration delay) throws InterruptedException {
+        TaskEvent first = queue.poll(delay.toNanos(), TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return List.of();
+        }
+        List<TaskEvent> events = new ArrayList<>();
+        events.add(first);
+        long deadline = System.nanoTime() + delay.toNanos();
+        while (events.size() < maxEvents) {
+            queue.drainTo(events, maxEvents - events.size());
+            long remaining = deadline - System.nanoTime();
+            if (events.size() == maxEvents || remaining <= 0) {
+                break;
+            }
+            TaskEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            events.add(next);
+        }
+        return events;
+    }
+
+    /**
+     * @return есть события, ожидающие переноса в БД
+     */
+    public boolean hasQueued() {
+        return !queue.isEmpty();
+    }
+
+    /**
+     * Отмечает события перенесенными в БД и продвигает контрольную точку
+     */
+    public void markApplied(Collection<TaskEvent> events) {
+        events.forEach(event -> unapplied.remove(event.seq()));
+        capacity.release(events.size());
+        appendLock.lock();
+        try {
+            long applied = unapplied.isEmpty() ? lastSeq : unapplied.first() - 1;
+            if (applied > checkpoint) {
+                writeCheckpoint(applied);
+                checkpoint = applied;
+                deleteAppliedSegments();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to advance the journal checkpoint", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * @return число записанных, но не перенесенных в БД событий
+     */
+    public int pending() {
+        return unapplied.size();
+    }
+
+    /**
+     * Сбрасывает на диск текущий сегмент, если событие с указанным номером еще не сброшено. Поток, дождавшийся
+     * блокировки, сбрасывает все записанное к этому моменту, поэтому ожидавшие вместе с ним потоки не сбрасывают
+     * сегмент повторно.
+     */
+    private void force(long seq) {
+        if (durableSeq >= seq) {
+            return;
+        }
+        forceLock.lock();
+        try {
+            if (durableSeq >= seq) {
+                return;
+            }
+            long target;
+            JournalSegment segment;
+            appendLock.lock();
+            try {
+                target = lastSeq;
+                segment = segments.getLast();
+            } finally {
+                appendLock.unlock();
+            }
+            segment.force();
+            durableSeq = target;
+            forced.signalAll();
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    private void awaitForced(long seq) {
+        forceLock.lock();
+        try {
+            while (durableSeq < seq && !closed) {
+                forced.awaitUninterruptibly();
+            }
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    private void flushPeriodically() {
+        while (!closed) {
+            try {
+                Thread.sleep(fsyncInterval);
+                force(lastAppended());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Journal flush failed", e);
+            }
+        }
+    }
+
+    private long lastAppended() {
+        appendLock.lock();
+        try {
+            return lastSeq;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Удаляет сегменты, все события которых не позже контрольной точки; текущий сегмент не удаляется
+     */
+    private void deleteAppliedSegments() {
+        while (segments.size() > 1 && segments.getFirst().getLastSeq() <= checkpoint) {
+            JournalSegment segment = segments.removeFirst();
+            try {
+                segment.delete();
+                log.debug("Journal segment {} deleted", segment.getPath());
+            } catch (IOException e) {
+                log.warn("Failed to delete journal segment {}", segment.getPath(), e);
+            }
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path path = directory.resolve(CHECKPOINT_FILE);
+        return Files.exists(path) ? ByteBuffer.wrap(Files.readAllBytes(path)).getLong() : 0;
+    }
+
+    /**
+     * Записывает контрольную точку во временный файл и атомарно заменяет им прежний
+     */
+    private void writeCheckpoint(long seq) throws IOException {
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.write(temp, ByteBuffer.allocate(Long.BYTES).putLong(seq).array(),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        closed = true;
+        if (flusher != null) {
+            flusher.interrupt();
+        }
+        appendLock.lock();
+        try {
+            for (JournalSegment segment : segments) {
+                segment.force();
+                segment.close();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+        forceLock.lock();
+        try {
+            forced.signalAll();
+        } finally {
+            forceLock.unlock();
+        }
+        log.info("Task journal closed, {} events left to replay", unapplied.size());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("app.journal.pending", this, TaskJournal::pending)
+                .description("Journal events not yet applied to the database")
+                .register(registry);
+    }
+}
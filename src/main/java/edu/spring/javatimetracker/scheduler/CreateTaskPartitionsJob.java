@@ -0,0 +1,26 @@
+package edu.spring.javatimetracker.scheduler;
+
+import edu.spring.javatimetracker.db.partition.TaskPartitionManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(prefix = "app.partitioning", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class CreateTaskPartitionsJob {
+
+    private final TaskPartitionManager partitionManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 30 0 * * *", zone = "#{ appProperties.getTimeZone().toZoneId() }")
+    public void createTaskPartitions() {
+        int created = partitionManager.createPartitions();
+        log.info("Task partitions are up to date, {} created", created);
+    }
+}
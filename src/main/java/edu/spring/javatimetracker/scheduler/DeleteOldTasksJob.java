@@ -1,21 +1,57 @@
 package edu.spring.javatimetracker.scheduler;
 
 import edu.spring.javatimetracker.configuration.AppProperties;
+import edu.spring.javatimetracker.db.partition.TaskPartitionManager;
+import edu.spring.javatimetracker.service.ReportCache;
 import edu.spring.javatimetracker.service.TaskService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import java.util.List;
+
 @Component
 @RequiredArgsConstructor
+@Slf4j
 public class DeleteOldTasksJob {
 
     private final TaskService taskService;
 
     private final AppProperties appProperties;
 
+    private final Clock clock;
+
+    private final ObjectProvider<TaskPartitionManager> partitionManager;
+
+    private final ReportCache reportCache;
+
+    private final JobMetrics jobMetrics;
+
+    /**
+     * Удаляет задачи, завершенные раньше чем {@code app.task-ttl} назад, короткими транзакциями
+     * с паузой {@code app.jobs.pause} между порциями. Если таблица задач секционирована, сначала
+     * удаляются устаревшие секции целиком, а построчно удаляется только остаток.
+     * @return итог выполнения
+     */
     @Scheduled(cron = "0 0 0 * * *", zone = "#{ appProperties.getTimeZone().toZoneId() }")
-    public void deleteOldTasks() {
-        taskService.deleteOldTasks(appProperties.getTaskTtl());
+    public JobReport deleteOldTasks() {
+        OffsetDateTime threshold = OffsetDateTime.now(clock).minus(appProperties.getTaskTtl());
+        partitionManager.ifAvailable(manager -> {
+            List<String> dropped = manager.dropExpiredPartitions(threshold);
+            if (!dropped.isEmpty()) {
+                reportCache.invalidateAll();
+            }
+            log.info("Dropped {} expired task partitions", dropped.size());
+        });
+        AppProperties.Jobs jobs = appProperties.getJobs();
+        JobReport report = JobReport.runInChunks(
+                () -> taskService.deleteOldTasks(threshold, jobs.getChunkSize()), jobs.getPause());
+        log.info("Deleted {} tasks finished before {} in {} chunks, took {} ms",
+                report.rows(), threshold, report.chunks(), report.elapsed().toMillis());
+        return jobMetrics.record("delete-old-tasks", report);
     }
 }
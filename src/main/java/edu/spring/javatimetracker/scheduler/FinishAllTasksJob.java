@@ -1,18 +1,35 @@
 package edu.spring.javatimetracker.scheduler;
 
+import edu.spring.javatimetracker.configuration.AppProperties;
 import edu.spring.javatimetracker.service.TaskService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 @Component
 @RequiredArgsConstructor
+@Slf4j
 public class FinishAllTasksJob {
 
     private final TaskService taskService;
 
+    private final AppProperties appProperties;
+
+    private final JobMetrics jobMetrics;
+
+    /**
+     * Завершает все запущенные задачи порциями; каждая порция - один UPDATE в отдельной транзакции.
+     * @return итог выполнения
+     */
     @Scheduled(cron = "0 59 23 * * *", zone = "#{ appProperties.getTimeZone().toZoneId() }")
-    public void finishAllTasks() {
-        taskService.finishAllTasks();
+    public JobReport finishAllTasks() {
+        int chunkSize = appProperties.getJobs().getChunkSize();
+        JobReport report = JobReport.runInChunks(() -> taskService.finishRunningTasks(chunkSize), Duration.ZERO);
+        log.info("Finished {} running tasks in {} chunks, took {} ms",
+                report.rows(), report.chunks(), report.elapsed().toMillis());
+        return jobMetrics.record("finish-all-tasks", report);
     }
 }
@@ -0,0 +1,41 @@
+package edu.spring.javatimetracker.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Метрики задач планировщика с тегом job: длительность запуска (app.job.duration),
+ * число обработанных строк (app.job.rows) и порций (app.job.chunks)
+ */
+@Component
+@RequiredArgsConstructor
+public class JobMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Учитывает итог запуска задачи
+     * @param job имя задачи
+     * @param report итог выполнения
+     * @return тот же итог
+     */
+    public JobReport record(String job, JobReport report) {
+        Timer.builder("app.job.duration")
+                .tag("job", job)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(report.elapsed());
+        Counter.builder("app.job.rows")
+                .tag("job", job)
+                .register(meterRegistry)
+                .increment(report.rows());
+        Counter.builder("app.job.chunks")
+                .tag("job", job)
+                .register(meterRegistry)
+                .increment(report.chunks());
+        return report;
+    }
+}
@@ -0,0 +1,44 @@
+package edu.spring.javatimetracker.scheduler;
+
+import java.time.Duration;
+import java.util.function.IntSupplier;
+
+/**
+ * Итог выполнения задачи планировщика
+ * @param rows число обработанных строк
+ * @param chunks число выполненных порций (транзакций)
+ * @param elapsed время выполнения
+ */
+public record JobReport(long rows, int chunks, Duration elapsed) {
+
+    /**
+     * Выполняет порции одну за другой, пока очередная порция не обработает 0 строк.
+     * @param chunk порция; возвращает число обработанных строк
+     * @param pause пауза между порциями
+     * @return итог выполнения
+     */
+    static JobReport runInChunks(IntSupplier chunk, Duration pause) {
+        long start = System.nanoTime();
+        long rows = 0;
+        int chunks = 0;
+        int processed;
+        while ((processed = chunk.getAsInt()) > 0) {
+            rows += processed;
+            chunks++;
+            if (!pause.isZero() && !sleep(pause)) {
+                break;
+            }
+        }
+        return new JobReport(rows, chunks, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private static boolean sleep(Duration pause) {
+        try {
+            Thread.sleep(pause);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
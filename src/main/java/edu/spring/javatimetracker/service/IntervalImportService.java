@@ -0,0 +1,79 @@
+package edu.spring.javatimetracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.spring.javatimetracker.configuration.AppProperties;
+import edu.spring.javatimetracker.service.importer.ImportLine;
+import edu.spring.javatimetracker.service.importer.ImportReport;
+import edu.spring.javatimetracker.service.importer.IntervalReader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Импорт завершенных интервалов из CSV/NDJSON. Файл читается потоком и загружается порциями
+ * по {@code app.jobs.chunk-size} строк, каждая порция - в отдельной транзакции (см. TaskService#importIntervals).
+ * Уже загруженные порции при ошибке не откатываются.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IntervalImportService {
+
+    /**
+     * Максимальное число причин отказа в отчете импорта
+     */
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    private final TaskService taskService;
+
+    private final AppProperties appProperties;
+
+    private final ObjectMapper objectMapper;
+
+    public ImportReport importIntervals(InputStream input, IntervalReader.Format format) {
+        long startedAt = System.nanoTime();
+        int chunkSize = appProperties.getJobs().getChunkSize();
+        IntervalReader reader = new IntervalReader(
+                new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), format, objectMapper);
+        List<ImportLine> chunk = new ArrayList<>(chunkSize);
+        List<String> errors = new ArrayList<>();
+        long imported = 0;
+        long rejected = 0;
+        while (reader.hasNext()) {
+            ImportLine line = reader.next();
+            if (line.isRejected()) {
+                rejected++;
+                addError(errors, "line %d: %s".formatted(line.number(), line.error()));
+            } else {
+                chunk.add(line);
+            }
+            if (chunk.size() == chunkSize || !reader.hasNext()) {
+                if (!chunk.isEmpty()) {
+                    List<String> chunkErrors = taskService.importIntervals(chunk);
+                    imported += chunk.size() - chunkErrors.size();
+                    rejected += chunkErrors.size();
+                    chunkErrors.forEach(error -> addError(errors, error));
+                    chunk.clear();
+                }
+                log.info("Import progress: {} intervals imported, {} rejected", imported, rejected);
+            }
+        }
+        ImportReport report = new ImportReport(imported, rejected, errors, Duration.ofNanos(System.nanoTime() - startedAt));
+        log.info("Imported {} intervals, rejected {}, took {} ms", imported, rejected, report.elapsed().toMillis());
+        return report;
+    }
+
+    private static void addError(List<String> errors, String error) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(error);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package edu.spring.javatimetracker.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import edu.spring.javatimetracker.configuration.AppProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Кэш результатов отчетов по пользователю и периоду.
+ * <p>
+ * Ключ содержит номер поколения данных пользователя: изменение задач пользователя увеличивает номер
+ * (см. {@link #invalidate}), после чего старые записи больше не читаются и вытесняются по размеру или времени.
+ * Отчеты за периоды, закончившиеся до сегодняшнего дня, хранятся дольше отчетов, включающих сегодняшний день.
+ * Размер кэша ограничен суммарным числом строк отчетов (app.reports.maximum-rows).
+ * <p>
+ * Загрузчики выполняются вне транзакции вызывающего сервиса, поэтому читают основную БД: отчет, построенный
+ * по отстающей реплике (см. ReplicaRoutingDataSource), закрепился бы в кэше под новым поколением.
+ */
+@Component
+public class ReportCache implements MeterBinder {
+
+    public static final String CACHE_NAME = "reports";
+
+    public enum Kind { TASKS, INTERVALS, WORK_TIME, EFFECTIVE_WORK_TIME }
+
+    private record Key(UUID userId, long generation, Kind kind, LocalDate from, LocalDate to) {
+    }
+
+    private final Cache<Key, Object> cache;
+
+    private final Map<UUID, Long> generations = new ConcurrentHashMap<>();
+
+    private final AtomicLong epoch = new AtomicLong();
+
+    private final Clock clock;
+
+    private final TransactionTemplate loadTransaction;
+
+    public ReportCache(AppProperties appProperties, Clock clock, PlatformTransactionManager transactionManager) {
+        this.clock = clock;
+        this.loadTransaction = new TransactionTemplate(transactionManager);
+        this.loadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+        AppProperties.Reports reports = appProperties.getReports();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(reports.getMaximumRows())
+                .weigher((Key key, Object value) -> value instanceof Collection<?> rows ? rows.size() + 1 : 1)
+                .expireAfter(new Expiry<Key, Object>() {
+                    @Override
+                    public long expireAfterCreate(Key key, Object value, long currentTime) {
+                        return (isHistorical(key) ? reports.getHistoricalTtl() : reports.getLiveTtl()).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, Object value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, Object value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Возвращает отчет из кэша, при промахе строя его загрузчиком
+     * @param userId идентификатор пользователя
+     * @param kind вид отчета
+     * @param from первый день периода; null - без ограничения
+     * @param to последний день периода; null - без ограничения
+     * @param loader построение отчета
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(UUID userId, Kind kind, LocalDate from, LocalDate to, Supplier<T> loader) {
+        Key key = new Key(userId, generations.getOrDefault(userId, 0L), kind, from, to);
+        return (T) cache.get(key, k -> loadTransaction.execute(status -> loader.get()));
+    }
+
+    /**
+     * Возвращает отчеты нескольких пользователей за один период; отчеты, которых нет в кэше,
+     * строятся одним вызовом загрузчика. Записи общие с {@link #get}.
+     * @param userIds идентификаторы пользователей
+     * @param loader построение отчетов пользователей-промахов; должен вернуть отчет для каждого из них
+     * @return отчеты по идентификатору пользователя
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Map<UUID, T> getAll(Collection<UUID> userIds, Kind kind, LocalDate from, LocalDate to,
+                                   Function<Set<UUID>, Map<UUID, T>> loader) {
+        List<Key> keys = userIds.stream()
+                .map(userId -> new Key(userId, generations.getOrDefault(userId, 0L), kind, from, to))
+                .toList();
+        Map<Key, Object> cached = cache.getAll(keys, missing -> {
+            Map<UUID, Key> missingKeys = new HashMap<>();
+            missing.forEach(key -> missingKeys.put(key.userId(), key));
+            Map<Key, Object> loaded = new HashMap<>();
+            loadTransaction.execute(status -> loader.apply(missingKeys.keySet())).forEach((userId, report) -> loaded.put(missingKeys.get(userId), report));
+            return loaded;
+        });
+        Map<UUID, T> reports = new HashMap<>();
+        cached.forEach((key, report) -> reports.put(key.userId(), (T) report));
+        return reports;
+    }
+
+    /**
+     * Делает недействительными отчеты пользователя. Поколение увеличивается сразу и повторно после
+     * завершения транзакции, чтобы отчет, построенный параллельно по незафиксированным данным, не был прочитан.
+     * @param userId идентификатор пользователя
+     * @return версия данных пользователя после завершения транзакции, если их не изменит никто другой
+     */
+    public long invalidate(UUID userId) {
+        if (userId == null) {
+            return 0;
+        }
+        long generation = generations.merge(userId, 1L, Long::sum);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generations.merge(userId, 1L, Long::sum);
+                }
+            });
+            generation++;
+        }
+        return epoch.get() + generation;
+    }
+
+    /**
+     * Делает недействительными отчеты всех пользователей; используется при удалении секций таблицы задач
+     */
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Возвращает номер версии данных пользователя: он растет при каждом изменении задач пользователя и при
+     * сбросе всего кэша. По нему другие хранилища отчетов проверяют, что их данные не устарели (см. IntervalStore)
+     */
+    public long generation(UUID userId) {
+        return epoch.get() + generations.getOrDefault(userId, 0L);
+    }
+
+    private boolean isHistorical(Key key) {
+        return key.to() != null && key.to().isBefore(LocalDate.now(clock));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+}
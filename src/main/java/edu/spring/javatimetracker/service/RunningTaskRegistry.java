@@ -0,0 +1,183 @@
+package edu.spring.javatimetracker.service;
+
+import edu.spring.javatimetracker.configuration.AppProperties;
+import edu.spring.javatimetracker.db.projection.RunningTask;
+import edu.spring.javatimetracker.db.repository.TaskJpaRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Реестр запущенных задач в памяти процесса, сгруппированный по пользователям. Позволяет узнать текущие
+ * задачи пользователя и найти запущенные задачи без просмотра таблицы задач.
+ * <p>
+ * Изменения применяются после фиксации транзакции, поэтому отмененные операции в реестр не попадают.
+ * Реестр строится по БД при запуске приложения (до приема запросов); задачи, запущенные другими
+ * экземплярами приложения или в обход TaskService, в нем не видны.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RunningTaskRegistry implements SmartInitializingSingleton, MeterBinder {
+
+    private final TaskJpaRepository taskRepository;
+
+    private final AppProperties appProperties;
+
+    private final Map<UUID, Map<Long, RunningTask>> tasks = new ConcurrentHashMap<>();
+
+    private final Map<Long, UUID> assignees = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * Заполняет реестр запущенными задачами из БД порциями по app.jobs.chunk-size
+     * @return число запущенных задач
+     */
+    public long rebuild() {
+        tasks.clear();
+        assignees.clear();
+        int chunkSize = appProperties.getJobs().getChunkSize();
+        long total = 0;
+        long afterId = 0;
+        List<RunningTask> chunk;
+        do {
+            chunk = taskRepository.findRunningTasksAfter(afterId, PageRequest.ofSize(chunkSize));
+            chunk.forEach(this::put);
+            total += chunk.size();
+            if (!chunk.isEmpty()) {
+                afterId = chunk.get(chunk.size() - 1).id();
+            }
+        } while (chunk.size() == chunkSize);
+        log.info("Running task registry rebuilt with {} tasks", total);
+        return total;
+    }
+
+    /**
+     * @param assigneeId идентификатор пользователя
+     * @return запущенные задачи пользователя в порядке запуска
+     */
+    public List<RunningTask> find(UUID assigneeId) {
+        return tasks.getOrDefault(assigneeId, Map.of()).values().stream()
+                .sorted(Comparator.comparing(RunningTask::startedAt).thenComparing(RunningTask::id))
+                .toList();
+    }
+
+    /**
+     * @param taskId идентификатор задачи
+     * @return запущенная задача; пусто - задачи нет в реестре
+     */
+    public Optional<RunningTask> findTask(Long taskId) {
+        UUID assigneeId = assignees.get(taskId);
+        return assigneeId == null ? Optional.empty()
+                : Optional.ofNullable(tasks.getOrDefault(assigneeId, Map.of()).get(taskId));
+    }
+
+    /**
+     * @param limit максимальное число задач
+     * @return запущенные задачи любых пользователей
+     */
+    public List<RunningTask> snapshot(int limit) {
+        return tasks.values().stream()
+                .flatMap(userTasks -> userTasks.values().stream())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * @return число запущенных задач
+     */
+    public int size() {
+        return tasks.values().stream().mapToInt(Map::size).sum();
+    }
+
+    /**
+     * Добавляет задачу после фиксации текущей транзакции
+     */
+    public void add(RunningTask task) {
+        afterCommit(() -> put(task));
+    }
+
+    /**
+     * Удаляет задачу после фиксации текущей транзакции
+     * @param assigneeId идентификатор ответственного
+     * @param taskId идентификатор задачи
+     */
+    public void remove(UUID assigneeId, Long taskId) {
+        afterCommit(() -> delete(assigneeId, taskId));
+    }
+
+    /**
+     * Удаляет все задачи пользователя после фиксации текущей транзакции
+     */
+    public void removeUser(UUID assigneeId) {
+        afterCommit(() -> {
+            Map<Long, RunningTask> userTasks = tasks.remove(assigneeId);
+            if (userTasks != null) {
+                userTasks.keySet().forEach(assignees::remove);
+            }
+        });
+    }
+
+    /**
+     * Сразу удаляет задачи, которые по данным БД уже не запущены
+     */
+    public void forget(Collection<RunningTask> stale) {
+        stale.forEach(task -> delete(task.assigneeId(), task.id()));
+    }
+
+    private void put(RunningTask task) {
+        tasks.compute(task.assigneeId(), (id, userTasks) -> {
+            Map<Long, RunningTask> result = userTasks != null ? userTasks : new ConcurrentHashMap<>();
+            result.put(task.id(), task);
+            return result;
+        });
+        assignees.put(task.id(), task.assigneeId());
+    }
+
+    private void delete(UUID assigneeId, Long taskId) {
+        tasks.computeIfPresent(assigneeId, (id, userTasks) -> {
+            userTasks.remove(taskId);
+            return userTasks.isEmpty() ? null : userTasks;
+        });
+        assignees.remove(taskId, assigneeId);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("app.running.tasks", this, RunningTaskRegistry::size)
+                .description("Running tasks in the registry")
+                .register(registry);
+    }
+}
@@ -1,67 +1,226 @@
 package edu.spring.javatimetracker.service;
 
+import edu.spring.javatimetracker.configuration.AppProperties;
+import edu.spring.javatimetracker.db.bulk.TaskBulkLoader;
+import edu.spring.javatimetracker.db.bulk.TaskIdAllocator;
+import edu.spring.javatimetracker.db.bulk.TaskRow;
+import edu.spring.javatimetracker.db.partition.TaskPartitionManager;
+import edu.spring.javatimetracker.db.projection.RunningTask;
+import edu.spring.javatimetracker.db.projection.TaskKey;
+import edu.spring.javatimetracker.db.projection.TaskTimes;
+import edu.spring.javatimetracker.db.projection.TaskView;
+import edu.spring.javatimetracker.db.projection.UserIdentity;
+import edu.spring.javatimetracker.db.projection.WorkBucket;
+import edu.spring.javatimetracker.db.projection.WorkTimeTotals;
+import edu.spring.javatimetracker.db.report.EffectiveWorkTimeQuery;
+import edu.spring.javatimetracker.db.report.Granularity;
+import edu.spring.javatimetracker.db.report.WorkHistogramQuery;
 import edu.spring.javatimetracker.db.repository.TaskJpaRepository;
 import edu.spring.javatimetracker.db.repository.UserJpaRepository;
 import edu.spring.javatimetracker.domain.Task;
 import edu.spring.javatimetracker.domain.User;
+import edu.spring.javatimetracker.journal.TaskEvent;
+import edu.spring.javatimetracker.service.importer.ImportLine;
+import edu.spring.javatimetracker.service.importer.ImportedInterval;
+import edu.spring.javatimetracker.service.intervals.IntervalStore;
 import edu.spring.javatimetracker.util.exception.NotFoundException;
 import edu.spring.javatimetracker.util.exception.ResourceExistsException;
+import edu.spring.javatimetracker.util.pagination.KeysetCursor;
+import edu.spring.javatimetracker.util.pagination.KeysetPage;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.*;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed(value = TaskService.METRIC_NAME, histogram = true)
 public class TaskService {
 
+    /**
+     * Таймер методов сервисов; теги class и method добавляет TimedAspect
+     */
+    public static final String METRIC_NAME = "app.service";
+
     private final TaskJpaRepository taskRepository;
 
     private final UserJpaRepository userRepository;
 
+    private final WorkTimeRollupService rollupService;
+
+    private final UserIdCache userIdCache;
+
+    private final ReportCache reportCache;
+
+    private final RunningTaskRegistry runningTasks;
+
+    private final AppProperties appProperties;
+
+    private final TaskIdAllocator taskIdAllocator;
+
+    private final TaskBulkLoader taskBulkLoader;
+
+    private final WorkHistogramQuery workHistogramQuery;
+
+    private final EffectiveWorkTimeQuery effectiveWorkTimeQuery;
+
+    /**
+     * Хранилище интервалов в памяти, если оно включено (app.interval-store.enabled)
+     */
+    private final ObjectProvider<IntervalStore> intervalStore;
+
+    /**
+     * Управление секциями таблицы задач, если она секционирована (app.partitioning.enabled)
+     */
+    private final ObjectProvider<TaskPartitionManager> partitionManager;
+
     private final Clock clock;
 
     public static final OffsetDateTime LOWER_TIME_BOUNDARY = OffsetDateTime.of(1900, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
     
     public static final OffsetDateTime UPPER_TIME_BOUNDARY = OffsetDateTime.of(2100, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
 
+    /**
+     * Длительность в наносекундах больше любой задачи; ключ сортировки перед первой страницей задач
+     */
+    private static final long FIRST_PAGE_DURATION = Long.MAX_VALUE;
+
     private static final String TASK_NOT_FOUND = "Task with id '%d' not found";
 
     private static final String USER_NOT_FOUND = "User '%s' not found";
 
+    private static final String TASK_EXISTS = "Task '%s' already exists";
+
+    private static final int MAX_DESCRIPTION_LENGTH = 255;
+
     /**
      * Создает задачу для указанного пользователя; запускает таймер для задачи.
-     * Задача сохраняется автоматически благодаря каскадированию у объекта User, а также тому,
-     * что метод выполняется в рамках транзакции.
+     * Пользователь не загружается: ответственный задается ссылкой по идентификатору из UserIdCache.
+     * Занятость описания проверяет ограничение {@value Task#DESCRIPTION_CONSTRAINT}, поэтому создание
+     * стоит одного INSERT; при секционированной таблице ограничения нет и описание проверяется запросом
+     * под блокировкой пользователя ({@link TaskPartitionManager#lockAssignees}) до конца транзакции.
      * @param username имя пользователя
      * @param description описание задачи
      * @return созданная задача
-     * @throws ResourceExistsException задача с заданным описанием уже существует
+     * @throws ResourceExistsException у пользователя уже есть задача с заданным описанием
      * @throws NotFoundException пользователь не найден
      */
     @Transactional
     public Task createTask(String username, String description) throws ResourceExistsException, NotFoundException {
-        taskRepository.findByDescription(description).ifPresent(task -> {
-            throw new ResourceExistsException("Task '%s' already exists".formatted(description));
-        });
-        User user = userRepository.findByUsername(username).orElseThrow(() ->
+        UUID userId = userIdCache.find(username).orElseThrow(() ->
                 new NotFoundException(USER_NOT_FOUND.formatted(username)));
-        Task task = new Task(description);
-        user.addTask(task);
+        if (appProperties.getPartitioning().isEnabled()) {
+            lockAssignees(List.of(userId));
+            if (taskRepository.existsByAssigneeIdAndDescription(userId, description)) {
+                throw new ResourceExistsException(TASK_EXISTS.formatted(description));
+            }
+        }
+        Task task = new Task(description, userRepository.getReferenceById(userId));
         task.start(clock);
+        try {
+            taskRepository.saveAndFlush(task);
+        } catch (DataIntegrityViolationException e) {
+            throw translateDuplicate(e, TASK_EXISTS.formatted(description));
+        }
+        runningTasks.add(new RunningTask(task.getId(), userId, task.getDescription(), task.getStartedAt()));
+        reportCache.invalidate(userId);
         log.info("User '{}' create a task '{}' with id '{}'", username, task.getDescription(), task.getId());
         return task;
     }
 
+    /**
+     * Создает и запускает несколько задач пользователя в одной транзакции. Занятость описаний проверяется
+     * одним запросом, а INSERT выполняются пакетами (hibernate.jdbc.batch_size); задача, созданная
+     * параллельно после проверки, отклоняется ограничением {@value Task#DESCRIPTION_CONSTRAINT}, а при
+     * секционированной таблице не создается благодаря блокировке пользователя.
+     * @param username имя пользователя
+     * @param descriptions описания задач
+     * @return созданные задачи в порядке описаний
+     * @throws ResourceExistsException описания повторяются или у пользователя уже есть задачи с такими описаниями
+     * @throws NotFoundException пользователь не найден
+     */
+    @Transactional
+    public List<Task> createTasks(String username, List<String> descriptions) throws ResourceExistsException, NotFoundException {
+        Set<String> unique = new LinkedHashSet<>(descriptions);
+        if (unique.size() != descriptions.size()) {
+            throw new ResourceExistsException("Task descriptions in the batch are not unique");
+        }
+        UUID userId = userIdCache.find(username).orElseThrow(() ->
+                new NotFoundException(USER_NOT_FOUND.formatted(username)));
+        lockAssignees(List.of(userId));
+        List<String> existing = taskRepository.findExistingDescriptions(userId, unique);
+        if (!existing.isEmpty()) {
+            throw new ResourceExistsException("Tasks '%s' already exist".formatted(String.join("', '", existing)));
+        }
+        User user = userRepository.getReferenceById(userId);
+        List<Task> tasks = new ArrayList<>(descriptions.size());
+        for (String description : descriptions) {
+            Task task = new Task(description, user);
+            task.start(clock);
+            tasks.add(task);
+        }
+        try {
+            taskRepository.saveAllAndFlush(tasks);
+        } catch (DataIntegrityViolationException e) {
+            throw translateDuplicate(e, "Some of the tasks already exist");
+        }
+        tasks.forEach(task -> runningTasks.add(
+                new RunningTask(task.getId(), userId, task.getDescription(), task.getStartedAt())));
+        reportCache.invalidate(userId);
+        log.info("User '{}' create {} tasks", username, tasks.size());
+        return tasks;
+    }
+
+    /**
+     * Блокирует создание задач пользователей до конца транзакции, если таблица задач секционирована
+     * и занятость описаний проверяется только запросом
+     */
+    private void lockAssignees(Collection<UUID> userIds) {
+        if (appProperties.getPartitioning().isEnabled()) {
+            partitionManager.getObject().lockAssignees(userIds);
+        }
+    }
+
+    /**
+     * Заменяет нарушение ограничения уникальности описания на ResourceExistsException;
+     * другие нарушения целостности возвращаются без изменений
+     */
+    private static RuntimeException translateDuplicate(DataIntegrityViolationException e, String message) {
+        if (e.getCause() instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+                && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(Task.DESCRIPTION_CONSTRAINT)) {
+            return new ResourceExistsException(message);
+        }
+        return e;
+    }
+
     @Transactional
     public void finishTask(Long taskId) {
         Task task = taskRepository.findById(taskId).orElseThrow(() ->
                 new NotFoundException(TASK_NOT_FOUND.formatted(taskId)));
         task.finish(clock);
+        if (task.getAssignee() != null) {
+            UUID assigneeId = task.getAssignee().getId();
+            rollupService.add(List.of(new TaskTimes(task.getId(), assigneeId, task.getStartedAt(), task.getFinishedAt())));
+            runningTasks.remove(assigneeId, task.getId());
+            long generation = reportCache.generation(assigneeId);
+            long expectedGeneration = reportCache.invalidate(assigneeId);
+            intervalStore.ifAvailable(store -> store.finished(assigneeId, generation, expectedGeneration,
+                    new TaskView(task.getId(), task.getDescription(), task.getStartedAt(), task.getFinishedAt(),
+                            Duration.between(task.getStartedAt(), task.getFinishedAt()))));
+        }
         log.info("Task '{}' with id '{}' finished", task.getDescription(), task.getId());
     }
     
@@ -72,45 +231,406 @@ public class TaskService {
     private OffsetDateTime convertEndDate(LocalDate date) {
         return date != null ? date.atStartOfDay(clock.getZone()).plusDays(1).toOffsetDateTime() : UPPER_TIME_BOUNDARY;
     }
-    
-    public List<Task> findUserTasks(String username, LocalDate from, LocalDate to) {
+
+    /**
+     * Возвращает задачи пользователя за период из кэша отчетов. Транзакция только для чтения
+     * направляется на реплику, если она включена (app.replica)
+     */
+    @Transactional(readOnly = true)
+    public List<TaskView> findUserTasks(String username, LocalDate from, LocalDate to) {
         OffsetDateTime leftBound = convertStartDate(from);
         OffsetDateTime rightBound = convertEndDate(to);
-        return taskRepository.findUserTasks(username, leftBound, rightBound);
+        return userIdCache.find(username)
+                .map(userId -> reportCache.get(userId, ReportCache.Kind.TASKS, from, to,
+                        () -> taskRepository.findUserTasks(userId, leftBound, rightBound)))
+                .orElse(List.of());
     }
 
-    public List<Task> findUserIntervals(String username, LocalDate from, LocalDate to) {
+    /**
+     * Возвращает интервалы пользователя за период из хранилища интервалов, если оно включено, иначе из кэша отчетов
+     */
+    @Transactional(readOnly = true)
+    public List<TaskView> findUserIntervals(String username, LocalDate from, LocalDate to) {
         OffsetDateTime leftBound = convertStartDate(from);
         OffsetDateTime rightBound = convertEndDate(to);
-        return taskRepository.findUserIntervals(username, leftBound, rightBound);
+        IntervalStore store = intervalStore.getIfAvailable();
+        if (store != null) {
+            return userIdCache.find(username)
+                    .map(userId -> store.findIntervals(userId, leftBound, rightBound))
+                    .orElse(List.of());
+        }
+        return userIdCache.find(username)
+                .map(userId -> reportCache.get(userId, ReportCache.Kind.INTERVALS, from, to,
+                        () -> taskRepository.findUserIntervals(userId, leftBound, rightBound)))
+                .orElse(List.of());
+    }
+
+    /**
+     * Возвращает страницу задач пользователя за период, отсортированных по убыванию длительности.
+     * Курсор страницы - (длительность в наносекундах, id) последней задачи.
+     * @param after курсор предыдущей страницы; null - первая страница
+     * @param limit размер страницы
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<TaskView> findUserTasks(String username, LocalDate from, LocalDate to, KeysetCursor after, int limit) {
+        Optional<UUID> userId = userIdCache.find(username);
+        if (userId.isEmpty()) {
+            return new KeysetPage<>(List.of(), null);
+        }
+        long afterDuration = after != null ? after.key() : FIRST_PAGE_DURATION;
+        long afterId = after != null ? after.id() : Long.MIN_VALUE;
+        List<TaskView> tasks = taskRepository.findUserTasksAfter(userId.get(), convertStartDate(from), convertEndDate(to),
+                afterDuration, afterId, PageRequest.ofSize(limit));
+        return KeysetPage.of(tasks, limit, task -> new KeysetCursor(task.duration().toNanos(), task.id()));
     }
 
+    /**
+     * Возвращает страницу интервалов пользователя за период, отсортированных по началу выполнения.
+     * Курсор страницы - (начало в наносекундах от эпохи, id) последней задачи.
+     * @param after курсор предыдущей страницы; null - первая страница
+     * @param limit размер страницы
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<TaskView> findUserIntervals(String username, LocalDate from, LocalDate to, KeysetCursor after, int limit) {
+        Optional<UUID> userId = userIdCache.find(username);
+        if (userId.isEmpty()) {
+            return new KeysetPage<>(List.of(), null);
+        }
+        OffsetDateTime leftBound = convertStartDate(from);
+        OffsetDateTime afterStartedAt = after != null ? fromEpochNanos(after.key()) : leftBound;
+        long afterId = after != null ? after.id() : Long.MIN_VALUE;
+        List<TaskView> tasks = taskRepository.findUserIntervalsAfter(userId.get(), leftBound, convertEndDate(to),
+                afterStartedAt, afterId, PageRequest.ofSize(limit));
+        return KeysetPage.of(tasks, limit, task -> new KeysetCursor(toEpochNanos(task.startedAt()), task.id()));
+    }
+
+    private static long toEpochNanos(OffsetDateTime time) {
+        return TimeUnit.SECONDS.toNanos(time.toEpochSecond()) + time.getNano();
+    }
+
+    private static OffsetDateTime fromEpochNanos(long nanos) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochSecond(0, nanos), ZoneOffset.UTC);
+    }
+
+    /**
+     * Передает задачи пользователя за период, отсортированные по длительности, по одной по мере чтения из курсора БД.
+     * Проекции не попадают в контекст персистентности, поэтому память не растет с размером периода.
+     * @param consumer обработчик задачи; вызывается внутри транзакции
+     */
+    @Transactional(readOnly = true)
+    public void streamUserTasks(String username, LocalDate from, LocalDate to, Consumer<TaskView> consumer) {
+        Optional<UUID> userId = userIdCache.find(username);
+        if (userId.isEmpty()) {
+            return;
+        }
+        try (Stream<TaskView> tasks = taskRepository.streamUserTasks(userId.get(), convertStartDate(from), convertEndDate(to))) {
+            tasks.forEach(consumer);
+        }
+    }
+
+    /**
+     * Передает интервалы пользователя за период, отсортированные по началу, по одному по мере чтения из курсора БД.
+     * @param consumer обработчик задачи; вызывается внутри транзакции
+     * @see #streamUserTasks
+     */
+    @Transactional(readOnly = true)
+    public void streamUserIntervals(String username, LocalDate from, LocalDate to, Consumer<TaskView> consumer) {
+        Optional<UUID> userId = userIdCache.find(username);
+        if (userId.isEmpty()) {
+            return;
+        }
+        try (Stream<TaskView> tasks = taskRepository.streamUserIntervals(userId.get(), convertStartDate(from), convertEndDate(to))) {
+            tasks.forEach(consumer);
+        }
+    }
+
+    /**
+     * Возвращает суммарное рабочее время пользователя за период по агрегатам по дням
+     */
+    @Transactional(readOnly = true)
     public Duration findUserWorkTime(String username, LocalDate from, LocalDate to) {
+        LocalDate leftBound = from != null ? from : LOWER_TIME_BOUNDARY.toLocalDate();
+        LocalDate rightBound = to != null ? to.plusDays(1) : UPPER_TIME_BOUNDARY.toLocalDate();
+        return userIdCache.find(username)
+                .map(userId -> reportCache.get(userId, ReportCache.Kind.WORK_TIME, from, to,
+                        () -> rollupService.getUserTimeSum(userId, leftBound, rightBound)))
+                .orElse(Duration.ZERO);
+    }
+
+    /**
+     * Возвращает рабочее время пользователя за период вместе с эффективным временем, в котором время
+     * одновременно запущенных задач учтено один раз. Считается по интервалам задач за один проход
+     * (см. EffectiveWorkTimeQuery или IntervalStore), а не по агрегатам
+     */
+    @Transactional(readOnly = true)
+    public WorkTimeTotals findUserEffectiveWorkTime(String username, LocalDate from, LocalDate to) {
         OffsetDateTime leftBound = convertStartDate(from);
         OffsetDateTime rightBound = convertEndDate(to);
-        return Duration.ofNanos(taskRepository.getUserTimeSum(username, leftBound, rightBound));
+        IntervalStore store = intervalStore.getIfAvailable();
+        if (store != null) {
+            return userIdCache.find(username)
+                    .map(userId -> store.getWorkTimeTotals(userId, leftBound, rightBound))
+                    .orElse(new WorkTimeTotals(Duration.ZERO, Duration.ZERO));
+        }
+        return userIdCache.find(username)
+                .map(userId -> reportCache.get(userId, ReportCache.Kind.EFFECTIVE_WORK_TIME, from, to,
+                        () -> effectiveWorkTimeQuery.find(userId, leftBound, rightBound)))
+                .orElse(new WorkTimeTotals(Duration.ZERO, Duration.ZERO));
+    }
+
+    /**
+     * Возвращает суммарное рабочее время нескольких пользователей за период. Идентификаторы и отсутствующие
+     * в кэше отчеты читаются одним запросом каждый, поэтому число запросов к БД не зависит от числа пользователей.
+     * @param usernames имена пользователей
+     * @return время по имени в порядке usernames; для неизвестных пользователей - нулевое, как в
+     * {@link #findUserWorkTime}
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Duration> findUsersWorkTime(Collection<String> usernames, LocalDate from, LocalDate to) {
+        LocalDate leftBound = from != null ? from : LOWER_TIME_BOUNDARY.toLocalDate();
+        LocalDate rightBound = to != null ? to.plusDays(1) : UPPER_TIME_BOUNDARY.toLocalDate();
+        Map<String, UUID> userIds = userIdCache.findAll(usernames);
+        Map<UUID, Duration> workTime = reportCache.getAll(Set.copyOf(userIds.values()), ReportCache.Kind.WORK_TIME,
+                from, to, missing -> rollupService.getUsersTimeSums(missing, leftBound, rightBound));
+        Map<String, Duration> result = new LinkedHashMap<>();
+        for (String username : usernames) {
+            UUID userId = userIds.get(username);
+            result.put(username, userId != null ? workTime.getOrDefault(userId, Duration.ZERO) : Duration.ZERO);
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает рабочее время пользователя за период, разбитое по дням, неделям или месяцам
+     * в часовом поясе приложения; суммы периодов вычисляются в БД
+     * @return непустые периоды в порядке начала
+     */
+    @Transactional(readOnly = true)
+    public List<WorkBucket> findUserWorkHistogram(String username, LocalDate from, LocalDate to, Granularity granularity) {
+        return userIdCache.find(username)
+                .map(userId -> workHistogramQuery.find(userId, convertStartDate(from), convertEndDate(to),
+                        granularity, clock.getZone()))
+                .orElse(List.of());
     }
 
     @Transactional
     public void clearUserTasks(String username) {
-        taskRepository.deleteUserTasks(username);
+        userIdCache.find(username).ifPresent(userId -> {
+            deleteUserTasks(userId);
+            runningTasks.removeUser(userId);
+        });
         log.info("User '{}' delete all his finished tasks", username);
     }
 
-    @Transactional
-    public void finishAllTasks() {
-        taskRepository.findAll().stream()
-                .filter(task -> !task.isFinished())
-                .forEach(task -> task.finish(clock));
-        log.info("All tasks finished");
+    private void deleteUserTasks(UUID userId) {
+        taskRepository.deleteUserTasks(userId);
+        rollupService.clearUser(userId);
+        reportCache.invalidate(userId);
     }
 
+    /**
+     * Возвращает запущенные задачи пользователя из реестра запущенных задач, без обращения к БД
+     * @param username имя пользователя
+     * @return задачи в порядке запуска; длительность - время с момента запуска
+     */
+    public List<TaskView> findActiveTasks(String username) {
+        OffsetDateTime now = OffsetDateTime.now(clock);
+        return userIdCache.find(username)
+                .map(runningTasks::find)
+                .orElse(List.of()).stream()
+                .map(task -> new TaskView(task.id(), task.description(), task.startedAt(), null,
+                        Duration.between(task.startedAt(), now)))
+                .toList();
+    }
+
+    /**
+     * Завершает очередную порцию запущенных задач пакетом UPDATE-запросов в отдельной транзакции
+     * и учитывает их время в агрегатах по дням. Задачи не загружаются в контекст персистентности.
+     * Кандидаты берутся из реестра запущенных задач и перепроверяются по первичному ключу; когда реестр
+     * пуст, оставшиеся задачи (например, запущенные другим экземпляром) ищутся по индексу на finished_at.
+     * @param chunkSize максимальное число задач в порции
+     * @return число завершенных задач; 0 - запущенных задач не осталось
+     */
     @Transactional
-    public void deleteOldTasks(Duration taskTtl) {
+    public int finishRunningTasks(int chunkSize) {
+        List<TaskTimes> tasks = List.of();
+        List<RunningTask> candidates;
+        while (tasks.isEmpty() && !(candidates = runningTasks.snapshot(chunkSize)).isEmpty()) {
+            tasks = taskRepository.findRunningTasks(candidates.stream().map(RunningTask::id).toList());
+            Set<Long> running = tasks.stream().map(TaskTimes::id).collect(Collectors.toSet());
+            runningTasks.forget(candidates.stream().filter(task -> !running.contains(task.id())).toList());
+        }
+        if (tasks.isEmpty()) {
+            tasks = taskRepository.findRunningTasks(PageRequest.ofSize(chunkSize));
+        }
+        if (tasks.isEmpty()) {
+            return 0;
+        }
         OffsetDateTime now = OffsetDateTime.now(clock);
-        taskRepository.findAll().stream()
-                .filter(task -> task.isFinished() && task.getFinishedAt().plus(taskTtl).isBefore(now))
-                .forEach(taskRepository::delete);
-        log.info("Deleted all tasks older than {}", taskTtl);
+        List<TaskTimes> finished = taskBulkLoader.finish(tasks.stream().map(task -> task.finishedAt(now)).toList());
+        rollupService.add(finished);
+        tasks.forEach(task -> runningTasks.remove(task.assigneeId(), task.id()));
+        invalidateReports(finished);
+        log.debug("Finished {} running tasks", finished.size());
+        return finished.size();
+    }
+
+    /**
+     * Сохраняет длительность очередной порции задач, завершенных до появления столбца duration_nanos,
+     * в отдельной транзакции (см. BackfillTaskDurationsCommand)
+     * @param chunkSize максимальное число задач в порции
+     * @return число обработанных задач; 0 - задач без длительности не осталось
+     */
+    @Transactional
+    public int backfillDurations(int chunkSize) {
+        List<TaskTimes> tasks = taskRepository.findTasksWithoutDuration(PageRequest.ofSize(chunkSize));
+        if (tasks.isEmpty()) {
+            return 0;
+        }
+        List<TaskTimes> updated = taskBulkLoader.storeDurations(tasks);
+        invalidateReports(updated);
+        log.debug("Stored durations of {} tasks", updated.size());
+        return tasks.size();
+    }
+
+    /**
+     * Удаляет очередную порцию задач, завершенных раньше указанного времени, в отдельной транзакции.
+     * Порция выбирается по индексу на finished_at и удаляется одним запросом.
+     * @param threshold граница времени завершения (не включительно)
+     * @param chunkSize максимальное число задач в порции
+     * @return число удаленных задач; 0 - устаревших задач не осталось
+     */
+    @Transactional
+    public int deleteOldTasks(OffsetDateTime threshold, int chunkSize) {
+        List<TaskTimes> tasks = taskRepository.findFinishedBefore(threshold, PageRequest.ofSize(chunkSize));
+        if (tasks.isEmpty()) {
+            return 0;
+        }
+        int deleted = taskRepository.deleteTasks(tasks.stream().map(TaskTimes::id).toList());
+        rollupService.subtract(tasks);
+        invalidateReports(tasks);
+        log.debug("Deleted {} tasks finished before {}", deleted, threshold);
+        return deleted;
+    }
+
+    private void invalidateReports(List<TaskTimes> tasks) {
+        tasks.stream().map(TaskTimes::assigneeId).distinct().forEach(reportCache::invalidate);
+    }
+
+    /**
+     * Переносит в БД пакет событий журнала отложенной записи в одной транзакции: запуски загружаются
+     * TaskBulkLoader, завершения - пакетным UPDATE со своим временем у каждой задачи, время завершенных
+     * задач учитывается в агрегатах по дням. Повторный перенос после перезапуска безопасен: уже сохраненные
+     * задачи не загружаются, а завершенные не завершаются повторно. Удаление задач пользователя применяется
+     * в порядке записи: события до него переносятся раньше и удаляются вместе с остальными задачами.
+     * Реестр запущенных задач не изменяется - его обновляет запись события в журнал.
+     * @param events события в порядке записи
+     * @return число задач, изменивших состояние
+     */
+    @Transactional
+    public int applyJournal(List<TaskEvent> events) {
+        int changed = 0;
+        int from = 0;
+        for (int i = 0; i < events.size(); i++) {
+            if (events.get(i).type() == TaskEvent.Type.CLEAR) {
+                changed += applyJournalEvents(events.subList(from, i));
+                deleteUserTasks(events.get(i).assigneeId());
+                from = i + 1;
+            }
+        }
+        return changed + applyJournalEvents(events.subList(from, events.size()));
+    }
+
+    /**
+     * Переносит запуски и завершения из части пакета без удалений задач
+     */
+    private int applyJournalEvents(List<TaskEvent> events) {
+        ZoneId zone = clock.getZone();
+        List<Long> startIds = events.stream()
+                .filter(event -> event.type() == TaskEvent.Type.START)
+                .map(TaskEvent::taskId)
+                .toList();
+        Set<Long> saved = startIds.isEmpty() ? new HashSet<>() : new HashSet<>(taskRepository.findExistingIds(startIds));
+        List<TaskRow> rows = events.stream()
+                .filter(event -> event.type() == TaskEvent.Type.START && saved.add(event.taskId()))
+                .map(event -> new TaskRow(event.taskId(), event.description(),
+                        OffsetDateTime.ofInstant(event.time(), zone), null, event.assigneeId()))
+                .toList();
+        taskBulkLoader.load(rows);
+        Map<Long, Instant> stops = new LinkedHashMap<>();
+        events.stream()
+                .filter(event -> event.type() == TaskEvent.Type.STOP)
+                .forEach(event -> stops.putIfAbsent(event.taskId(), event.time()));
+        List<TaskTimes> finished = stops.isEmpty() ? List.of() : taskBulkLoader.finish(
+                taskRepository.findRunningTasks(stops.keySet()).stream()
+                        .map(task -> task.finishedAt(OffsetDateTime.ofInstant(stops.get(task.id()), zone)))
+                        .toList());
+        rollupService.add(finished);
+        Stream.concat(rows.stream().map(TaskRow::assigneeId), finished.stream().map(TaskTimes::assigneeId))
+                .distinct()
+                .forEach(reportCache::invalidate);
+        log.debug("Applied {} journal events: {} tasks started, {} finished", events.size(), rows.size(), finished.size());
+        return rows.size() + finished.size();
+    }
+
+    /**
+     * Загружает порцию завершенных интервалов из импорта в отдельной транзакции, минуя контекст персистентности.
+     * Пользователи и занятые описания проверяются одним запросом на порцию, строки загружаются TaskBulkLoader,
+     * время учитывается в агрегатах по дням.
+     * @param lines разобранные строки файла
+     * @return причины отказа для отклоненных строк
+     */
+    @Transactional
+    public List<String> importIntervals(List<ImportLine> lines) {
+        Map<String, UUID> userIds = userRepository.findIdentities(lines.stream()
+                        .map(line -> line.interval().username()).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(UserIdentity::username, UserIdentity::id));
+        lockAssignees(userIds.values());
+        Set<TaskKey> taken = userIds.isEmpty() ? new HashSet<>() : new HashSet<>(taskRepository.findExistingKeys(
+                userIds.values(), lines.stream().map(line -> line.interval().description())
+                        .filter(Objects::nonNull).collect(Collectors.toSet())));
+        List<String> rejected = new ArrayList<>();
+        List<ImportLine> accepted = new ArrayList<>(lines.size());
+        for (ImportLine line : lines) {
+            String reason = validate(line.interval(), userIds, taken);
+            if (reason != null) {
+                rejected.add("line %d: %s".formatted(line.number(), reason));
+            } else {
+                taken.add(new TaskKey(userIds.get(line.interval().username()), line.interval().description()));
+                accepted.add(line);
+            }
+        }
+        long[] ids = taskIdAllocator.allocate(accepted.size());
+        List<TaskRow> rows = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            ImportedInterval interval = accepted.get(i).interval();
+            rows.add(new TaskRow(ids[i], interval.description(), interval.startedAt(), interval.finishedAt(),
+                    userIds.get(interval.username())));
+        }
+        taskBulkLoader.load(rows);
+        rollupService.add(rows.stream()
+                .map(row -> new TaskTimes(row.id(), row.assigneeId(), row.startedAt(), row.finishedAt()))
+                .toList());
+        rows.stream().map(TaskRow::assigneeId).distinct().forEach(reportCache::invalidate);
+        log.debug("Imported {} intervals, rejected {}", rows.size(), rejected.size());
+        return rejected;
+    }
+
+    private static String validate(ImportedInterval interval, Map<String, UUID> userIds, Set<TaskKey> taken) {
+        if (interval.description() == null || interval.description().isBlank()
+                || interval.description().length() > MAX_DESCRIPTION_LENGTH) {
+            return "description must be non-blank and at most %d characters".formatted(MAX_DESCRIPTION_LENGTH);
+        }
+        if (interval.startedAt() == null || interval.finishedAt() == null
+                || interval.finishedAt().isBefore(interval.startedAt())) {
+            return "startedAt and finishedAt are required and startedAt must not be after finishedAt";
+        }
+        if (!userIds.containsKey(interval.username())) {
+            return USER_NOT_FOUND.formatted(interval.username());
+        }
+        if (taken.contains(new TaskKey(userIds.get(interval.username()), interval.description()))) {
+            return TASK_EXISTS.formatted(interval.description());
+        }
+        return null;
     }
 }
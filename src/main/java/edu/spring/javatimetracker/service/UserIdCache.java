@@ -0,0 +1,98 @@
+package edu.spring.javatimetracker.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.spring.javatimetracker.configuration.AppProperties;
+import edu.spring.javatimetracker.db.projection.UserIdentity;
+import edu.spring.javatimetracker.db.repository.UserJpaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Кэш идентификаторов пользователей по имени. Запросы задач фильтруют по assignee_id, поэтому имя из адреса
+ * запроса разрешается в идентификатор один раз, без соединения с таблицей users в каждом запросе.
+ * <p>
+ * Отсутствующие пользователи не кэшируются. Запись удаляется при изменении и удалении пользователя
+ * (см. {@link #evict}); размер кэша и время жизни записей ограничены (app.user-ids).
+ * Статистика попаданий, промахов и вытеснений публикуется как метрики cache.* с тегом cache=user_ids.
+ */
+@Component
+@Slf4j
+public class UserIdCache implements MeterBinder {
+
+    public static final String CACHE_NAME = "user_ids";
+
+    private final UserJpaRepository userRepository;
+
+    private final Cache<String, UUID> cache;
+
+    public UserIdCache(UserJpaRepository userRepository, AppProperties appProperties) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(appProperties.getUserIds().getMaximumSize())
+                .expireAfterWrite(appProperties.getUserIds().getExpireAfterWrite())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Возвращает идентификатор пользователя, при промахе читая его из БД
+     * @param username имя пользователя
+     * @return идентификатор; пусто - пользователь не найден
+     */
+    public Optional<UUID> find(String username) {
+        return Optional.ofNullable(cache.get(username, key -> userRepository.findIdByUsername(key).orElse(null)));
+    }
+
+    /**
+     * Возвращает идентификаторы нескольких пользователей; промахи читаются из БД одним запросом
+     * @param usernames имена пользователей
+     * @return идентификаторы найденных пользователей по имени
+     */
+    public Map<String, UUID> findAll(Collection<String> usernames) {
+        return cache.getAll(usernames, missing -> userRepository.findIdentities(List.copyOf(missing)).stream()
+                .collect(Collectors.toMap(UserIdentity::username, UserIdentity::id)));
+    }
+
+    /**
+     * Удаляет запись сразу и повторно после завершения текущей транзакции: иначе параллельный запрос
+     * может успеть прочитать из БД еще не измененную строку и вернуть ее в кэш.
+     * @param username имя пользователя
+     */
+    public void evict(String username) {
+        cache.invalidate(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(username);
+                }
+            });
+        }
+        log.debug("User '{}' evicted from id cache", username);
+    }
+
+    /**
+     * Очищает кэш; нужен после изменения пользователей в обход UserService
+     */
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+}
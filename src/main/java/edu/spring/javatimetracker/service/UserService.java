@@ -4,6 +4,7 @@ import edu.spring.javatimetracker.db.repository.UserJpaRepository;
 import edu.spring.javatimetracker.domain.User;
 import edu.spring.javatimetracker.util.exception.NotFoundException;
 import edu.spring.javatimetracker.util.exception.ResourceExistsException;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -12,10 +13,19 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed(value = TaskService.METRIC_NAME, histogram = true)
 public class UserService {
 
     private final UserJpaRepository userRepository;
 
+    private final WorkTimeRollupService rollupService;
+
+    private final UserIdCache userIdCache;
+
+    private final ReportCache reportCache;
+
+    private final RunningTaskRegistry runningTasks;
+
     private static final String USER_NOT_FOUND = "User '%s' not found";
 
     @Transactional
@@ -34,6 +44,8 @@ public class UserService {
                 new NotFoundException(USER_NOT_FOUND.formatted(username)));
         user.setId(oldUser.getId());
         User result = userRepository.save(user);
+        userIdCache.evict(username);
+        userIdCache.evict(result.getUsername());
         log.info("User's '{}' info updated", result.getUsername());
         return result;
     }
@@ -42,7 +54,11 @@ public class UserService {
     public void deleteUser(String username) {
         User user = userRepository.findByUsername(username).orElseThrow(() ->
                 new NotFoundException(USER_NOT_FOUND.formatted(username)));
+        rollupService.clearUser(user.getId());
         userRepository.delete(user);
+        userIdCache.evict(username);
+        reportCache.invalidate(user.getId());
+        runningTasks.removeUser(user.getId());
         log.info("User '{}'", username);
     }
 }
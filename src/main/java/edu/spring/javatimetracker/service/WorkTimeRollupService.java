@@ -0,0 +1,130 @@
+package edu.spring.javatimetracker.service;
+
+import edu.spring.javatimetracker.db.bulk.WorkTimeRollupWriter;
+import edu.spring.javatimetracker.db.projection.TaskTimes;
+import edu.spring.javatimetracker.db.projection.UserTimeSum;
+import edu.spring.javatimetracker.db.repository.TaskJpaRepository;
+import edu.spring.javatimetracker.db.repository.WorkTimeRollupJpaRepository;
+import edu.spring.javatimetracker.domain.WorkTimeRollupId;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+/**
+ * Поддерживает агрегаты рабочего времени пользователей по дням (см. WorkTimeRollup).
+ * Методы изменения вызываются в транзакции, изменяющей задачи.
+ */
+@Service
+@RequiredArgsConstructor
+public class WorkTimeRollupService {
+
+    private final WorkTimeRollupJpaRepository rollupRepository;
+
+    private final WorkTimeRollupWriter rollupWriter;
+
+    private final TaskJpaRepository taskRepository;
+
+    private final Clock clock;
+
+    /**
+     * Прибавляет время завершенных задач к агрегатам
+     * @param tasks завершенные задачи
+     */
+    @Transactional
+    public void add(Collection<TaskTimes> tasks) {
+        rollupWriter.add(aggregate(tasks));
+    }
+
+    /**
+     * Вычитает время удаленных задач из агрегатов
+     * @param tasks удаленные задачи
+     */
+    @Transactional
+    public void subtract(Collection<TaskTimes> tasks) {
+        Map<WorkTimeRollupId, Long> rollups = aggregate(tasks);
+        if (rollups.isEmpty()) {
+            return;
+        }
+        rollups.replaceAll((id, nanos) -> -nanos);
+        rollupWriter.add(rollups);
+        rollupRepository.deleteEmpty(rollups.keySet().stream().map(WorkTimeRollupId::getAssigneeId).distinct().toList());
+    }
+
+    /**
+     * Удаляет агрегаты пользователя вместе со всеми его задачами
+     * @param assigneeId идентификатор пользователя
+     */
+    @Transactional
+    public void clearUser(UUID assigneeId) {
+        rollupRepository.deleteUserRollups(assigneeId);
+    }
+
+    /**
+     * Возвращает суммарное рабочее время пользователя по задачам, начатым не раньше дня from
+     * и завершенным раньше дня to
+     */
+    public Duration getUserTimeSum(UUID assigneeId, LocalDate from, LocalDate to) {
+        Long nanos = rollupRepository.getUserTimeSum(assigneeId, from, to);
+        return Duration.ofNanos(nanos != null ? nanos : 0);
+    }
+
+    /**
+     * Возвращает суммарное рабочее время нескольких пользователей за тот же период одним запросом
+     * @return время каждого из пользователей; нулевое - задач за период нет
+     */
+    public Map<UUID, Duration> getUsersTimeSums(Collection<UUID> assigneeIds, LocalDate from, LocalDate to) {
+        Map<UUID, Duration> sums = new HashMap<>();
+        assigneeIds.forEach(assigneeId -> sums.put(assigneeId, Duration.ZERO));
+        if (!assigneeIds.isEmpty()) {
+            for (UserTimeSum sum : rollupRepository.getUsersTimeSums(assigneeIds, from, to)) {
+                sums.put(sum.assigneeId(), Duration.ofNanos(sum.totalNanos()));
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Удаляет все агрегаты перед пересчетом (см. RebuildWorkTimeRollupsCommand)
+     */
+    @Transactional
+    public void clearAll() {
+        rollupRepository.deleteAllInBatch();
+    }
+
+    /**
+     * Учитывает в агрегатах очередную порцию завершенных задач в отдельной транзакции. Задачи читаются
+     * порциями по идентификатору, поэтому таблица задач целиком в память не загружается.
+     * @param afterId идентификатор последней задачи предыдущей порции
+     * @param chunkSize число задач в порции
+     * @return учтенные задачи; пустой список - задач не осталось
+     */
+    @Transactional
+    public List<TaskTimes> rebuildChunk(long afterId, int chunkSize) {
+        List<TaskTimes> tasks = taskRepository.findFinishedTasks(afterId, PageRequest.ofSize(chunkSize));
+        rollupWriter.add(aggregate(tasks));
+        return tasks;
+    }
+
+    private Map<WorkTimeRollupId, Long> aggregate(Collection<TaskTimes> tasks) {
+        Map<WorkTimeRollupId, Long> rollups = new HashMap<>();
+        for (TaskTimes task : tasks) {
+            if (task.assigneeId() == null || task.startedAt() == null || task.finishedAt() == null) {
+                continue;
+            }
+            WorkTimeRollupId id = new WorkTimeRollupId(task.assigneeId(), toDate(task.startedAt()), toDate(task.finishedAt()));
+            rollups.merge(id, Duration.between(task.startedAt(), task.finishedAt()).toNanos(), Long::sum);
+        }
+        return rollups;
+    }
+
+    private LocalDate toDate(OffsetDateTime time) {
+        return time.atZoneSameInstant(clock.getZone()).toLocalDate();
+    }
+}
@@ -0,0 +1,18 @@
+package edu.spring.javatimetracker.service.importer;
+
+/**
+ * Прочитанная строка импортируемого файла: интервал либо ошибка разбора
+ * @param number номер строки в файле, начиная с 1
+ * @param interval интервал; null - строка не разобрана
+ * @param error описание ошибки разбора; null - строка разобрана
+ */
+public record ImportLine(long number, ImportedInterval interval, String error) {
+
+    public static ImportLine rejected(long number, String error) {
+        return new ImportLine(number, null, error);
+    }
+
+    public boolean isRejected() {
+        return error != null;
+    }
+}
@@ -0,0 +1,14 @@
+package edu.spring.javatimetracker.service.importer;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Итог импорта интервалов
+ * @param imported число загруженных интервалов
+ * @param rejected число отклоненных строк
+ * @param errors причины отказа для первых отклоненных строк
+ * @param elapsed длительность импорта
+ */
+public record ImportReport(long imported, long rejected, List<String> errors, Duration elapsed) {
+}
@@ -0,0 +1,13 @@
+package edu.spring.javatimetracker.service.importer;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Завершенный интервал работы из импортируемого файла
+ * @param username имя пользователя
+ * @param description описание задачи
+ * @param startedAt время запуска
+ * @param finishedAt время завершения
+ */
+public record ImportedInterval(String username, String description, OffsetDateTime startedAt, OffsetDateTime finishedAt) {
+}
@@ -0,0 +1,136 @@
+package edu.spring.javatimetracker.service.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Построчно читает интервалы из CSV или NDJSON, не загружая файл в память.
+ * <p>
+ * CSV: первая строка - заголовок, столбцы username,description,startedAt,finishedAt; значения могут быть
+ * в двойных кавычках. NDJSON: по одному объекту с полями username, description, startedAt, finishedAt в строке.
+ * Время - в формате ISO-8601 со смещением. Пустые строки пропускаются.
+ */
+public class IntervalReader implements Iterator<ImportLine> {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final int CSV_COLUMNS = 4;
+
+    private final BufferedReader reader;
+
+    private final Format format;
+
+    private final ObjectMapper objectMapper;
+
+    private long lineNumber;
+
+    private ImportLine next;
+
+    public IntervalReader(BufferedReader reader, Format format, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.format = format;
+        this.objectMapper = objectMapper;
+        if (format == Format.CSV) {
+            readLine();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readNext();
+        }
+        return next != null;
+    }
+
+    @Override
+    public ImportLine next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ImportLine line = next;
+        next = null;
+        return line;
+    }
+
+    private ImportLine readNext() {
+        String line;
+        do {
+            line = readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+        try {
+            ImportedInterval interval = format == Format.CSV ? parseCsv(line) : parseJson(line);
+            return new ImportLine(lineNumber, interval, null);
+        } catch (IllegalArgumentException | DateTimeParseException | IOException e) {
+            return ImportLine.rejected(lineNumber, "malformed record: " + e.getMessage());
+        }
+    }
+
+    private String readLine() {
+        try {
+            String line = reader.readLine();
+            if (line != null) {
+                lineNumber++;
+            }
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ImportedInterval parseJson(String line) throws IOException {
+        return objectMapper.readValue(line, ImportedInterval.class);
+    }
+
+    private static ImportedInterval parseCsv(String line) {
+        List<String> values = splitCsv(line);
+        if (values.size() != CSV_COLUMNS) {
+            throw new IllegalArgumentException("expected %d columns, got %d".formatted(CSV_COLUMNS, values.size()));
+        }
+        return new ImportedInterval(values.get(0), values.get(1),
+                OffsetDateTime.parse(values.get(2).strip()), OffsetDateTime.parse(values.get(3).strip()));
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>(CSV_COLUMNS);
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quote");
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
@@ -0,0 +1,167 @@
+package edu.spring.javatimetracker.service.intervals;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.spring.javatimetracker.configuration.AppProperties;
+import edu.spring.javatimetracker.db.projection.TaskView;
+import edu.spring.javatimetracker.db.projection.WorkTimeTotals;
+import edu.spring.javatimetracker.db.repository.TaskJpaRepository;
+import edu.spring.javatimetracker.service.ReportCache;
+import edu.spring.javatimetracker.service.TaskService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.ToLongFunction;
+
+/**
+ * Хранит завершенные задачи активных пользователей в памяти в виде столбцов времени (см. {@link UserIntervals}),
+ * чтобы отчеты по интервалам не читали строки задач из БД. Включается app.interval-store.enabled.
+ * <p>
+ * Задачи пользователя загружаются из БД при первом отчете. Снимок помнит версию данных пользователя
+ * ({@link ReportCache#generation}) и перезагружается, если с тех пор задачи пользователя изменились;
+ * завершение задачи через {@link #finished} добавляет ее в снимок без перезагрузки. Снимок читается в
+ * транзакции репозитория вне транзакции сервиса, поэтому с основной БД: отстающая реплика
+ * (см. ReplicaRoutingDataSource) вернула бы задачи до изменения, и они закрепились бы в памяти под новой версией.
+ * Число интервалов в памяти ограничено app.interval-store.maximum-intervals, неактивные пользователи
+ * вытесняются через expire-after-access. Попадания и промахи публикуются как метрики cache.* с тегом
+ * cache=intervals, размер - как app.interval-store.intervals и app.interval-store.memory.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.interval-store", name = "enabled", havingValue = "true")
+@Slf4j
+public class IntervalStore implements MeterBinder {
+
+    public static final String CACHE_NAME = "intervals";
+
+    private final TaskJpaRepository taskRepository;
+
+    private final ReportCache reportCache;
+
+    private final Clock clock;
+
+    private final TransactionTemplate loadTransaction;
+
+    private final boolean offHeap;
+
+    private final Cache<UUID, UserIntervals> cache;
+
+    public IntervalStore(TaskJpaRepository taskRepository, ReportCache reportCache, AppProperties appProperties,
+                         Clock clock, PlatformTransactionManager transactionManager) {
+        this.taskRepository = taskRepository;
+        this.reportCache = reportCache;
+        this.clock = clock;
+        this.loadTransaction = new TransactionTemplate(transactionManager);
+        this.loadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+        AppProperties.IntervalStore properties = appProperties.getIntervalStore();
+        this.offHeap = properties.isOffHeap();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumIntervals())
+                .weigher((UUID userId, UserIntervals intervals) -> intervals.size() + 1)
+                .expireAfterAccess(properties.getExpireAfterAccess())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Задачи пользователя за период в порядке запуска
+     */
+    public List<TaskView> findIntervals(UUID userId, OffsetDateTime from, OffsetDateTime to) {
+        return get(userId).list(from, to, clock.getZone());
+    }
+
+    /**
+     * Суммарная длительность задач пользователя за период
+     */
+    public Duration getTimeSum(UUID userId, OffsetDateTime from, OffsetDateTime to) {
+        return get(userId).sum(from, to);
+    }
+
+    /**
+     * Суммарное и эффективное рабочее время пользователя за период
+     */
+    public WorkTimeTotals getWorkTimeTotals(UUID userId, OffsetDateTime from, OffsetDateTime to) {
+        return get(userId).totals(from, to);
+    }
+
+    /**
+     * Добавляет завершенную задачу в снимок пользователя после фиксации транзакции. Если снимок загружен
+     * не по версии generation или версия после транзакции отличается от expectedGeneration (задачи
+     * пользователя изменил кто-то еще), снимок удаляется и при следующем отчете загружается заново.
+     * @param generation версия данных пользователя до изменения
+     * @param expectedGeneration версия после фиксации транзакции (см. {@link ReportCache#invalidate})
+     * @param task завершенная задача
+     */
+    public void finished(UUID userId, long generation, long expectedGeneration, TaskView task) {
+        Runnable apply = () -> cache.asMap().computeIfPresent(userId, (id, intervals) ->
+                intervals.generation() == generation ? intervals.insert(task, expectedGeneration) : null);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    apply.run();
+                } else {
+                    cache.invalidate(userId);
+                }
+            }
+        });
+    }
+
+    UserIntervals get(UUID userId) {
+        long generation = reportCache.generation(userId);
+        UserIntervals intervals = cache.get(userId, id -> load(id, generation));
+        if (intervals.generation() != generation) {
+            cache.asMap().remove(userId, intervals);
+            intervals = cache.get(userId, id -> load(id, generation));
+        }
+        return intervals;
+    }
+
+    private UserIntervals load(UUID userId, long generation) {
+        List<TaskView> tasks = loadTransaction.execute(status -> taskRepository.findUserIntervals(userId,
+                TaskService.LOWER_TIME_BOUNDARY, TaskService.UPPER_TIME_BOUNDARY));
+        log.debug("Loaded {} intervals of user '{}'", tasks.size(), userId);
+        return UserIntervals.of(tasks, generation, offHeap);
+    }
+
+    private double sum(ToLongFunction<UserIntervals> size) {
+        return cache.asMap().values().stream().mapToLong(size).sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+        Gauge.builder("app.interval-store.intervals", this, store -> store.sum(UserIntervals::size))
+                .description("Finished task intervals kept in memory")
+                .register(registry);
+        Gauge.builder("app.interval-store.memory", this, store -> store.sum(UserIntervals::descriptionBytes)
+                        + (store.offHeap ? 0 : store.sum(UserIntervals::columnBytes)))
+                .description("Estimated size of the interval columns and descriptions")
+                .tag("area", "heap")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("app.interval-store.memory", this, store -> store.offHeap ? store.sum(UserIntervals::columnBytes) : 0)
+                .description("Estimated size of the interval columns and descriptions")
+                .tag("area", "off-heap")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
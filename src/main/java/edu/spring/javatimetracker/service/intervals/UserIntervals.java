@@ -0,0 +1,234 @@
+package edu.spring.javatimetracker.service.intervals;
+
+import edu.spring.javatimetracker.db.projection.TaskView;
+import edu.spring.javatimetracker.db.projection.WorkTimeTotals;
+import edu.spring.javatimetracker.db.report.WorkTimeSweep;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Неизменяемый снимок завершенных задач пользователя в виде столбцов, упорядоченных по времени запуска.
+ * Время хранится в микросекундах от эпохи в столбцах long (в куче или вне ее), описания - массивом строк.
+ * Префиксные суммы длительностей позволяют считать сумму за период двоичным поиском, не перебирая задачи.
+ * <p>
+ * Период выбирается так же, как в запросах отчетов: задачи, начатые в [from, to) и завершенные до to.
+ */
+final class UserIntervals {
+
+    private static final int COLUMN_BYTES = Long.BYTES;
+
+    private final long generation;
+
+    private final int size;
+
+    private final LongBuffer ids;
+
+    private final LongBuffer starts;
+
+    private final LongBuffer ends;
+
+    /**
+     * prefix[i] - сумма длительностей первых i задач; size + 1 элементов
+     */
+    private final LongBuffer prefix;
+
+    private final String[] descriptions;
+
+    /**
+     * Наибольшая длительность задачи: задача, начатая раньше to - maxDuration, завершена раньше to
+     */
+    private final long maxDuration;
+
+    private final boolean offHeap;
+
+    private UserIntervals(long generation, int size, LongBuffer ids, LongBuffer starts, LongBuffer ends,
+                          LongBuffer prefix, String[] descriptions, long maxDuration, boolean offHeap) {
+        this.generation = generation;
+        this.size = size;
+        this.ids = ids;
+        this.starts = starts;
+        this.ends = ends;
+        this.prefix = prefix;
+        this.descriptions = descriptions;
+        this.maxDuration = maxDuration;
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * @param tasks завершенные задачи в порядке запуска
+     * @param generation версия данных пользователя, по которой загружены задачи
+     * @param offHeap разместить столбцы вне кучи
+     */
+    static UserIntervals of(List<TaskView> tasks, long generation, boolean offHeap) {
+        int size = tasks.size();
+        LongBuffer ids = allocate(size, offHeap);
+        LongBuffer starts = allocate(size, offHeap);
+        LongBuffer ends = allocate(size, offHeap);
+        LongBuffer prefix = allocate(size + 1, offHeap);
+        String[] descriptions = new String[size];
+        long maxDuration = 0;
+        for (int i = 0; i < size; i++) {
+            TaskView task = tasks.get(i);
+            long start = toMicros(task.startedAt());
+            long end = toMicros(task.finishedAt());
+            if (i > 0 && start < starts.get(i - 1)) {
+                throw new IllegalArgumentException("Tasks must be ordered by start");
+            }
+            ids.put(i, task.id());
+            starts.put(i, start);
+            ends.put(i, end);
+            prefix.put(i + 1, prefix.get(i) + end - start);
+            descriptions[i] = task.description();
+            maxDuration = Math.max(maxDuration, end - start);
+        }
+        return new UserIntervals(generation, size, ids, starts, ends, prefix, descriptions, maxDuration, offHeap);
+    }
+
+    /**
+     * Возвращает копию снимка с добавленной задачей; копирование линейно, но не требует чтения из БД
+     * @param task завершенная задача
+     * @param generation версия данных пользователя с учетом этой задачи
+     */
+    UserIntervals insert(TaskView task, long generation) {
+        long start = toMicros(task.startedAt());
+        long end = toMicros(task.finishedAt());
+        int position = lowerBound(start + 1);
+        LongBuffer newIds = allocate(size + 1, offHeap);
+        LongBuffer newStarts = allocate(size + 1, offHeap);
+        LongBuffer newEnds = allocate(size + 1, offHeap);
+        LongBuffer newPrefix = allocate(size + 2, offHeap);
+        String[] newDescriptions = new String[size + 1];
+
+        newIds.put(0, ids, 0, position).put(position + 1, ids, position, size - position).put(position, task.id());
+        newStarts.put(0, starts, 0, position).put(position + 1, starts, position, size - position).put(position, start);
+        newEnds.put(0, ends, 0, position).put(position + 1, ends, position, size - position).put(position, end);
+        System.arraycopy(descriptions, 0, newDescriptions, 0, position);
+        System.arraycopy(descriptions, position, newDescriptions, position + 1, size - position);
+        newDescriptions[position] = task.description();
+        newPrefix.put(0, prefix, 0, position + 1);
+        for (int i = position; i <= size; i++) {
+            newPrefix.put(i + 1, newPrefix.get(i) + newEnds.get(i) - newStarts.get(i));
+        }
+        return new UserIntervals(generation, size + 1, newIds, newStarts, newEnds, newPrefix, newDescriptions,
+                Math.max(maxDuration, end - start), offHeap);
+    }
+
+    /**
+     * Суммарная длительность задач за период
+     */
+    Duration sum(OffsetDateTime from, OffsetDateTime to) {
+        long fromMicros = toMicros(from);
+        long toMicros = toMicros(to);
+        int first = lowerBound(fromMicros);
+        int last = lowerBound(toMicros);
+        if (first >= last) {
+            return Duration.ZERO;
+        }
+        long sum = prefix.get(last) - prefix.get(first);
+        for (int i = Math.max(first, lowerBound(toMicros - maxDuration)); i < last; i++) {
+            if (ends.get(i) >= toMicros) {
+                sum -= ends.get(i) - starts.get(i);
+            }
+        }
+        return Duration.of(sum, ChronoUnit.MICROS);
+    }
+
+    /**
+     * Суммарная длительность задач и время, когда была запущена хотя бы одна задача, за период
+     */
+    WorkTimeTotals totals(OffsetDateTime from, OffsetDateTime to) {
+        long toMicros = toMicros(to);
+        WorkTimeSweep sweep = new WorkTimeSweep();
+        for (int i = lowerBound(toMicros(from)), last = lowerBound(toMicros); i < last; i++) {
+            if (ends.get(i) < toMicros) {
+                sweep.add(starts.get(i) * 1000, ends.get(i) * 1000);
+            }
+        }
+        return new WorkTimeTotals(Duration.ofNanos(sweep.totalNanos()), Duration.ofNanos(sweep.effectiveNanos()));
+    }
+
+    /**
+     * Задачи за период в порядке запуска
+     * @param zone часовой пояс возвращаемого времени
+     */
+    List<TaskView> list(OffsetDateTime from, OffsetDateTime to, ZoneId zone) {
+        long toMicros = toMicros(to);
+        int first = lowerBound(toMicros(from));
+        int last = lowerBound(toMicros);
+        List<TaskView> tasks = new ArrayList<>(Math.max(last - first, 0));
+        for (int i = first; i < last; i++) {
+            long end = ends.get(i);
+            if (end < toMicros) {
+                tasks.add(new TaskView(ids.get(i), descriptions[i], toTime(starts.get(i), zone), toTime(end, zone),
+                        Duration.of(end - starts.get(i), ChronoUnit.MICROS)));
+            }
+        }
+        return tasks;
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Размер столбцов времени и идентификаторов в байтах
+     */
+    long columnBytes() {
+        return (4L * size + 1) * COLUMN_BYTES;
+    }
+
+    /**
+     * Оценка размера описаний в куче: ссылка, заголовок строки и по байту на символ
+     */
+    long descriptionBytes() {
+        long bytes = (long) descriptions.length * Integer.BYTES;
+        for (String description : descriptions) {
+            bytes += 24 + description.length();
+        }
+        return bytes;
+    }
+
+    /**
+     * Индекс первой задачи, запущенной не раньше start
+     */
+    private int lowerBound(long start) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts.get(middle) < start) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static LongBuffer allocate(int size, boolean offHeap) {
+        return offHeap
+                ? ByteBuffer.allocateDirect(size * COLUMN_BYTES).order(ByteOrder.nativeOrder()).asLongBuffer()
+                : LongBuffer.allocate(size);
+    }
+
+    static long toMicros(OffsetDateTime time) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, time.toInstant());
+    }
+
+    private static OffsetDateTime toTime(long micros, ZoneId zone) {
+        return OffsetDateTime.ofInstant(Instant.EPOCH.plus(micros, ChronoUnit.MICROS), zone);
+    }
+}
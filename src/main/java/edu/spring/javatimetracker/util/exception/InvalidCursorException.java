@@ -0,0 +1,11 @@
+package edu.spring.javatimetracker.util.exception;
+
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException() {
+    }
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,38 @@
+package edu.spring.javatimetracker.util.pagination;
+
+import edu.spring.javatimetracker.util.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Позиция в выборке, упорядоченной по (key, id): следующая страница начинается сразу после строки
+ * с этими значениями. Клиенту передается в виде непрозрачной строки.
+ * @param key значение ключа сортировки последней строки страницы
+ * @param id идентификатор последней строки страницы
+ */
+public record KeysetCursor(long key, long id) {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public String encode() {
+        return ENCODER.encodeToString((key + ":" + id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @throws InvalidCursorException строка не является курсором
+     */
+    public static KeysetCursor decode(String token) throws InvalidCursorException {
+        try {
+            String[] parts = new String(DECODER.decode(token), StandardCharsets.US_ASCII).split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            return new KeysetCursor(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid page cursor '%s'".formatted(token));
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package edu.spring.javatimetracker.util.pagination;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница выборки с курсором следующей страницы
+ * @param items строки страницы
+ * @param next курсор следующей страницы; null - страница последняя
+ */
+public record KeysetPage<T>(List<T> items, KeysetCursor next) {
+
+    /**
+     * Создает страницу; если страница заполнена целиком, курсор строится по ее последней строке
+     * @param items строки страницы
+     * @param limit размер страницы
+     * @param cursor построение курсора по строке
+     */
+    public static <T> KeysetPage<T> of(List<T> items, int limit, Function<T, KeysetCursor> cursor) {
+        return new KeysetPage<>(items, items.size() == limit ? cursor.apply(items.getLast()) : null);
+    }
+}
@@ -0,0 +1,11 @@
+-- Индексы под запросы TaskJpaRepository (см. db/migration/postgresql/V2__task_report_indexes.sql).
+-- H2 не поддерживает INCLUDE и частичные индексы: вместо частичных индексов столбец условия
+-- ставится первым, запущенные задачи ищутся по task_finished_at_idx (finished_at IS NULL).
+CREATE INDEX task_assignee_duration_idx ON task (assignee_id, duration_nanos DESC, id);
+
+CREATE INDEX task_assignee_started_idx ON task (assignee_id, started_at, id);
+
+DROP INDEX task_finished_at_idx;
+CREATE INDEX task_finished_at_idx ON task (finished_at, id);
+
+CREATE INDEX task_missing_duration_idx ON task (duration_nanos, id);
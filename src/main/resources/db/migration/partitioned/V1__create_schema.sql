@@ -0,0 +1,41 @@
+-- Схема с таблицей задач, секционированной по started_at (профиль partitioned); секции создает
+-- TaskPartitionManager. Ключ секционирования входит в первичный ключ, поэтому уникальность
+-- (assignee_id, description) в этом режиме проверяется только приложением.
+-- Базы, созданные до перехода на миграции, помечаются этой версией (spring.flyway.baseline-on-migrate).
+-- Шаг последовательности совпадает с allocationSize идентификатора Task.
+CREATE SEQUENCE IF NOT EXISTS task_seq INCREMENT BY 50;
+
+CREATE TABLE users (
+    id uuid NOT NULL,
+    username varchar(255) NOT NULL,
+    password varchar(255) NOT NULL,
+    firstname varchar(255) NOT NULL,
+    lastname varchar(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT users_username_key UNIQUE (username)
+);
+
+CREATE TABLE task (
+    id bigint NOT NULL DEFAULT nextval('task_seq'),
+    description varchar(255) NOT NULL,
+    started_at timestamp(6) with time zone NOT NULL,
+    finished_at timestamp(6) with time zone,
+    duration_nanos bigint,
+    assignee_id uuid,
+    PRIMARY KEY (id, started_at),
+    CONSTRAINT task_assignee_fk FOREIGN KEY (assignee_id) REFERENCES users (id)
+) PARTITION BY RANGE (started_at);
+
+ALTER SEQUENCE task_seq OWNED BY task.id;
+
+CREATE TABLE task_default PARTITION OF task DEFAULT;
+
+CREATE INDEX task_finished_at_idx ON task (finished_at);
+
+CREATE TABLE work_time_rollup (
+    assignee_id uuid NOT NULL,
+    started_on date NOT NULL,
+    finished_on date NOT NULL,
+    total_nanos bigint NOT NULL,
+    PRIMARY KEY (assignee_id, started_on, finished_on)
+);
@@ -0,0 +1,17 @@
+-- Индексы под запросы TaskJpaRepository (см. db/migration/postgresql/V2__task_report_indexes.sql).
+-- Индекс секционированной таблицы создается на каждой секции, в том числе на созданных позже
+-- TaskPartitionManager; CONCURRENTLY для секционированной таблицы недоступен.
+DROP INDEX IF EXISTS task_assignee_duration_idx;
+CREATE INDEX task_assignee_duration_idx
+    ON task (assignee_id, duration_nanos DESC, id) INCLUDE (started_at, finished_at, description);
+
+CREATE INDEX IF NOT EXISTS task_assignee_started_idx
+    ON task (assignee_id, started_at, id) INCLUDE (finished_at, description);
+
+CREATE INDEX IF NOT EXISTS task_running_idx
+    ON task (id) INCLUDE (assignee_id, started_at, description) WHERE finished_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS task_missing_duration_idx
+    ON task (id) WHERE duration_nanos IS NULL AND finished_at IS NOT NULL;
+
+ANALYZE task;
@@ -0,0 +1,32 @@
+-- Доводит до схемы V1 базы, созданные Hibernate (ddl-auto: update) до перехода на миграции. Такие базы
+-- помечаются версией 1 без выполнения V1 (spring.flyway.baseline-on-migrate), и недостающие объекты
+-- добавляются здесь. Все изменения условные, поэтому на базах, созданных V1, миграция ничего не меняет.
+--
+-- Идентификаторы задач выдает последовательность task_seq с шагом allocationSize Task, а не IDENTITY
+ALTER TABLE task ALTER COLUMN id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE IF NOT EXISTS task_seq START WITH 1 INCREMENT BY 50;
+
+ALTER TABLE task ADD COLUMN IF NOT EXISTS duration_nanos bigint;
+
+CREATE INDEX IF NOT EXISTS task_finished_at_idx ON task (finished_at);
+
+CREATE TABLE IF NOT EXISTS work_time_rollup (
+    assignee_id uuid NOT NULL,
+    started_on date NOT NULL,
+    finished_on date NOT NULL,
+    total_nanos bigint NOT NULL,
+    PRIMARY KEY (assignee_id, started_on, finished_on)
+);
+
+-- Агрегаты рабочего времени строятся по завершенным задачам так же, как --rebuild-rollups: дни берутся
+-- в app.time-zone (плейсхолдер timezone). Заполняется только пустая таблица, чтобы не удвоить
+-- агрегаты базы, где они уже велись.
+INSERT INTO work_time_rollup (assignee_id, started_on, finished_on, total_nanos)
+SELECT assignee_id,
+       (started_at AT TIME ZONE '${timezone}')::date,
+       (finished_at AT TIME ZONE '${timezone}')::date,
+       sum(EXTRACT(EPOCH FROM finished_at - started_at) * 1000000000)::bigint
+FROM task
+WHERE assignee_id IS NOT NULL AND started_at IS NOT NULL AND finished_at IS NOT NULL
+    AND NOT EXISTS (SELECT 1 FROM work_time_rollup)
+GROUP BY 1, 2, 3;
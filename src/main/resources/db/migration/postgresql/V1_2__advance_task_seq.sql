@@ -0,0 +1,7 @@
+-- Переводит task_seq за наибольший идентификатор задачи. В базах, где идентификаторы выдавал IDENTITY,
+-- последовательность начинается с 1, и первые INSERT, а также идентификаторы TaskIdAllocator (импорт,
+-- журнал) совпали бы с существующими. Значение v резервирует идентификаторы (v - 50, v], поэтому
+-- последовательность ставится на max(id) + 50; назад она не переводится.
+SELECT setval('task_seq', max(id) + 50)
+FROM task
+HAVING max(id) + 50 > (SELECT last_value FROM task_seq);
@@ -0,0 +1,27 @@
+-- Описание задачи уникально в пределах задач пользователя (task_assignee_description_key), а не глобально.
+-- Глобальный уникальный ключ на description создавал Hibernate с именем по своим правилам, поэтому
+-- он ищется по столбцу. Пока он есть, совпадение описаний у разных пользователей дает ошибку 500
+-- вместо создания задачи.
+DO $$
+DECLARE
+    legacy_key name;
+BEGIN
+    FOR legacy_key IN
+        SELECT task_constraint.conname
+        FROM pg_constraint task_constraint
+        JOIN pg_attribute task_column ON task_column.attrelid = task_constraint.conrelid
+            AND task_column.attnum = task_constraint.conkey[1]
+        WHERE task_constraint.conrelid = 'task'::regclass
+            AND task_constraint.contype = 'u'
+            AND cardinality(task_constraint.conkey) = 1
+            AND task_column.attname = 'description'
+    LOOP
+        EXECUTE format('ALTER TABLE task DROP CONSTRAINT %I', legacy_key);
+    END LOOP;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conrelid = 'task'::regclass AND conname = 'task_assignee_description_key') THEN
+        ALTER TABLE task ADD CONSTRAINT task_assignee_description_key UNIQUE (assignee_id, description);
+    END IF;
+END
+$$;
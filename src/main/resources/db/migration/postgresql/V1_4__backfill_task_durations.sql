@@ -0,0 +1,6 @@
+-- Сохраняет длительность задач, завершенных до появления duration_nanos. Пока она не заполнена, отчеты
+-- по длительности ставят такие задачи первыми (NULL в ORDER BY duration_nanos DESC), а условие
+-- страницы duration_nanos < :afterDuration пропускает их на следующих страницах.
+UPDATE task
+SET duration_nanos = (EXTRACT(EPOCH FROM finished_at - started_at) * 1000000000)::bigint
+WHERE duration_nanos IS NULL AND finished_at IS NOT NULL AND started_at IS NOT NULL;
@@ -0,0 +1,36 @@
+-- Схема, которую ожидает приложение. Базы, созданные Hibernate (ddl-auto: update) до перехода на миграции,
+-- помечаются этой версией (spring.flyway.baseline-on-migrate) и доводятся до нее миграциями V1_x.
+-- Шаг последовательности совпадает с allocationSize идентификатора Task.
+CREATE SEQUENCE task_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE users (
+    id uuid NOT NULL,
+    username varchar(255) NOT NULL,
+    password varchar(255) NOT NULL,
+    firstname varchar(255) NOT NULL,
+    lastname varchar(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT users_username_key UNIQUE (username)
+);
+
+CREATE TABLE task (
+    id bigint NOT NULL,
+    description varchar(255) NOT NULL,
+    started_at timestamp(6) with time zone,
+    finished_at timestamp(6) with time zone,
+    duration_nanos bigint,
+    assignee_id uuid,
+    PRIMARY KEY (id),
+    CONSTRAINT task_assignee_description_key UNIQUE (assignee_id, description),
+    CONSTRAINT task_assignee_fk FOREIGN KEY (assignee_id) REFERENCES users (id)
+);
+
+CREATE INDEX task_finished_at_idx ON task (finished_at);
+
+CREATE TABLE work_time_rollup (
+    assignee_id uuid NOT NULL,
+    started_on date NOT NULL,
+    finished_on date NOT NULL,
+    total_nanos bigint NOT NULL,
+    PRIMARY KEY (assignee_id, started_on, finished_on)
+);
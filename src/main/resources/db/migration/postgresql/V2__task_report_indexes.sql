@@ -0,0 +1,25 @@
+-- Индексы под запросы TaskJpaRepository. Создаются без блокировки записи (CONCURRENTLY), поэтому
+-- миграция выполняется вне транзакции (V2__task_report_indexes.sql.conf).
+--
+-- Отчеты по длительности и их страницы: WHERE assignee_id = ? ... ORDER BY duration_nanos DESC, id.
+-- Первые N строк читаются по индексу без сортировки; INCLUDE покрывает столбцы TaskView.
+-- Заменяет индекс (assignee_id, duration_nanos DESC), который создавал Hibernate.
+DROP INDEX CONCURRENTLY IF EXISTS task_assignee_duration_idx;
+CREATE INDEX CONCURRENTLY task_assignee_duration_idx
+    ON task (assignee_id, duration_nanos DESC, id) INCLUDE (started_at, finished_at, description);
+
+-- Интервалы, суммы и гистограммы рабочего времени, загрузка хранилища интервалов, удаление задач пользователя:
+-- WHERE assignee_id = ? AND started_at >= ? AND started_at < ? ... ORDER BY started_at, id
+CREATE INDEX CONCURRENTLY IF NOT EXISTS task_assignee_started_idx
+    ON task (assignee_id, started_at, id) INCLUDE (finished_at, description);
+
+-- Запущенные задачи (FinishAllTasksJob, восстановление реестра): WHERE finished_at IS NULL ... ORDER BY id.
+-- Частичный индекс содержит только запущенные задачи и остается маленьким при любом размере таблицы.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS task_running_idx
+    ON task (id) INCLUDE (assignee_id, started_at, description) WHERE finished_at IS NULL;
+
+-- Задачи без сохраненной длительности (BackfillTaskDurationsCommand); после заполнения индекс пуст
+CREATE INDEX CONCURRENTLY IF NOT EXISTS task_missing_duration_idx
+    ON task (id) WHERE duration_nanos IS NULL AND finished_at IS NOT NULL;
+
+ANALYZE task;
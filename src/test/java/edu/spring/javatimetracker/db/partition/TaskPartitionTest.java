@@ -0,0 +1,64 @@
+package edu.spring.javatimetracker.db.partition;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TaskPartitionTest {
+
+    private final ZoneId zone = ZoneId.of("Europe/Moscow");
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Границы месячной секции считаются в часовом поясе приложения</li>
+     *     <li>Следующая секция начинается на границе предыдущей</li>
+     * </ul>
+     */
+    @Test
+    public void monthPartitionTest() {
+        TaskPartition partition = TaskPartition.containing(
+                OffsetDateTime.of(2000, 1, 31, 22, 0, 0, 0, ZoneOffset.UTC), TaskPartition.Interval.MONTH, zone);
+
+        assertEquals("task_p20000201", partition.name());
+        assertEquals(OffsetDateTime.of(2000, 1, 31, 21, 0, 0, 0, ZoneOffset.UTC).toInstant(),
+                partition.lowerBound().toInstant());
+        assertEquals(partition.upperBound(), partition.next().lowerBound());
+        assertEquals("task_p20000301", partition.next().name());
+    }
+
+    /**
+     * Проверяется: недельная секция начинается с понедельника
+     */
+    @Test
+    public void weekPartitionTest() {
+        TaskPartition partition = TaskPartition.containing(
+                OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC), TaskPartition.Interval.WEEK, zone);
+
+        assertEquals(LocalDate.of(1999, 12, 27), partition.from());
+        assertEquals(LocalDate.of(2000, 1, 3), partition.next().from());
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Секция восстанавливается по имени</li>
+     *     <li>Секция по умолчанию и таблицы другого размера секций игнорируются</li>
+     * </ul>
+     */
+    @Test
+    public void fromNameTest() {
+        assertEquals(Optional.of(new TaskPartition(TaskPartition.Interval.MONTH, LocalDate.of(2000, 2, 1), zone)),
+                TaskPartition.fromName("task_p20000201", TaskPartition.Interval.MONTH, zone));
+        assertTrue(TaskPartition.fromName("task_default", TaskPartition.Interval.MONTH, zone).isEmpty());
+        assertTrue(TaskPartition.fromName("task_p20000202", TaskPartition.Interval.MONTH, zone).isEmpty());
+        assertTrue(TaskPartition.fromName("task_pabc", TaskPartition.Interval.WEEK, zone).isEmpty());
+    }
+}
@@ -0,0 +1,63 @@
+package edu.spring.javatimetracker.db.pool;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class GuardedDataSourceTest {
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Соединений выдается не больше числа разрешений, лишний запрос ждет и завершается по таймауту</li>
+     *     <li>Повторное закрытие соединения не возвращает разрешение дважды</li>
+     *     <li>Ошибка пула возвращает разрешение</li>
+     * </ul>
+     */
+    @Test
+    public void permitsTest() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+        GuardedDataSource dataSource = new GuardedDataSource(target, 1, Duration.ofMillis(10));
+
+        Connection first = dataSource.getConnection();
+        assertEquals(0, dataSource.getAvailablePermits());
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        first.close();
+        first.close();
+        verify(connection).close();
+        assertEquals(1, dataSource.getAvailablePermits());
+
+        when(target.getConnection()).thenThrow(new SQLException("pool is closed"));
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertEquals(1, dataSource.getAvailablePermits());
+    }
+
+    /**
+     * Проверяется: обертка прозрачна для вызовов соединения и для DataSourceUtils
+     */
+    @Test
+    public void delegateTest() throws SQLException {
+        DataSource target = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.getAutoCommit()).thenReturn(true);
+        GuardedDataSource dataSource = new GuardedDataSource(target, 2, Duration.ofMillis(10));
+
+        Connection guarded = dataSource.getConnection();
+        assertTrue(guarded.getAutoCommit());
+        assertSame(connection, DataSourceUtils.getTargetConnection(guarded));
+        assertEquals(guarded, guarded);
+        assertNotEquals(guarded, dataSource.getConnection());
+    }
+}
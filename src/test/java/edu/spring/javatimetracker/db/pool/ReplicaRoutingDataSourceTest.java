@@ -0,0 +1,121 @@
+package edu.spring.javatimetracker.db.pool;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private static final String SERVICE_PREFIX = "edu.spring.javatimetracker.service.";
+
+    private static final String PRIMARY_URL = "jdbc:h2:mem:routing_primary;DB_CLOSE_DELAY=-1";
+
+    private static final String REPLICA_URL = "jdbc:h2:mem:routing_replica;DB_CLOSE_DELAY=-1";
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private JdbcTemplate replica;
+
+    private ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    public void setUp() {
+        DriverManagerDataSource replicaSource = new DriverManagerDataSource(REPLICA_URL);
+        replica = new JdbcTemplate(replicaSource);
+        replica.execute("CREATE TABLE replica_lag (seconds DOUBLE)");
+        replica.execute("INSERT INTO replica_lag VALUES (0.5)");
+
+        dataSource = new ReplicaRoutingDataSource(new DriverManagerDataSource(PRIMARY_URL), replicaSource,
+                SERVICE_PREFIX, Duration.ofSeconds(5), "SELECT seconds FROM replica_lag");
+        dataSource.afterPropertiesSet();
+        dataSource.bindTo(registry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        replica.execute("DROP TABLE IF EXISTS replica_lag");
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setCurrentTransactionName(null);
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>До первой проверки отставания чтение идет на основную БД</li>
+     *     <li>Транзакция только для чтения из сервиса идет на реплику, запись и транзакции репозиториев -
+     *     на основную БД</li>
+     *     <li>Решения учтены в счетчике app.datasource.routing</li>
+     * </ul>
+     */
+    @Test
+    public void routingTest() throws SQLException {
+        readOnly(SERVICE_PREFIX + "TaskService.findUserTasks");
+        assertEquals("primary", target());
+
+        dataSource.checkReplica();
+        assertTrue(dataSource.isReplicaAvailable());
+        assertEquals("replica", target());
+
+        readOnly("org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById");
+        assertEquals("primary", target());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setCurrentTransactionName(SERVICE_PREFIX + "TaskService.createTask");
+        assertEquals("primary", target());
+
+        assertEquals(1, count("replica", "read-only"));
+        assertEquals(1, count("primary", "replica-lag"));
+        assertEquals(2, count("primary", "default"));
+        assertEquals(1, registry.get("app.datasource.replica.available").gauge().value());
+    }
+
+    /**
+     * Проверяется: при отставании больше допустимого и при ошибке запроса отставания чтение
+     * возвращается на основную БД
+     */
+    @Test
+    public void lagFallbackTest() throws SQLException {
+        readOnly(SERVICE_PREFIX + "TaskService.findUserWorkTime");
+        replica.update("UPDATE replica_lag SET seconds = 30");
+        dataSource.checkReplica();
+        assertFalse(dataSource.isReplicaAvailable());
+        assertEquals("primary", target());
+        assertEquals(30.0, registry.get("app.datasource.replica.lag").gauge().value());
+
+        replica.update("UPDATE replica_lag SET seconds = 1");
+        dataSource.checkReplica();
+        assertEquals("replica", target());
+
+        replica.execute("DROP TABLE replica_lag");
+        dataSource.checkReplica();
+        assertFalse(dataSource.isReplicaAvailable());
+        assertTrue(Double.isNaN(registry.get("app.datasource.replica.lag").gauge().value()));
+        assertEquals("primary", target());
+    }
+
+    private String target() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getURL().contains("routing_replica") ? "replica" : "primary";
+        }
+    }
+
+    private static void readOnly(String transactionName) {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        TransactionSynchronizationManager.setCurrentTransactionName(transactionName);
+    }
+
+    private double count(String target, String reason) {
+        return registry.get("app.datasource.routing").tag("target", target).tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,61 @@
+package edu.spring.javatimetracker.db.report;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class WorkHistogramQueryTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Berlin");
+
+    /**
+     * Проверяется: интервал делится по границам дней в часовом поясе, а не в UTC;
+     * сутки перехода на летнее время короче остальных
+     */
+    @Test
+    public void splitByDayTest() {
+        Map<LocalDate, Duration> buckets = new TreeMap<>();
+        WorkHistogramQuery.split(
+                ZonedDateTime.of(2000, 3, 25, 22, 0, 0, 0, ZONE).toInstant(),
+                ZonedDateTime.of(2000, 3, 27, 2, 0, 0, 0, ZONE).toInstant(),
+                Granularity.DAY, ZONE, buckets);
+
+        assertEquals(Map.of(
+                LocalDate.of(2000, 3, 25), Duration.ofHours(2),
+                LocalDate.of(2000, 3, 26), Duration.ofHours(23),
+                LocalDate.of(2000, 3, 27), Duration.ofHours(2)), buckets);
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Недели начинаются с понедельника, месяцы - с первого дня</li>
+     *     <li>Части разных интервалов в одном периоде суммируются</li>
+     *     <li>Интервал, заканчивающийся ровно на границе, не создает пустой период</li>
+     * </ul>
+     */
+    @Test
+    public void splitByWeekAndMonthTest() {
+        Instant sunday = ZonedDateTime.of(2000, 1, 30, 23, 0, 0, 0, ZONE).toInstant();
+        Instant monday = ZonedDateTime.of(2000, 1, 31, 0, 0, 0, 0, ZONE).toInstant();
+        Instant february = ZonedDateTime.of(2000, 2, 1, 0, 0, 0, 0, ZONE).toInstant();
+
+        Map<LocalDate, Duration> weeks = new TreeMap<>();
+        WorkHistogramQuery.split(sunday, monday, Granularity.WEEK, ZONE, weeks);
+        WorkHistogramQuery.split(monday, february.plus(Duration.ofHours(1)), Granularity.WEEK, ZONE, weeks);
+        assertEquals(Map.of(
+                LocalDate.of(2000, 1, 24), Duration.ofHours(1),
+                LocalDate.of(2000, 1, 31), Duration.ofHours(25)), weeks);
+
+        Map<LocalDate, Duration> months = new TreeMap<>();
+        WorkHistogramQuery.split(sunday, february, Granularity.MONTH, ZONE, months);
+        WorkHistogramQuery.split(february, february.plus(Duration.ofHours(1)), Granularity.MONTH, ZONE, months);
+        assertEquals(Map.of(
+                LocalDate.of(2000, 1, 1), Duration.ofHours(25),
+                LocalDate.of(2000, 2, 1), Duration.ofHours(1)), months);
+    }
+}
@@ -0,0 +1,44 @@
+package edu.spring.javatimetracker.db.report;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class WorkTimeSweepTest {
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Пересекающиеся и вложенные интервалы учитываются в эффективном времени один раз</li>
+     *     <li>Смежные и разнесенные интервалы суммируются полностью</li>
+     *     <li>Общее время - сумма длительностей всех интервалов</li>
+     * </ul>
+     */
+    @Test
+    public void mergeTest() {
+        WorkTimeSweep sweep = new WorkTimeSweep();
+        sweep.add(0, 10);
+        sweep.add(5, 15);
+        sweep.add(6, 8);
+        sweep.add(15, 20);
+        sweep.add(30, 40);
+        sweep.add(30, 30);
+
+        assertEquals(10 + 10 + 2 + 5 + 10, sweep.totalNanos());
+        assertEquals(20 + 10, sweep.effectiveNanos());
+    }
+
+    /**
+     * Проверяется: без интервалов время нулевое, интервал раньше предыдущего отклоняется
+     */
+    @Test
+    public void emptyAndUnorderedTest() {
+        WorkTimeSweep sweep = new WorkTimeSweep();
+        assertEquals(0, sweep.totalNanos());
+        assertEquals(0, sweep.effectiveNanos());
+
+        sweep.add(10, 20);
+        assertThrows(IllegalArgumentException.class, () -> sweep.add(5, 30));
+    }
+}
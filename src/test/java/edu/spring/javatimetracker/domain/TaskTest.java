@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import java.time.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class TaskTest {
@@ -44,7 +45,7 @@ public class TaskTest {
      * Проверяется:
      * <ul>
      *     <li>Задача не запущена или завершена - исключение</li>
-     *     <li>Иначе - остановить таймер в установленное время</li>
+     *     <li>Иначе - остановить таймер в установленное время и сохранить длительность</li>
      * </ul>
      */
     @Test
@@ -56,9 +57,16 @@ public class TaskTest {
                 null,
                 OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC));
         Task task3 = new Task("test 3");
+        Task task4 = new Task("test 4",
+                OffsetDateTime.of(2000, 1, 1, 10, 30, 0, 0, ZoneOffset.UTC),
+                null);
 
         task1.finish(clock);
         assertEquals(clock.instant(), task1.getFinishedAt().toInstant());
+        assertNull(task4.getDurationNanos());
+        task4.finish(clock);
+        assertEquals(Duration.ofMinutes(90).toNanos(), task4.getDurationNanos());
+        assertNull(task3.getDurationNanos());
 
         Exception ex1 = assertThrows(TaskNotCreatedException.class, () -> task2.finish(clock));
         assertEquals("Task 'test 2' already finished or not started", ex1.getMessage());
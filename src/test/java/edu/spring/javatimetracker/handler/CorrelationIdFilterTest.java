@@ -0,0 +1,71 @@
+package edu.spring.javatimetracker.handler;
+
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CorrelationIdFilterTest {
+
+    private final CorrelationIdFilter filter = new CorrelationIdFilter();
+
+    private Map<String, String> filter(MockHttpServletRequest request, MockHttpServletResponse response)
+            throws ServletException, IOException {
+        Map<String, String> context = new HashMap<>();
+        filter.doFilter(request, response, new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest request, jakarta.servlet.ServletResponse response) {
+                context.putAll(MDC.getCopyOfContextMap());
+            }
+        });
+        return context;
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Идентификатор запроса из заголовка попадает в MDC и возвращается в ответе</li>
+     *     <li>Имя пользователя берется из адреса запроса</li>
+     *     <li>После запроса MDC очищается</li>
+     * </ul>
+     */
+    @Test
+    public void requestIdFromHeaderTest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/default/tasks/work-time");
+        request.addHeader(CorrelationIdFilter.REQUEST_ID_HEADER, "request-1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        Map<String, String> context = filter(request, response);
+
+        assertEquals(Map.of(CorrelationIdFilter.REQUEST_ID_KEY, "request-1", CorrelationIdFilter.USER_KEY, "default"),
+                context);
+        assertEquals("request-1", response.getHeader(CorrelationIdFilter.REQUEST_ID_HEADER));
+        assertNull(MDC.get(CorrelationIdFilter.REQUEST_ID_KEY));
+        assertNull(MDC.get(CorrelationIdFilter.USER_KEY));
+    }
+
+    /**
+     * Проверяется: без заголовка идентификатор создается; пользователь из /api/users/{username}; импорт - без пользователя
+     */
+    @Test
+    public void generatedRequestIdTest() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Map<String, String> context = filter(new MockHttpServletRequest("PUT", "/api/users/default"), response);
+
+        assertEquals("default", context.get(CorrelationIdFilter.USER_KEY));
+        assertNotNull(context.get(CorrelationIdFilter.REQUEST_ID_KEY));
+        assertEquals(context.get(CorrelationIdFilter.REQUEST_ID_KEY),
+                response.getHeader(CorrelationIdFilter.REQUEST_ID_HEADER));
+
+        context = filter(new MockHttpServletRequest("POST", "/api/import/intervals"), new MockHttpServletResponse());
+        assertFalse(context.containsKey(CorrelationIdFilter.USER_KEY));
+    }
+}
@@ -0,0 +1,106 @@
+package edu.spring.javatimetracker.it;
+
+import edu.spring.javatimetracker.command.RebuildWorkTimeRollupsCommand;
+import edu.spring.javatimetracker.db.repository.TaskJpaRepository;
+import edu.spring.javatimetracker.db.repository.UserJpaRepository;
+import edu.spring.javatimetracker.domain.Task;
+import edu.spring.javatimetracker.domain.User;
+import edu.spring.javatimetracker.service.UserIdCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ImportEndpointIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserJpaRepository userJpaRepository;
+
+    @Autowired
+    private TaskJpaRepository taskJpaRepository;
+
+    @Autowired
+    private RebuildWorkTimeRollupsCommand rebuildRollupsCommand;
+
+    @Autowired
+    private UserIdCache userIdCache;
+
+    private UUID userId;
+
+    @BeforeEach
+    public void setUp() {
+        taskJpaRepository.deleteAll();
+        userJpaRepository.deleteAll();
+        userIdCache.evictAll();
+
+        User user = new User("default", "default", "default", "default");
+        user.addTask(new Task("existing task",
+                OffsetDateTime.of(2000, 1, 1, 8, 0, 0, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(2000, 1, 1, 9, 0, 0, 0, ZoneOffset.UTC)));
+        userId = userJpaRepository.save(user).getId();
+        rebuildRollupsCommand.rebuild(100);
+    }
+
+    @Test
+    public void importCsvTest() throws Exception {
+        String csv = """
+                username,description,startedAt,finishedAt
+                default,imported 1,2000-01-01T12:00:00Z,2000-01-01T14:00:00Z
+                default,imported 2,2000-01-01T15:00:00Z,2000-01-01T15:30:00Z
+                unknown,imported 3,2000-01-01T15:00:00Z,2000-01-01T15:30:00Z
+                default,existing task,2000-01-01T15:00:00Z,2000-01-01T15:30:00Z
+                default,imported 4,2000-01-01T15:00:00Z,2000-01-01T14:00:00Z
+                default,imported 5
+                """;
+
+        mockMvc.perform(post("/api/import/intervals")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.rejected").value(4))
+                .andExpect(jsonPath("$.errors.size()").value(4));
+
+        Task task = taskJpaRepository.findByAssigneeIdAndDescription(userId, "imported 1").orElseThrow();
+        assertEquals(OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC).toInstant(), task.getStartedAt().toInstant());
+
+        mockMvc.perform(get("/api/default/tasks/work-time"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.duration").value("03:30"));
+    }
+
+    @Test
+    public void importNdjsonTest() throws Exception {
+        String ndjson = """
+                {"username":"default","description":"imported 1","startedAt":"2000-01-01T12:00:00Z","finishedAt":"2000-01-01T14:00:00Z"}
+                {"username":"default","description":"imported 1","startedAt":"2000-01-01T12:00:00Z","finishedAt":"2000-01-01T14:00:00Z"}
+                """;
+
+        mockMvc.perform(post("/api/import/intervals")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.rejected").value(1));
+    }
+}
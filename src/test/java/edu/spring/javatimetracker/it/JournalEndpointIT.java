@@ -0,0 +1,193 @@
+package edu.spring.javatimetracker.it;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.spring.javatimetracker.db.repository.TaskJpaRepository;
+import edu.spring.javatimetracker.db.repository.UserJpaRepository;
+import edu.spring.javatimetracker.domain.Task;
+import edu.spring.javatimetracker.domain.User;
+import edu.spring.javatimetracker.journal.TaskJournal;
+import edu.spring.javatimetracker.service.RunningTaskRegistry;
+import edu.spring.javatimetracker.service.UserIdCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class JournalEndpointIT {
+
+    @TempDir
+    static Path journalDirectory;
+
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.journal.enabled", () -> true);
+        registry.add("app.journal.directory", () -> journalDirectory.toString());
+        registry.add("app.journal.batch-delay", () -> "5ms");
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserJpaRepository userJpaRepository;
+
+    @Autowired
+    private TaskJpaRepository taskJpaRepository;
+
+    @Autowired
+    private UserIdCache userIdCache;
+
+    private UUID userId;
+
+    @Autowired
+    private RunningTaskRegistry runningTaskRegistry;
+
+    @Autowired
+    private TaskJournal taskJournal;
+
+    @BeforeEach
+    public void setUp() {
+        userJpaRepository.deleteAll();
+        userIdCache.evictAll();
+        taskJpaRepository.deleteAll();
+
+        User user = new User("default", "default", "default", "default");
+        user.addTask(new Task("default task 1",
+                OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC),
+                null));
+        user.addTask(new Task("default task 2",
+                OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(2000, 1, 1, 14, 30, 0, 0, ZoneOffset.UTC)));
+        userId = userJpaRepository.save(user).getId();
+        runningTaskRegistry.rebuild();
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Ответы создания и завершения задачи те же, что без журнала</li>
+     *     <li>Запущенная задача сразу видна среди активных, а в БД появляется после переноса</li>
+     *     <li>Занятое описание отклоняется и до, и после переноса в БД</li>
+     * </ul>
+     */
+    @Test
+    public void createAndFinishTaskTest() throws Exception {
+        String response = mockMvc.perform(post("/api/default/tasks/new")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("new task"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").isNumber())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(response).get("id").asLong();
+
+        mockMvc.perform(get("/api/default/tasks/active"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.id == %d)]".formatted(id)).exists());
+        mockMvc.perform(post("/api/default/tasks/new")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("new task"))
+                .andExpect(status().isConflict())
+                .andExpect(content().string("Task 'new task' already exists"));
+
+        awaitApplied(() -> taskJpaRepository.findById(id).isPresent());
+        mockMvc.perform(post("/api/default/tasks/new")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("new task"))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(post("/api/default/tasks/%d/stop".formatted(id)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/default/tasks/active"))
+                .andExpect(jsonPath("$[?(@.id == %d)]".formatted(id)).doesNotExist());
+        awaitApplied(() -> taskJpaRepository.findById(id).map(Task::isFinished).orElse(false));
+    }
+
+    /**
+     * Проверяется: задача, запущенная до включения журнала, завершается через журнал;
+     * ошибки завершения те же, что без журнала
+     */
+    @Test
+    public void finishTaskTest() throws Exception {
+        Task running = taskJpaRepository.findByAssigneeIdAndDescription(userId, "default task 1").orElseThrow();
+        Task finished = taskJpaRepository.findByAssigneeIdAndDescription(userId, "default task 2").orElseThrow();
+
+        mockMvc.perform(post("/api/default/tasks/%d/stop".formatted(running.getId())))
+                .andExpect(status().isOk());
+        awaitApplied(() -> taskJpaRepository.findById(running.getId()).map(Task::isFinished).orElse(false));
+
+        mockMvc.perform(post("/api/default/tasks/%d/stop".formatted(finished.getId())))
+                .andExpect(status().isInternalServerError());
+        mockMvc.perform(post("/api/default/tasks/%d/stop".formatted(Long.MAX_VALUE)))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/unknown/tasks/new")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("new task"))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Пакет задач записывается в журнал: задачи сразу видны среди активных</li>
+     *     <li>Описание, ожидающее переноса, отклоняется и в пакете</li>
+     *     <li>Удаление задач пользователя упорядочено с ожидающими переноса запусками:
+     *     после переноса задач пользователя нет ни в БД, ни среди активных</li>
+     * </ul>
+     */
+    @Test
+    public void createTasksAndClearTest() throws Exception {
+        mockMvc.perform(post("/api/default/tasks/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[\"batch task 1\", \"batch task 2\"]"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.ids.length()").value(2));
+        mockMvc.perform(post("/api/default/tasks/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[\"batch task 3\", \"batch task 1\"]"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(get("/api/default/tasks/active"))
+                .andExpect(jsonPath("$[?(@.description == 'batch task 1')]").exists())
+                .andExpect(jsonPath("$[?(@.description == 'batch task 3')]").doesNotExist());
+
+        mockMvc.perform(delete("/api/default/tasks"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/default/tasks/active"))
+                .andExpect(jsonPath("$.length()").value(0));
+        awaitApplied(() -> true);
+        assertTrue(taskJpaRepository.findByAssigneeIdAndDescription(userId, "batch task 1").isEmpty());
+        assertTrue(taskJpaRepository.findByAssigneeIdAndDescription(userId, "default task 2").isEmpty());
+        mockMvc.perform(get("/api/default/tasks/active"))
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    private void awaitApplied(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean() || taskJournal.pending() > 0) {
+            assertTrue(System.nanoTime() < deadline, "Journal events were not applied in time");
+            Thread.sleep(10);
+        }
+    }
+}
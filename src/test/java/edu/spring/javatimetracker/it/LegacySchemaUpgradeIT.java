@@ -0,0 +1,139 @@
+package edu.spring.javatimetracker.it;
+
+import edu.spring.javatimetracker.domain.Task;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Обновление базы, созданной Hibernate (ddl-auto: update) до перехода на миграции, миграциями
+ * db/migration/postgresql с настройками baseline из application.yml. Пропускается, если Docker недоступен.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public class LegacySchemaUpgradeIT {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16.2-alpine");
+
+    /**
+     * Схема, которую создавал Hibernate для исходных сущностей
+     */
+    private static final String LEGACY_SCHEMA = """
+            CREATE TABLE users (id uuid NOT NULL, firstname varchar(255) NOT NULL, lastname varchar(255) NOT NULL,
+                password varchar(255) NOT NULL, username varchar(255) NOT NULL UNIQUE, PRIMARY KEY (id));
+            CREATE TABLE task (id bigint GENERATED BY DEFAULT AS IDENTITY, description varchar(255) NOT NULL UNIQUE,
+                finished_at timestamp(6) with time zone, started_at timestamp(6) with time zone, assignee_id uuid,
+                PRIMARY KEY (id));
+            ALTER TABLE task ADD CONSTRAINT fk_task_assignee FOREIGN KEY (assignee_id) REFERENCES users;
+            """;
+
+    private static final UUID USER_ID = UUID.randomUUID();
+
+    private DriverManagerDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP SCHEMA public CASCADE; CREATE SCHEMA public");
+        jdbcTemplate.execute(LEGACY_SCHEMA);
+        jdbcTemplate.update("INSERT INTO users VALUES (?, 'test', 'test', 'password', 'username1')", USER_ID);
+        insertTask("task 1", "2000-01-01T10:00:00Z", "2000-01-01T11:00:00Z");
+        insertTask("task 2", "2000-01-01T23:30:00Z", "2000-01-02T00:30:00Z");
+        insertTask("task 3", "2000-01-03T10:00:00Z", null);
+    }
+
+    private void insertTask(String description, String startedAt, String finishedAt) {
+        jdbcTemplate.update("""
+                INSERT INTO task (description, started_at, finished_at, assignee_id)
+                VALUES (?, CAST(? AS timestamptz), CAST(? AS timestamptz), ?)
+                """, description, startedAt, finishedAt, USER_ID);
+    }
+
+    private void migrate() {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/postgresql")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .placeholders(Map.of("timezone", "UTC"))
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Миграции после baseline выполняются на старой схеме, в том числе индексы V2</li>
+     *     <li>Идентификатор задачи больше не IDENTITY, появляются последовательность и столбец длительности</li>
+     *     <li>Последовательность выдает блоки идентификаторов после существующих задач</li>
+     *     <li>Глобальный уникальный ключ описания заменяется ключом в пределах пользователя</li>
+     *     <li>Длительность сохраняется для завершенных задач</li>
+     *     <li>Агрегаты рабочего времени строятся по завершенным задачам с днями в часовом поясе приложения</li>
+     * </ul>
+     */
+    @Test
+    public void upgradeTest() {
+        migrate();
+
+        assertEquals("NO", jdbcTemplate.queryForObject(
+                "SELECT is_identity FROM information_schema.columns WHERE table_name = 'task' AND column_name = 'id'",
+                String.class));
+        assertEquals(List.of("task_assignee_duration_idx", "task_assignee_started_idx", "task_finished_at_idx",
+                        "task_missing_duration_idx", "task_running_idx"),
+                jdbcTemplate.queryForList("SELECT indexname FROM pg_indexes WHERE tablename = 'task' "
+                        + "AND indexname LIKE '%\\_idx' ORDER BY indexname", String.class));
+        Long maxId = jdbcTemplate.queryForObject("SELECT max(id) FROM task", Long.class);
+        assertTrue(jdbcTemplate.queryForObject("SELECT nextval('task_seq')", Long.class) - Task.ID_ALLOCATION_SIZE >= maxId);
+
+        UUID otherUserId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users VALUES (?, 'test', 'test', 'password', 'username2')", otherUserId);
+        jdbcTemplate.update("INSERT INTO task (id, description, assignee_id) VALUES (nextval('task_seq'), 'task 1', ?)",
+                otherUserId);
+        DuplicateKeyException duplicate = assertThrows(DuplicateKeyException.class, () -> jdbcTemplate.update(
+                "INSERT INTO task (id, description, assignee_id) VALUES (nextval('task_seq'), 'task 1', ?)", USER_ID));
+        assertTrue(duplicate.getMessage().contains(Task.DESCRIPTION_CONSTRAINT));
+
+        long hour = Duration.ofHours(1).toNanos();
+        assertEquals(Arrays.asList(hour, hour, null), jdbcTemplate.queryForList(
+                "SELECT duration_nanos FROM task WHERE assignee_id = ? ORDER BY started_at", Long.class, USER_ID));
+        assertEquals(List.of(
+                        Map.of("started_on", LocalDate.of(2000, 1, 1), "finished_on", LocalDate.of(2000, 1, 1), "total_nanos", hour),
+                        Map.of("started_on", LocalDate.of(2000, 1, 1), "finished_on", LocalDate.of(2000, 1, 2), "total_nanos", hour)),
+                jdbcTemplate.query("SELECT * FROM work_time_rollup ORDER BY finished_on", (rs, i) -> Map.of(
+                        "started_on", rs.getObject("started_on", LocalDate.class),
+                        "finished_on", rs.getObject("finished_on", LocalDate.class),
+                        "total_nanos", rs.getLong("total_nanos"))));
+    }
+
+    /**
+     * Проверяется: на пустой базе V1_1 выполняется после V1 без ошибок и ничего не добавляет
+     */
+    @Test
+    public void freshSchemaTest() {
+        jdbcTemplate.execute("DROP SCHEMA public CASCADE; CREATE SCHEMA public");
+        migrate();
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM work_time_rollup", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM flyway_schema_history WHERE NOT success", Integer.class));
+    }
+}
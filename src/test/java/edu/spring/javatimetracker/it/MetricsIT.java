@@ -0,0 +1,89 @@
+package edu.spring.javatimetracker.it;
+
+import edu.spring.javatimetracker.db.repository.TaskJpaRepository;
+import edu.spring.javatimetracker.db.repository.UserJpaRepository;
+import edu.spring.javatimetracker.domain.User;
+import edu.spring.javatimetracker.scheduler.FinishAllTasksJob;
+import edu.spring.javatimetracker.service.UserIdCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+public class MetricsIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserJpaRepository userJpaRepository;
+
+    @Autowired
+    private TaskJpaRepository taskJpaRepository;
+
+    @Autowired
+    private UserIdCache userIdCache;
+
+    @Autowired
+    private FinishAllTasksJob finishAllTasksJob;
+
+    @BeforeEach
+    public void setUp() {
+        taskJpaRepository.deleteAll();
+        userJpaRepository.deleteAll();
+        userIdCache.evictAll();
+        userJpaRepository.save(new User("default", "default", "default", "default"));
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Вызовы сервисов и репозиториев учитываются таймерами</li>
+     *     <li>Обработанные исключения и запуски задач планировщика учитываются счетчиками</li>
+     *     <li>Метрики доступны в формате Prometheus</li>
+     * </ul>
+     */
+    @Test
+    public void metricsTest() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/default/tasks/new")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("new task"));
+        }
+        finishAllTasksJob.finishAllTasks();
+
+        assertNotNull(meterRegistry.find("app.service").tag("method", "createTask").timer());
+        assertNotNull(meterRegistry.find("spring.data.repository.invocations")
+                .tag("repository", "TaskJpaRepository").timer());
+        assertEquals(1, meterRegistry.get("app.api.errors")
+                .tags("exception", "ResourceExistsException", "status", "409").counter().count());
+        assertEquals(1, meterRegistry.get("app.job.rows").tag("job", "finish-all-tasks").counter().count());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("app_service_seconds_bucket")))
+                .andExpect(content().string(containsString("app_job_duration_seconds_count{job=\"finish-all-tasks\"")))
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds_bucket")));
+    }
+}
@@ -0,0 +1,112 @@
+package edu.spring.javatimetracker.it;
+
+import edu.spring.javatimetracker.db.pool.ReplicaRoutingDataSource;
+import edu.spring.javatimetracker.db.repository.TaskJpaRepository;
+import edu.spring.javatimetracker.db.repository.UserJpaRepository;
+import edu.spring.javatimetracker.domain.Task;
+import edu.spring.javatimetracker.domain.User;
+import edu.spring.javatimetracker.service.ReportCache;
+import edu.spring.javatimetracker.service.UserIdCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Репликой служит та же база H2, открытая вторым пулом: проверяется маршрутизация, а не репликация
+ */
+@SpringBootTest(properties = {
+        "app.replica.enabled=true",
+        "app.replica.url=jdbc:h2:mem:testdb",
+        "app.replica.username=${spring.datasource.username}",
+        "app.replica.password=${spring.datasource.password}",
+        "app.replica.lag-query=SELECT 0"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ReplicaRoutingIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Autowired
+    private UserJpaRepository userJpaRepository;
+
+    @Autowired
+    private TaskJpaRepository taskJpaRepository;
+
+    @Autowired
+    private UserIdCache userIdCache;
+
+    @Autowired
+    private ReportCache reportCache;
+
+    @BeforeEach
+    public void setUp() {
+        userJpaRepository.deleteAll();
+        userIdCache.evictAll();
+        reportCache.invalidateAll();
+        taskJpaRepository.deleteAll();
+
+        User user = new User("default", "default", "default", "default");
+        user.addTask(new Task("default task",
+                OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(2000, 1, 1, 14, 30, 0, 0, ZoneOffset.UTC)));
+        userJpaRepository.save(user);
+        routingDataSource.checkReplica();
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Транзакция отчета читает с реплики, но отчет, сохраняемый в кэше отчетов, строится по основной БД</li>
+     *     <li>Создание задачи идет на основную БД</li>
+     *     <li>Решения видны в метрике app.datasource.routing</li>
+     * </ul>
+     */
+    @Test
+    public void reportsReadFromReplicaTest() throws Exception {
+        assertTrue(routingDataSource.isReplicaAvailable());
+        double replicaReads = count("replica", "read-only");
+        double primary = count("primary", "default");
+
+        mockMvc.perform(get("/api/default/tasks").param("from", "2000-01-01").param("to", "2000-01-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(1));
+        assertEquals(replicaReads + 1, count("replica", "read-only"));
+        assertTrue(count("primary", "default") > primary);
+
+        primary = count("primary", "default");
+        mockMvc.perform(post("/api/default/tasks/new")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("new task"))
+                .andExpect(status().isCreated());
+        assertTrue(count("primary", "default") > primary);
+        assertEquals(replicaReads + 1, count("replica", "read-only"));
+    }
+
+    private double count(String target, String reason) {
+        return meterRegistry.get("app.datasource.routing").tag("target", target).tag("reason", reason).counter().count();
+    }
+}
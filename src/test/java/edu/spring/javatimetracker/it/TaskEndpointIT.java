@@ -1,9 +1,12 @@
 package edu.spring.javatimetracker.it;
 
+import edu.spring.javatimetracker.command.RebuildWorkTimeRollupsCommand;
 import edu.spring.javatimetracker.db.repository.TaskJpaRepository;
 import edu.spring.javatimetracker.db.repository.UserJpaRepository;
 import edu.spring.javatimetracker.domain.Task;
 import edu.spring.javatimetracker.domain.User;
+import edu.spring.javatimetracker.service.RunningTaskRegistry;
+import edu.spring.javatimetracker.service.UserIdCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +19,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -36,9 +40,21 @@ public class TaskEndpointIT {
     @Autowired
     private TaskJpaRepository taskJpaRepository;
 
+    @Autowired
+    private RebuildWorkTimeRollupsCommand rebuildRollupsCommand;
+
+    @Autowired
+    private UserIdCache userIdCache;
+
+    private UUID userId;
+
+    @Autowired
+    private RunningTaskRegistry runningTaskRegistry;
+
     @BeforeEach
     public void setUp() {
         userJpaRepository.deleteAll();
+        userIdCache.evictAll();
         taskJpaRepository.deleteAll();
 
         User user = new User("default", "default", "default", "default");
@@ -49,7 +65,9 @@ public class TaskEndpointIT {
                 OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC),
                 OffsetDateTime.of(2000, 1, 1, 14, 30, 0, 0, ZoneOffset.UTC)));
 
-        userJpaRepository.save(user);
+        userId = userJpaRepository.save(user).getId();
+        rebuildRollupsCommand.rebuild(100);
+        runningTaskRegistry.rebuild();
     }
 
     @Test
@@ -61,24 +79,71 @@ public class TaskEndpointIT {
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.id").isNumber());
 
-        Optional<Task> task = taskJpaRepository.findByDescription("new task");
+        Optional<Task> task = taskJpaRepository.findByAssigneeIdAndDescription(userId, "new task");
         assertTrue(task.isPresent());
         assertNotNull(task.get().getStartedAt());
+
+        mockMvc.perform(post("/api/default/tasks/new")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("new task"))
+                .andExpect(status().isConflict())
+                .andExpect(content().string("Task 'new task' already exists"));
+    }
+
+    @Test
+    public void createTasksTest() throws Exception {
+        mockMvc.perform(post("/api/default/tasks/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[\"new task 1\", \"new task 2\", \"new task 3\"]"))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.ids.size()").value(3));
+
+        assertTrue(taskJpaRepository.findByAssigneeIdAndDescription(userId, "new task 3").isPresent());
+
+        mockMvc.perform(post("/api/default/tasks/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[\"new task 4\", \"default task 1\"]"))
+                .andExpect(status().isConflict());
+        assertTrue(taskJpaRepository.findByAssigneeIdAndDescription(userId, "new task 4").isEmpty());
     }
 
     @Test
     public void finishTaskTest() throws Exception {
-        Task savedTask = taskJpaRepository.findByDescription("default task 1").orElseThrow();
+        Task savedTask = taskJpaRepository.findByAssigneeIdAndDescription(userId, "default task 1").orElseThrow();
 
         mockMvc.perform(post("/api/default/tasks/" + savedTask.getId() + "/stop"))
                 .andExpect(status().isOk());
 
-        Optional<Task> task = taskJpaRepository.findByDescription("default task 1");
+        Optional<Task> task = taskJpaRepository.findByAssigneeIdAndDescription(userId, "default task 1");
         assertTrue(task.isPresent());
         assertNotNull(task.get().getStartedAt());
         assertNotNull(task.get().getFinishedAt());
     }
 
+    @Test
+    public void findActiveTasksTest() throws Exception {
+        mockMvc.perform(get("/api/default/tasks/active"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(1))
+                .andExpect(jsonPath("$[0].description").value("default task 1"))
+                .andExpect(jsonPath("$[0].startedAt").value("2000-01-01T12:00:00Z"));
+
+        mockMvc.perform(post("/api/default/tasks/new")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("new task"))
+                .andExpect(status().isCreated());
+        Task savedTask = taskJpaRepository.findByAssigneeIdAndDescription(userId, "default task 1").orElseThrow();
+        mockMvc.perform(post("/api/default/tasks/" + savedTask.getId() + "/stop"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/default/tasks/active"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(1))
+                .andExpect(jsonPath("$[0].description").value("new task"))
+                .andExpect(jsonPath("$[0].duration").value("00:00"));
+    }
+
     @Test
     public void findUserTasksTest() throws Exception {
         mockMvc.perform(get("/api/default/tasks"))
@@ -105,7 +170,74 @@ public class TaskEndpointIT {
         mockMvc.perform(get("/api/default/tasks/work-time"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$.duration").value("02:30"));
+                .andExpect(jsonPath("$.duration").value("02:30"))
+                .andExpect(jsonPath("$.effectiveDuration").doesNotExist());
+    }
+
+    /**
+     * Проверяется: задача, пересекающая полночь, делится между днями; по неделям и месяцам время суммируется
+     */
+    @Test
+    public void findUserWorkHistogramTest() throws Exception {
+        User user = new User("histogram", "histogram", "histogram", "histogram");
+        user.addTask(new Task("night task",
+                OffsetDateTime.of(2000, 1, 2, 23, 0, 0, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(2000, 1, 3, 1, 30, 0, 0, ZoneOffset.UTC)));
+        user.addTask(new Task("day task",
+                OffsetDateTime.of(2000, 1, 3, 12, 0, 0, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(2000, 1, 3, 13, 0, 0, 0, ZoneOffset.UTC)));
+        userJpaRepository.save(user);
+
+        mockMvc.perform(get("/api/histogram/tasks/work-histogram"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.size()").value(2))
+                .andExpect(jsonPath("$[0].start").value("2000-01-02"))
+                .andExpect(jsonPath("$[0].duration").value("01:00"))
+                .andExpect(jsonPath("$[1].start").value("2000-01-03"))
+                .andExpect(jsonPath("$[1].duration").value("02:30"));
+
+        mockMvc.perform(get("/api/histogram/tasks/work-histogram").param("granularity", "week"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(2))
+                .andExpect(jsonPath("$[0].start").value("1999-12-27"))
+                .andExpect(jsonPath("$[1].start").value("2000-01-03"));
+
+        mockMvc.perform(get("/api/histogram/tasks/work-histogram").param("granularity", "month"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(1))
+                .andExpect(jsonPath("$[0].start").value("2000-01-01"))
+                .andExpect(jsonPath("$[0].duration").value("03:30"));
+
+        mockMvc.perform(get("/api/histogram/tasks/work-histogram").param("granularity", "year"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Проверяется: в режиме effective время одновременно запущенных задач учитывается один раз,
+     * общее время совпадает с обычным режимом
+     */
+    @Test
+    public void findUserEffectiveWorkTimeTest() throws Exception {
+        User user = new User("overlap", "overlap", "overlap", "overlap");
+        user.addTask(new Task("task 1",
+                OffsetDateTime.of(2000, 1, 1, 10, 0, 0, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC)));
+        user.addTask(new Task("task 2",
+                OffsetDateTime.of(2000, 1, 1, 11, 0, 0, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(2000, 1, 1, 13, 0, 0, 0, ZoneOffset.UTC)));
+        user.addTask(new Task("task 3",
+                OffsetDateTime.of(2000, 1, 1, 15, 0, 0, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(2000, 1, 1, 15, 30, 0, 0, ZoneOffset.UTC)));
+        userJpaRepository.save(user);
+
+        mockMvc.perform(get("/api/overlap/tasks/work-time").param("mode", "effective"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.duration").value("04:30"))
+                .andExpect(jsonPath("$.effectiveDuration").value("03:30"));
+
+        mockMvc.perform(get("/api/overlap/tasks/work-time").param("mode", "parallel"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -0,0 +1,162 @@
+package edu.spring.javatimetracker.it;
+
+import edu.spring.javatimetracker.configuration.AppProperties;
+import edu.spring.javatimetracker.db.partition.TaskPartition;
+import edu.spring.javatimetracker.db.partition.TaskPartitionManager;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.*;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DDL секций TaskPartitionManager на PostgreSQL со схемой из миграций db/migration/partitioned.
+ * Пропускается, если Docker недоступен.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public class TaskPartitionManagerIT {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16.2-alpine");
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2000-01-15T12:00:00Z"), ZoneOffset.UTC);
+
+    private static final UUID USER_ID = UUID.randomUUID();
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    private TaskPartitionManager partitionManager;
+
+    @BeforeEach
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        Flyway flyway = Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/partitioned")
+                .cleanDisabled(false)
+                .load();
+        flyway.clean();
+        flyway.migrate();
+
+        AppProperties appProperties = new AppProperties();
+        appProperties.getPartitioning().setEnabled(true);
+        appProperties.getPartitioning().setInterval(TaskPartition.Interval.MONTH);
+        appProperties.getPartitioning().setPremade(2);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        partitionManager = new TaskPartitionManager(jdbcTemplate, transactionTemplate, appProperties, CLOCK);
+    }
+
+    private void insertTask(long id, OffsetDateTime startedAt, OffsetDateTime finishedAt) {
+        jdbcTemplate.update("INSERT INTO task (id, description, started_at, finished_at) VALUES (?, ?, ?, ?)",
+                id, "task " + id, startedAt, finishedAt);
+    }
+
+    private String partitionOf(long id) {
+        return jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM task WHERE id = ?", String.class, id);
+    }
+
+    private static OffsetDateTime time(int month, int day) {
+        return OffsetDateTime.of(2000, month, day, 10, 0, 0, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Создаются секции текущего периода и app.partitioning.premade следующих, повторно - ни одной</li>
+     *     <li>Задачи попадают в секцию своего периода</li>
+     * </ul>
+     */
+    @Test
+    public void createPartitionsTest() {
+        assertEquals(3, partitionManager.createPartitions());
+        assertEquals(0, partitionManager.createPartitions());
+
+        insertTask(1, time(1, 10), time(1, 10).plusHours(1));
+        insertTask(2, time(3, 10), null);
+        insertTask(3, time(5, 10), null);
+        assertEquals("task_p20000101", partitionOf(1));
+        assertEquals("task_p20000301", partitionOf(2));
+        assertEquals("task_default", partitionOf(3));
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Устаревшие секции отсоединяются и удаляются вместе с агрегатами за их дни</li>
+     *     <li>Секция с незавершенной задачей остается подключенной вместе с задачами и агрегатами</li>
+     * </ul>
+     */
+    @Test
+    public void dropExpiredPartitionsTest() {
+        partitionManager.createPartitions();
+        insertTask(1, time(1, 10), time(1, 10).plusHours(1));
+        insertTask(2, time(2, 10), time(2, 10).plusHours(1));
+        insertTask(3, time(2, 11), null);
+        jdbcTemplate.update("INSERT INTO work_time_rollup VALUES (?, ?, ?, 1), (?, ?, ?, 1)",
+                USER_ID, LocalDate.of(2000, 1, 10), LocalDate.of(2000, 1, 10),
+                USER_ID, LocalDate.of(2000, 2, 10), LocalDate.of(2000, 2, 10));
+
+        List<String> dropped = partitionManager.dropExpiredPartitions(time(6, 1));
+
+        assertEquals(List.of("task_p20000101", "task_p20000301"), dropped.stream().sorted().toList());
+
+        assertEquals(List.of(2L, 3L), jdbcTemplate.queryForList("SELECT id FROM task ORDER BY id", Long.class));
+        assertEquals("task_p20000201", partitionOf(3));
+        assertEquals(List.of(LocalDate.of(2000, 2, 10)),
+                jdbcTemplate.queryForList("SELECT started_on FROM work_time_rollup", LocalDate.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_class WHERE relname = 'task_p20000101'", Integer.class));
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Блокировка пользователя держится до конца транзакции: другая транзакция с тем же пользователем ждет</li>
+     *     <li>Блокировка другого пользователя не ждет</li>
+     * </ul>
+     */
+    @Test
+    public void lockAssigneesTest() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            partitionManager.lockAssignees(List.of(USER_ID));
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status ->
+                partitionManager.lockAssignees(List.of(UUID.randomUUID())))).get(5, TimeUnit.SECONDS);
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status ->
+                partitionManager.lockAssignees(List.of(UUID.randomUUID(), USER_ID))));
+        assertThrows(TimeoutException.class, () -> waiter.get(300, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        waiter.get(5, TimeUnit.SECONDS);
+    }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.spring.javatimetracker.controller.dto.UserDto;
 import edu.spring.javatimetracker.db.repository.UserJpaRepository;
 import edu.spring.javatimetracker.domain.User;
+import edu.spring.javatimetracker.service.UserIdCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,9 +36,13 @@ public class UserEndpointIT {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private UserIdCache userIdCache;
+
     @BeforeEach
     public void setUp() {
         userJpaRepository.deleteAll();
+        userIdCache.evictAll();
 
         userJpaRepository.save(new User("default", "default", "default", "default"));
     }
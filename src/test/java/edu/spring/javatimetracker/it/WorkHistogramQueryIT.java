@@ -0,0 +1,137 @@
+package edu.spring.javatimetracker.it;
+
+import edu.spring.javatimetracker.db.projection.WorkBucket;
+import edu.spring.javatimetracker.db.report.Granularity;
+import edu.spring.javatimetracker.db.report.WorkHistogramQuery;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.*;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Гистограмма рабочего времени WorkHistogramQuery на PostgreSQL: периоды строятся в БД через date_trunc и
+ * generate_series. Схема из миграций db/migration/postgresql. Пропускается, если Docker недоступен.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public class WorkHistogramQueryIT {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16.2-alpine");
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Berlin");
+
+    private static final OffsetDateTime FROM = OffsetDateTime.of(2000, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private static final OffsetDateTime TO = OffsetDateTime.of(2001, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private static final UUID USER_ID = UUID.randomUUID();
+
+    private JdbcTemplate jdbcTemplate;
+
+    private WorkHistogramQuery workHistogramQuery;
+
+    private long nextId;
+
+    @BeforeEach
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        Flyway flyway = Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/postgresql")
+                .placeholders(Map.of("timezone", ZONE.getId()))
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .cleanDisabled(false)
+                .load();
+        flyway.clean();
+        flyway.migrate();
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO users (id, username, password, firstname, lastname) VALUES (?, 'username', 'password', 'test', 'test')", USER_ID);
+        workHistogramQuery = new WorkHistogramQuery(dataSource, jdbcTemplate);
+    }
+
+    private void insertTask(ZonedDateTime startedAt, ZonedDateTime finishedAt) {
+        nextId++;
+        jdbcTemplate.update("""
+                INSERT INTO task (id, description, started_at, finished_at, assignee_id) VALUES (?, ?, ?, ?, ?)
+                """, nextId, "task " + nextId, startedAt.toOffsetDateTime(),
+                finishedAt != null ? finishedAt.toOffsetDateTime() : null, USER_ID);
+    }
+
+    private static ZonedDateTime time(int month, int day, int hour) {
+        return ZonedDateTime.of(2000, month, day, hour, 0, 0, 0, ZONE);
+    }
+
+    private Map<LocalDate, Duration> find(Granularity granularity) {
+        List<WorkBucket> buckets = workHistogramQuery.find(USER_ID, FROM, TO, granularity, ZONE);
+        Map<LocalDate, Duration> result = new LinkedHashMap<>();
+        buckets.forEach(bucket -> result.put(bucket.start(), bucket.duration()));
+        return result;
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Задача, пересекающая границу дня, делится между днями по границам в часовом поясе, а не в UTC</li>
+     *     <li>Сутки перехода на летнее время короче остальных, на зимнее - длиннее</li>
+     *     <li>Незавершенные задачи не учитываются, периоды возвращаются в порядке начала</li>
+     * </ul>
+     */
+    @Test
+    public void dayHistogramTest() {
+        insertTask(time(3, 25, 22), time(3, 27, 2));
+        insertTask(time(10, 29, 0), time(10, 30, 0));
+        insertTask(time(11, 1, 10), null);
+
+        Map<LocalDate, Duration> days = find(Granularity.DAY);
+
+        assertEquals(List.of(LocalDate.of(2000, 3, 25), LocalDate.of(2000, 3, 26), LocalDate.of(2000, 3, 27),
+                LocalDate.of(2000, 10, 29)), List.copyOf(days.keySet()));
+        assertEquals(Map.of(
+                LocalDate.of(2000, 3, 25), Duration.ofHours(2),
+                LocalDate.of(2000, 3, 26), Duration.ofHours(23),
+                LocalDate.of(2000, 3, 27), Duration.ofHours(2),
+                LocalDate.of(2000, 10, 29), Duration.ofHours(25)), days);
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Недели начинаются с понедельника, месяцы - с первого дня</li>
+     *     <li>Части разных задач в одном периоде суммируются</li>
+     *     <li>Задача, заканчивающаяся ровно на границе, не создает пустой период</li>
+     * </ul>
+     */
+    @Test
+    public void weekAndMonthHistogramTest() {
+        insertTask(time(1, 30, 23), time(1, 31, 0));
+        insertTask(time(1, 31, 0), time(2, 1, 1));
+        insertTask(time(3, 25, 22), time(3, 27, 2));
+
+        Map<LocalDate, Duration> weeks = find(Granularity.WEEK);
+        assertEquals(Map.of(
+                LocalDate.of(2000, 1, 24), Duration.ofHours(1),
+                LocalDate.of(2000, 1, 31), Duration.ofHours(25),
+                LocalDate.of(2000, 3, 20), Duration.ofHours(25),
+                LocalDate.of(2000, 3, 27), Duration.ofHours(2)), weeks);
+
+        Map<LocalDate, Duration> months = find(Granularity.MONTH);
+        assertEquals(Map.of(
+                LocalDate.of(2000, 1, 1), Duration.ofHours(25),
+                LocalDate.of(2000, 2, 1), Duration.ofHours(1),
+                LocalDate.of(2000, 3, 1), Duration.ofHours(27)), months);
+    }
+}
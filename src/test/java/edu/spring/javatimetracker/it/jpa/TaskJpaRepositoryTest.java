@@ -1,5 +1,10 @@
 package edu.spring.javatimetracker.it.jpa;
 
+import edu.spring.javatimetracker.db.bulk.TaskBulkLoader;
+import edu.spring.javatimetracker.db.projection.RunningTask;
+import edu.spring.javatimetracker.db.projection.TaskKey;
+import edu.spring.javatimetracker.db.projection.TaskTimes;
+import edu.spring.javatimetracker.db.projection.TaskView;
 import edu.spring.javatimetracker.db.repository.TaskJpaRepository;
 import edu.spring.javatimetracker.db.repository.UserJpaRepository;
 import edu.spring.javatimetracker.domain.Task;
@@ -8,14 +13,22 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.*;
+import java.util.Comparator;
 import java.util.List;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
+@Import(TaskBulkLoader.class)
 @ActiveProfiles("test")
 public class TaskJpaRepositoryTest {
 
@@ -25,6 +38,27 @@ public class TaskJpaRepositoryTest {
     @Autowired
     private UserJpaRepository userJpaRepository;
 
+    private UUID user1Id;
+
+    private UUID user2Id;
+
+    @Autowired
+    private TaskBulkLoader taskBulkLoader;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private static List<Long> taskIds(List<TaskTimes> tasks) {
+        return tasks.stream().map(TaskTimes::id).toList();
+    }
+
+    private List<TaskTimes> finish(List<TaskTimes> tasks, OffsetDateTime finishedAt) {
+        return taskBulkLoader.finish(tasks.stream().map(task -> task.finishedAt(finishedAt)).toList());
+    }
+
     @BeforeEach
     public void setUp() {
         taskJpaRepository.deleteAll();
@@ -46,8 +80,8 @@ public class TaskJpaRepositoryTest {
                 OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC),
                 OffsetDateTime.of(2000, 1, 1, 14, 0, 0, 0, ZoneOffset.UTC)));
 
-        userJpaRepository.save(user1);
-        userJpaRepository.save(user2);
+        user1Id = userJpaRepository.save(user1).getId();
+        user2Id = userJpaRepository.save(user2).getId();
     }
 
     /**
@@ -84,8 +118,8 @@ public class TaskJpaRepositoryTest {
                 .atStartOfDay(ZoneId.of("Z"))
                 .toOffsetDateTime();
 
-        List<String> actual = taskJpaRepository.findUserTasks("username1", from, to).stream()
-                .map(Task::getDescription)
+        List<String> actual = taskJpaRepository.findUserTasks(user1Id, from, to).stream()
+                .map(TaskView::description)
                 .toList();
 
         assertEquals(2, actual.size());
@@ -105,10 +139,10 @@ public class TaskJpaRepositoryTest {
             user.addTask(new Task("not started task"));
         });
 
-        List<Task> actual = taskJpaRepository.findUserTasks("username2", OffsetDateTime.MIN, OffsetDateTime.MAX);
+        List<TaskView> actual = taskJpaRepository.findUserTasks(user2Id, OffsetDateTime.MIN, OffsetDateTime.MAX);
 
         assertEquals(1, actual.size());
-        assertEquals("test task 4", actual.getFirst().getDescription());
+        assertEquals("test task 4", actual.getFirst().description());
     }
 
     /**
@@ -123,14 +157,55 @@ public class TaskJpaRepositoryTest {
                 .atStartOfDay(ZoneId.of("Z"))
                 .toOffsetDateTime();
 
-        List<String> actual = taskJpaRepository.findUserIntervals("username1", from, to).stream()
-                .map(Task::getDescription)
+        List<String> actual = taskJpaRepository.findUserIntervals(user1Id, from, to).stream()
+                .map(TaskView::description)
                 .toList();
 
         assertEquals(2, actual.size());
         assertIterableEquals(List.of("test task 1", "test task 2"), actual);
     }
 
+    /**
+     * Проверяется: страницы по курсору не пересекаются и вместе дают полный упорядоченный список
+     */
+    @Test
+    public void findUserTasksAfterTest() {
+        OffsetDateTime from = OffsetDateTime.of(2000, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime to = OffsetDateTime.of(2000, 1, 3, 0, 0, 0, 0, ZoneOffset.UTC);
+
+        List<TaskView> first = taskJpaRepository.findUserTasksAfter(user1Id, from, to,
+                Long.MAX_VALUE, Long.MIN_VALUE, PageRequest.ofSize(2));
+        TaskView last = first.getLast();
+        List<TaskView> second = taskJpaRepository.findUserTasksAfter(user1Id, from, to,
+                last.duration().toNanos(), last.id(), PageRequest.ofSize(2));
+
+        assertIterableEquals(List.of("test task 2", "test task 1"), first.stream().map(TaskView::description).toList());
+        assertIterableEquals(List.of("test task 3"), second.stream().map(TaskView::description).toList());
+    }
+
+    /**
+     * Проверяется: страницы интервалов по курсору, включая задачи с одинаковым началом
+     */
+    @Test
+    public void findUserIntervalsAfterTest() {
+        userJpaRepository.findByUsername("username1").ifPresent(user -> {
+            user.addTask(new Task("test task 5",
+                    OffsetDateTime.of(2000, 1, 1, 16, 0, 0, 0, ZoneOffset.UTC),
+                    OffsetDateTime.of(2000, 1, 1, 17, 0, 0, 0, ZoneOffset.UTC)));
+        });
+        OffsetDateTime from = OffsetDateTime.of(2000, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime to = OffsetDateTime.of(2000, 1, 3, 0, 0, 0, 0, ZoneOffset.UTC);
+
+        List<TaskView> first = taskJpaRepository.findUserIntervalsAfter(user1Id, from, to,
+                from, Long.MIN_VALUE, PageRequest.ofSize(2));
+        TaskView last = first.getLast();
+        List<TaskView> second = taskJpaRepository.findUserIntervalsAfter(user1Id, from, to,
+                last.startedAt(), last.id(), PageRequest.ofSize(2));
+
+        assertIterableEquals(List.of("test task 1", "test task 2"), first.stream().map(TaskView::description).toList());
+        assertIterableEquals(List.of("test task 5", "test task 3"), second.stream().map(TaskView::description).toList());
+    }
+
     /**
      * Проверяется:
      * <ul>
@@ -152,7 +227,7 @@ public class TaskJpaRepositoryTest {
                 .atStartOfDay(ZoneId.of("Z"))
                 .toOffsetDateTime();
 
-        Duration actual = Duration.ofNanos(taskJpaRepository.getUserTimeSum("username1", from, to));
+        Duration actual = Duration.ofNanos(taskJpaRepository.getUserTimeSum(user1Id, from, to));
 
         assertEquals(Duration.ofHours(6), actual);
     }
@@ -163,14 +238,158 @@ public class TaskJpaRepositoryTest {
     @Test
     public void deleteUserTasksTest() {
         assertEquals(3, taskJpaRepository
-                .findUserTasks("username1", OffsetDateTime.MIN, OffsetDateTime.MAX).size());
+                .findUserTasks(user1Id, OffsetDateTime.MIN, OffsetDateTime.MAX).size());
 
-        taskJpaRepository.deleteUserTasks("username1");
+        taskJpaRepository.deleteUserTasks(user1Id);
 
         assertTrue(taskJpaRepository
-                .findUserTasks("username1", OffsetDateTime.MIN, OffsetDateTime.MAX).isEmpty());
+                .findUserTasks(user1Id, OffsetDateTime.MIN, OffsetDateTime.MAX).isEmpty());
 
         assertEquals(1, taskJpaRepository
-                .findUserTasks("username2", OffsetDateTime.MIN, OffsetDateTime.MAX).size());
+                .findUserTasks(user2Id, OffsetDateTime.MIN, OffsetDateTime.MAX).size());
+    }
+
+    /**
+     * Проверяется: возвращаются только описания, занятые задачами указанного пользователя
+     */
+    @Test
+    public void findExistingDescriptionsTest() {
+        List<String> actual = taskJpaRepository.findExistingDescriptions(user1Id,
+                List.of("test task 1", "test task 4", "new task"));
+
+        assertEquals(List.of("test task 1"), actual);
+        assertEquals(List.of(new TaskKey(user1Id, "test task 1"), new TaskKey(user2Id, "test task 4")),
+                taskJpaRepository.findExistingKeys(List.of(user1Id, user2Id), List.of("test task 1", "test task 4"))
+                        .stream().sorted(Comparator.comparing(TaskKey::description)).toList());
+    }
+
+    /**
+     * Проверяется: описание уникально в пределах задач пользователя, но может повторяться у разных пользователей
+     */
+    @Test
+    public void descriptionUniquePerUserTest() {
+        taskJpaRepository.saveAndFlush(new Task("test task 1", userJpaRepository.getReferenceById(user2Id)));
+        assertTrue(taskJpaRepository.existsByAssigneeIdAndDescription(user2Id, "test task 1"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> taskJpaRepository.saveAndFlush(
+                new Task("test task 1", userJpaRepository.getReferenceById(user1Id))));
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Выбираются только запущенные и не завершенные задачи</li>
+     *     <li>Завершаются только выбранные задачи</li>
+     * </ul>
+     */
+    @Test
+    public void finishRunningTasksTest() {
+        userJpaRepository.findByUsername("username2").ifPresent(user -> {
+            user.addTask(new Task("running task 1",
+                    OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC), null));
+            user.addTask(new Task("running task 2",
+                    OffsetDateTime.of(2000, 1, 1, 13, 0, 0, 0, ZoneOffset.UTC), null));
+            user.addTask(new Task("not started task"));
+        });
+        OffsetDateTime finishedAt = OffsetDateTime.of(2000, 1, 1, 23, 59, 0, 0, ZoneOffset.UTC);
+
+        List<TaskTimes> tasks = taskJpaRepository.findRunningTasks(PageRequest.ofSize(1));
+        assertEquals(1, tasks.size());
+        assertEquals(1, finish(tasks, finishedAt).size());
+
+        tasks = taskJpaRepository.findRunningTasks(PageRequest.ofSize(10));
+        assertEquals(1, tasks.size());
+        assertEquals(1, finish(tasks, finishedAt).size());
+        assertTrue(finish(tasks, finishedAt).isEmpty());
+        entityManager.clear();
+
+        assertTrue(taskJpaRepository.findRunningTasks(PageRequest.ofSize(10)).isEmpty());
+        Task finished = taskJpaRepository.findByAssigneeIdAndDescription(user2Id, "running task 1").orElseThrow();
+        assertEquals(finishedAt.toInstant(), finished.getFinishedAt().toInstant());
+        assertEquals(Duration.ofHours(11).plusMinutes(59).toNanos(), finished.getDurationNanos());
+        assertNull(taskJpaRepository.findByAssigneeIdAndDescription(user2Id, "not started task").orElseThrow().getFinishedAt());
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Задачи длиннее идут раньше, при равной длительности - по идентификатору</li>
+     *     <li>Длительность задач, завершенных до появления столбца, сохраняется порциями</li>
+     * </ul>
+     */
+    @Test
+    public void storeDurationsTest() {
+        OffsetDateTime from = OffsetDateTime.of(2000, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime to = OffsetDateTime.of(2000, 1, 3, 0, 0, 0, 0, ZoneOffset.UTC);
+        assertTrue(taskJpaRepository.findTasksWithoutDuration(PageRequest.ofSize(10)).isEmpty());
+        jdbcTemplate.update("UPDATE task SET duration_nanos = NULL WHERE assignee_id = ?", user1Id);
+
+        List<TaskTimes> tasks = taskJpaRepository.findTasksWithoutDuration(PageRequest.ofSize(2));
+        assertEquals(2, tasks.size());
+        assertEquals(2, taskBulkLoader.storeDurations(tasks).size());
+        tasks = taskJpaRepository.findTasksWithoutDuration(PageRequest.ofSize(2));
+        assertEquals(1, tasks.size());
+        assertEquals(1, taskBulkLoader.storeDurations(tasks).size());
+        assertTrue(taskJpaRepository.findTasksWithoutDuration(PageRequest.ofSize(2)).isEmpty());
+
+        List<String> actual = taskJpaRepository.findUserTasks(user1Id, from, to).stream()
+                .map(TaskView::description)
+                .toList();
+        assertIterableEquals(List.of("test task 2", "test task 1", "test task 3"), actual);
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Порции запущенных задач выбираются по возрастанию идентификатора после заданного</li>
+     *     <li>Из списка идентификаторов остаются только запущенные задачи</li>
+     * </ul>
+     */
+    @Test
+    public void findRunningTasksAfterTest() {
+        userJpaRepository.findByUsername("username2").ifPresent(user -> {
+            user.addTask(new Task("running task 1",
+                    OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC), null));
+            user.addTask(new Task("running task 2",
+                    OffsetDateTime.of(2000, 1, 1, 13, 0, 0, 0, ZoneOffset.UTC), null));
+            user.addTask(new Task("not started task"));
+        });
+        taskJpaRepository.flush();
+
+        List<RunningTask> first = taskJpaRepository.findRunningTasksAfter(0, PageRequest.ofSize(1));
+        assertEquals(1, first.size());
+        assertEquals(user2Id, first.get(0).assigneeId());
+        List<RunningTask> second = taskJpaRepository.findRunningTasksAfter(first.get(0).id(), PageRequest.ofSize(10));
+        assertEquals(List.of("running task 2"), second.stream().map(RunningTask::description).toList());
+
+        Long finishedId = taskJpaRepository.findByAssigneeIdAndDescription(user1Id, "test task 1").orElseThrow().getId();
+        assertEquals(List.of(second.get(0).id()),
+                taskIds(taskJpaRepository.findRunningTasks(List.of(second.get(0).id(), finishedId))));
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Выбираются только задачи, завершенные раньше границы, начиная с самых старых</li>
+     *     <li>Незавершенные задачи не удаляются</li>
+     * </ul>
+     */
+    @Test
+    public void deleteFinishedBeforeTest() {
+        userJpaRepository.findByUsername("username2").ifPresent(user -> {
+            user.addTask(new Task("running task",
+                    OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC), null));
+        });
+        OffsetDateTime threshold = OffsetDateTime.of(2000, 1, 1, 21, 0, 0, 0, ZoneOffset.UTC);
+
+        List<Long> ids = taskIds(taskJpaRepository.findFinishedBefore(threshold, PageRequest.ofSize(10)));
+        assertEquals(3, ids.size());
+        assertEquals(3, taskJpaRepository.deleteTasks(ids));
+
+        assertTrue(taskJpaRepository.findFinishedBefore(threshold, PageRequest.ofSize(10)).isEmpty());
+        assertEquals(List.of("test task 3", "running task"), taskJpaRepository.findAll().stream()
+                .map(Task::getDescription)
+                .sorted(Comparator.reverseOrder())
+                .toList());
     }
 }
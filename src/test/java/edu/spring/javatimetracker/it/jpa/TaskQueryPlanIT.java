@@ -0,0 +1,70 @@
+package edu.spring.javatimetracker.it.jpa;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Проверки {@link TaskQueryPlanTest} на PostgreSQL со схемой из миграций db/migration/postgresql, в том числе
+ * с INCLUDE и частичными индексами. Таблица в тесте маленькая, и PostgreSQL читал бы ее целиком при любых
+ * индексах, поэтому полный обход запрещается (enable_seqscan): он остается в плане, только если ни один
+ * индекс не подходит. План строится общий (plan_cache_mode = force_generic_plan), не зависящий от значений
+ * параметров. Пропускается, если Docker недоступен.
+ */
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+public class TaskQueryPlanIT extends TaskQueryPlanTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16.2-alpine");
+
+    private static final Pattern FULL_SCAN = Pattern.compile("Seq Scan on task\\b");
+
+    private static final Pattern PARAMETER = Pattern.compile("\\?");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.flyway.locations", () -> "classpath:db/migration/postgresql");
+    }
+
+    @BeforeEach
+    public void setUpPlanner() {
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+        jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+    }
+
+    @Override
+    protected boolean isFullScan(String plan) {
+        return FULL_SCAN.matcher(plan).find();
+    }
+
+    /**
+     * План запроса, подготовленного с параметрами $1..$n; значения параметров на общий план не влияют
+     */
+    @Override
+    protected String explain(String sql) {
+        AtomicInteger parameters = new AtomicInteger();
+        jdbcTemplate.execute("PREPARE plan_query AS "
+                + PARAMETER.matcher(sql).replaceAll(match -> "\\$" + parameters.incrementAndGet()));
+        try {
+            String arguments = parameters.get() == 0 ? ""
+                    : "(" + String.join(", ", Collections.nCopies(parameters.get(), "NULL")) + ")";
+            return String.join("\n", jdbcTemplate.queryForList("EXPLAIN EXECUTE plan_query" + arguments, String.class));
+        } finally {
+            jdbcTemplate.execute("DEALLOCATE plan_query");
+        }
+    }
+}
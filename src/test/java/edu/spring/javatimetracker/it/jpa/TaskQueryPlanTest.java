@@ -0,0 +1,188 @@
+package edu.spring.javatimetracker.it.jpa;
+
+import edu.spring.javatimetracker.db.repository.TaskJpaRepository;
+import edu.spring.javatimetracker.db.repository.UserJpaRepository;
+import edu.spring.javatimetracker.domain.Task;
+import edu.spring.javatimetracker.domain.User;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Планы запросов TaskJpaRepository на схеме из миграций db/migration/h2. SQL запроса перехватывается
+ * при выполнении и передается в EXPLAIN; тест падает, если таблица читается целиком. Те же проверки на
+ * PostgreSQL и его наборе индексов выполняет {@link TaskQueryPlanIT}. Не проверяется
+ * findByAssigneeIdAndDescription - он используется только тестами.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "edu.spring.javatimetracker.it.jpa.TaskQueryPlanTest$RecordingInspector")
+@ActiveProfiles("test")
+public class TaskQueryPlanTest {
+
+    private static final int USERS = 20;
+
+    private static final int TASKS_PER_USER = 50;
+
+    /**
+     * Обращение к таблице без условия индекса: в плане H2 это комментарий только с именем таблицы или индекса,
+     * например PUBLIC.TASK.tableScan или PUBLIC.PRIMARY_KEY_2 (полный обход по первичному ключу)
+     */
+    private static final Pattern FULL_SCAN = Pattern.compile("/\\* [\\w.]+ \\*/");
+
+    private static final OffsetDateTime FROM = OffsetDateTime.of(2000, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private static final OffsetDateTime TO = OffsetDateTime.of(2000, 2, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private TaskJpaRepository taskJpaRepository;
+
+    @Autowired
+    private UserJpaRepository userJpaRepository;
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private UUID userId;
+
+    /**
+     * Запоминает SQL, который Hibernate отправляет в БД
+     */
+    public static class RecordingInspector implements StatementInspector {
+
+        private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = new User("username" + i, "password", "test", "test");
+            for (int j = 0; j < TASKS_PER_USER; j++) {
+                OffsetDateTime startedAt = FROM.plusHours(j * 12L);
+                user.addTask(new Task("task " + j, startedAt, j % 10 == 0 ? null : startedAt.plusMinutes(j + 1)));
+            }
+            users.add(user);
+        }
+        userId = userJpaRepository.saveAll(users).getFirst().getId();
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Проверяется: отчеты по пользователю и периоду читают задачи по индексам на assignee_id
+     */
+    @Test
+    public void reportQueriesTest() {
+        assertIndexScan(() -> taskJpaRepository.findUserTasks(userId, FROM, TO));
+        assertIndexScan(() -> taskJpaRepository.findUserIntervals(userId, FROM, TO));
+        assertIndexScan(() -> taskJpaRepository.findUserTasksAfter(userId, FROM, TO,
+                Long.MAX_VALUE, Long.MIN_VALUE, PageRequest.ofSize(10)));
+        assertIndexScan(() -> taskJpaRepository.findUserIntervalsAfter(userId, FROM, TO,
+                FROM, Long.MIN_VALUE, PageRequest.ofSize(10)));
+        assertIndexScan(() -> {
+            try (var tasks = taskJpaRepository.streamUserTasks(userId, FROM, TO)) {
+                tasks.forEach(task -> { });
+            }
+        });
+        assertIndexScan(() -> {
+            try (var intervals = taskJpaRepository.streamUserIntervals(userId, FROM, TO)) {
+                intervals.forEach(task -> { });
+            }
+        });
+        assertIndexScan(() -> taskJpaRepository.getUserTimeSum(userId, FROM, TO));
+    }
+
+    /**
+     * Проверяется: запущенные задачи ищутся по индексу на finished_at или по первичному ключу
+     */
+    @Test
+    public void runningTaskQueriesTest() {
+        assertIndexScan(() -> taskJpaRepository.findRunningTasks(PageRequest.ofSize(10)));
+        assertIndexScan(() -> taskJpaRepository.findRunningTasks(List.of(1L, 2L)));
+        assertIndexScan(() -> taskJpaRepository.findRunningTasksAfter(0, PageRequest.ofSize(10)));
+        assertIndexScan(() -> taskJpaRepository.findExistingIds(List.of(1L, 2L)));
+    }
+
+    /**
+     * Проверяется: запросы фоновых задач (удаление устаревших, пересчет агрегатов, заполнение длительности)
+     * выбирают порции по индексам
+     */
+    @Test
+    public void maintenanceQueriesTest() {
+        assertIndexScan(() -> taskJpaRepository.findFinishedBefore(FROM, PageRequest.ofSize(10)));
+        assertIndexScan(() -> taskJpaRepository.findFinishedTasks(0, PageRequest.ofSize(10)));
+        assertIndexScan(() -> taskJpaRepository.findTasksWithoutDuration(PageRequest.ofSize(10)));
+        assertIndexScan(() -> taskJpaRepository.deleteTasks(List.of(Long.MAX_VALUE)));
+        assertIndexScan(() -> taskJpaRepository.deleteUserTasks(UUID.randomUUID()));
+    }
+
+    /**
+     * Проверяется: проверки занятости описания используют ограничение уникальности (assignee_id, description)
+     */
+    @Test
+    public void descriptionQueriesTest() {
+        assertIndexScan(() -> taskJpaRepository.existsByAssigneeIdAndDescription(userId, "task 1"));
+        assertIndexScan(() -> taskJpaRepository.findExistingDescriptions(userId, List.of("task 1", "task 2")));
+        assertIndexScan(() -> taskJpaRepository.findExistingKeys(List.of(userId), List.of("task 1", "task 2")));
+    }
+
+    private void assertIndexScan(Runnable query) {
+        RecordingInspector.statements.clear();
+        query.run();
+        List<String> statements = RecordingInspector.statements.stream()
+                .filter(sql -> sql.contains(" task "))
+                .toList();
+        assertFalse(statements.isEmpty(), "Query did not read the task table");
+        for (String sql : statements) {
+            String plan = explain(sql);
+            assertFalse(isFullScan(plan), () -> "Full scan of the task table:\n" + plan);
+        }
+    }
+
+    protected boolean isFullScan(String plan) {
+        return FULL_SCAN.matcher(plan).find();
+    }
+
+    /**
+     * План запроса с параметрами; план H2 строится при подготовке запроса и от значений параметров не зависит
+     */
+    protected String explain(String sql) {
+        return jdbcTemplate.query("EXPLAIN " + sql, statement -> {
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setObject(i, null);
+            }
+        }, result -> {
+            StringBuilder plan = new StringBuilder();
+            while (result.next()) {
+                plan.append(result.getString(1)).append('\n');
+            }
+            return plan.toString();
+        });
+    }
+}
@@ -0,0 +1,96 @@
+package edu.spring.javatimetracker.it.jpa;
+
+import edu.spring.javatimetracker.db.projection.TaskView;
+import edu.spring.javatimetracker.db.repository.TaskJpaRepository;
+import edu.spring.javatimetracker.db.repository.UserJpaRepository;
+import edu.spring.javatimetracker.domain.Task;
+import edu.spring.javatimetracker.domain.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Проверяется число запросов и загруженных сущностей при построении отчетов
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+public class TaskReportQueriesTest {
+
+    private static final int TASKS = 20;
+
+    @Autowired
+    private TaskJpaRepository taskJpaRepository;
+
+    @Autowired
+    private UserJpaRepository userJpaRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private UUID userId;
+
+    @BeforeEach
+    public void setUp() {
+        User user = new User("username", "password", "test", "test");
+        for (int i = 0; i < TASKS; i++) {
+            user.addTask(new Task("task " + i,
+                    OffsetDateTime.of(2000, 1, 1, 0, i, 0, 0, ZoneOffset.UTC),
+                    OffsetDateTime.of(2000, 1, 1, 1, i * 2, 0, 0, ZoneOffset.UTC)));
+        }
+        userId = userJpaRepository.save(user).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Отчет строится одним запросом</li>
+     *     <li>Сущности задач и пользователей не загружаются, таблица users не соединяется</li>
+     *     <li>Длительность вычисляется в БД</li>
+     * </ul>
+     */
+    @Test
+    public void findUserTasksTest() {
+        List<TaskView> actual = taskJpaRepository.findUserTasks(userId, OffsetDateTime.MIN, OffsetDateTime.MAX);
+
+        assertEquals(TASKS, actual.size());
+        assertEquals(Duration.ofMinutes(60 + TASKS - 1), actual.getFirst().duration());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    /**
+     * Проверяется: загрузка задачи не загружает ответственного
+     */
+    @Test
+    public void lazyAssigneeTest() {
+        List<Task> tasks = taskJpaRepository.findAll();
+
+        assertEquals(TASKS, tasks.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(TASKS, statistics.getEntityLoadCount());
+    }
+}
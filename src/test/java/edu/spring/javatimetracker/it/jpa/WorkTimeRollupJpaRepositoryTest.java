@@ -0,0 +1,117 @@
+package edu.spring.javatimetracker.it.jpa;
+
+import edu.spring.javatimetracker.db.bulk.WorkTimeRollupWriter;
+import edu.spring.javatimetracker.db.projection.UserTimeSum;
+import edu.spring.javatimetracker.db.repository.UserJpaRepository;
+import edu.spring.javatimetracker.db.repository.WorkTimeRollupJpaRepository;
+import edu.spring.javatimetracker.domain.User;
+import edu.spring.javatimetracker.domain.WorkTimeRollupId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(WorkTimeRollupWriter.class)
+@ActiveProfiles("test")
+public class WorkTimeRollupJpaRepositoryTest {
+
+    @Autowired
+    private WorkTimeRollupJpaRepository rollupJpaRepository;
+
+    @Autowired
+    private UserJpaRepository userJpaRepository;
+
+    @Autowired
+    private WorkTimeRollupWriter rollupWriter;
+
+    private UUID userId;
+
+    private void add(UUID assigneeId, LocalDate startedOn, LocalDate finishedOn, long nanos) {
+        rollupWriter.add(Map.of(new WorkTimeRollupId(assigneeId, startedOn, finishedOn), nanos));
+    }
+
+    @BeforeEach
+    public void setUp() {
+        rollupJpaRepository.deleteAll();
+        userJpaRepository.deleteAll();
+
+        userId = userJpaRepository.save(new User("username1", "password", "test", "test")).getId();
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Агрегат создается при первом добавлении и увеличивается при следующих</li>
+     *     <li>Сумма фильтруется по дням начала и завершения</li>
+     * </ul>
+     */
+    @Test
+    public void addAndSumTest() {
+        LocalDate day1 = LocalDate.of(2000, 1, 1);
+        LocalDate day2 = LocalDate.of(2000, 1, 2);
+        add(userId, day1, day1, Duration.ofHours(2).toNanos());
+        add(userId, day1, day1, Duration.ofHours(1).toNanos());
+        add(userId, day1, day2, Duration.ofHours(4).toNanos());
+        add(userId, day2, day2, Duration.ofHours(8).toNanos());
+
+        assertEquals(3, rollupJpaRepository.count());
+        assertEquals(Duration.ofHours(3).toNanos(),
+                rollupJpaRepository.getUserTimeSum(userId, day1, day2));
+        assertEquals(Duration.ofHours(15).toNanos(),
+                rollupJpaRepository.getUserTimeSum(userId, day1, day2.plusDays(1)));
+        assertNull(rollupJpaRepository.getUserTimeSum(UUID.randomUUID(), day1, day2.plusDays(1)));
+    }
+
+    /**
+     * Проверяется: время нескольких пользователей суммируется одним запросом с теми же границами периода,
+     * пользователи без агрегатов за период в результат не попадают
+     */
+    @Test
+    public void usersTimeSumsTest() {
+        UUID otherId = userJpaRepository.save(new User("username2", "password", "test", "test")).getId();
+        LocalDate day1 = LocalDate.of(2000, 1, 1);
+        LocalDate day2 = LocalDate.of(2000, 1, 2);
+        add(userId, day1, day1, Duration.ofHours(2).toNanos());
+        add(userId, day1, day1, Duration.ofHours(1).toNanos());
+        add(userId, day1, day2, Duration.ofHours(4).toNanos());
+        add(otherId, day1, day1, Duration.ofHours(5).toNanos());
+        add(otherId, day2, day2, Duration.ofHours(8).toNanos());
+
+        List<UserTimeSum> sums = rollupJpaRepository.getUsersTimeSums(List.of(userId, otherId, UUID.randomUUID()), day1, day2);
+        assertEquals(2, sums.size());
+        assertTrue(sums.contains(new UserTimeSum(userId, Duration.ofHours(3).toNanos())));
+        assertTrue(sums.contains(new UserTimeSum(otherId, Duration.ofHours(5).toNanos())));
+
+        assertEquals(List.of(new UserTimeSum(otherId, Duration.ofHours(8).toNanos())),
+                rollupJpaRepository.getUsersTimeSums(List.of(userId, otherId), day2, day2.plusDays(1)));
+    }
+
+    /**
+     * Проверяется: удаляются только опустевшие агрегаты и все агрегаты пользователя
+     */
+    @Test
+    public void deleteTest() {
+        LocalDate day1 = LocalDate.of(2000, 1, 1);
+        LocalDate day2 = LocalDate.of(2000, 1, 2);
+        add(userId, day1, day1, Duration.ofHours(2).toNanos());
+        add(userId, day2, day2, Duration.ofHours(1).toNanos());
+        add(userId, day1, day1, -Duration.ofHours(2).toNanos());
+
+        rollupJpaRepository.deleteEmpty(List.of(userId));
+        assertEquals(1, rollupJpaRepository.count());
+
+        rollupJpaRepository.deleteUserRollups(userId);
+        assertEquals(0, rollupJpaRepository.count());
+    }
+}
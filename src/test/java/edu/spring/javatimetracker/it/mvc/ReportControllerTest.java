@@ -0,0 +1,76 @@
+package edu.spring.javatimetracker.it.mvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.spring.javatimetracker.controller.ReportController;
+import edu.spring.javatimetracker.service.TaskService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ReportController.class)
+public class ReportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private TaskService taskService;
+
+    @Test
+    public void whenCorrectRequest_returnUsersWorkTime() throws Exception {
+        Map<String, Duration> workTime = new LinkedHashMap<>();
+        workTime.put("user2", Duration.ofMinutes(90));
+        workTime.put("user1", Duration.ZERO);
+        when(taskService.findUsersWorkTime(any(), eq(LocalDate.of(2000, 1, 1)), isNull())).thenReturn(workTime);
+
+        mockMvc.perform(post("/api/reports/work-time?from=2000-01-01")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of("user2", "user1", "user2"))))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.size()").value(2))
+                .andExpect(jsonPath("$[0].username").value("user2"))
+                .andExpect(jsonPath("$[0].duration").value("01:30"))
+                .andExpect(jsonPath("$[1].username").value("user1"))
+                .andExpect(jsonPath("$[1].duration").value("00:00"));
+        verify(taskService).findUsersWorkTime(Set.of("user1", "user2"), LocalDate.of(2000, 1, 1), null);
+    }
+
+    @Test
+    public void findUsersWorkTime_whenValidationErrors_returnBadRequest() throws Exception {
+        mockMvc.perform(post("/api/reports/work-time")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(400));
+
+        mockMvc.perform(post("/api/reports/work-time")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                Collections.nCopies(ReportController.MAX_USERS + 1, "user"))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(400));
+    }
+}
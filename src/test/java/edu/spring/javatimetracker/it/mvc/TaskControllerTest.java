@@ -2,8 +2,13 @@ package edu.spring.javatimetracker.it.mvc;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.spring.javatimetracker.controller.TaskController;
+import edu.spring.javatimetracker.db.projection.TaskView;
+import edu.spring.javatimetracker.db.projection.WorkBucket;
+import edu.spring.javatimetracker.db.report.Granularity;
 import edu.spring.javatimetracker.domain.Task;
 import edu.spring.javatimetracker.service.TaskService;
+import edu.spring.javatimetracker.util.pagination.KeysetCursor;
+import edu.spring.javatimetracker.util.pagination.KeysetPage;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -12,12 +17,16 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -63,6 +72,39 @@ public class TaskControllerTest {
                 .andExpect(jsonPath("$.details").value("Validation errors: \nsize must be between 0 and 255\nmust not be blank"));
     }
 
+    @Test
+    public void whenCorrectRequest_createTasksAndReturnIds() throws Exception {
+        Task task1 = new Task("task 1");
+        task1.setId(1L);
+        Task task2 = new Task("task 2");
+        task2.setId(2L);
+        when(taskService.createTasks("default", List.of("task 1", "task 2"))).thenReturn(List.of(task1, task2));
+
+        mockMvc.perform(post("/api/default/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of("task 1", "task 2"))))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.ids[0]").value(1))
+                .andExpect(jsonPath("$.ids[1]").value(2));
+    }
+
+    @Test
+    public void createTasks_whenValidationErrors_returnBadRequest() throws Exception {
+        mockMvc.perform(post("/api/default/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(400))
+                .andExpect(jsonPath("$.details").value("Validation errors: \nmust not be empty"));
+
+        mockMvc.perform(post("/api/default/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"task\", \" \"]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.details").value("Validation errors: \nmust not be blank"));
+    }
+
     @Test
     public void whenCorrectRequest_finishTask() throws Exception {
         mockMvc.perform(post("/api/default/tasks/1/stop"))
@@ -73,10 +115,9 @@ public class TaskControllerTest {
 
     @Test
     public void whenCorrectRequest_returnUserTasks() throws Exception {
-        Task task = new Task("new task",
+        TaskView task = new TaskView(1L, "new task",
                 OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC),
-                OffsetDateTime.of(2000, 1, 1, 14, 0, 0, 0, ZoneOffset.UTC));
-        task.setId(1L);
+                OffsetDateTime.of(2000, 1, 1, 14, 0, 0, 0, ZoneOffset.UTC), Duration.ofHours(2));
         when(taskService.findUserTasks(eq("default"), any(), any())).thenReturn(List.of(task));
 
         mockMvc.perform(get("/api/default/tasks"))
@@ -101,6 +142,50 @@ public class TaskControllerTest {
                 .andExpect(jsonPath("$[0].duration").value("02:00"));
     }
 
+    @Test
+    public void whenPageRequested_returnUserTasksAndNextCursor() throws Exception {
+        TaskView task = new TaskView(1L, "new task",
+                OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(2000, 1, 1, 14, 0, 0, 0, ZoneOffset.UTC), Duration.ofHours(2));
+        KeysetCursor after = new KeysetCursor(Duration.ofHours(3).toNanos(), 5L);
+        KeysetCursor next = new KeysetCursor(Duration.ofHours(2).toNanos(), 1L);
+        when(taskService.findUserTasks(eq("default"), any(), any(), eq(after), eq(1)))
+                .thenReturn(new KeysetPage<>(List.of(task), next));
+
+        mockMvc.perform(get("/api/default/tasks?limit=1&after=" + after.encode()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(TaskController.NEXT_CURSOR_HEADER, next.encode()))
+                .andExpect(jsonPath("$.size()").value(1))
+                .andExpect(jsonPath("$[0].duration").value("02:00"));
+    }
+
+    @Test
+    public void whenLastPageRequested_returnUserIntervalsWithoutCursor() throws Exception {
+        TaskView task = new TaskView(1L, "new task",
+                OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(2000, 1, 1, 14, 0, 0, 0, ZoneOffset.UTC), Duration.ofHours(2));
+        when(taskService.findUserIntervals(eq("default"), any(), any(), eq(null), eq(10)))
+                .thenReturn(new KeysetPage<>(List.of(task), null));
+
+        mockMvc.perform(get("/api/default/tasks/work-intervals?limit=10"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(TaskController.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$.size()").value(1))
+                .andExpect(jsonPath("$[0].startedAt").value("2000-01-01T12:00:00Z"));
+    }
+
+    @Test
+    public void findUserTasks_whenInvalidPage_returnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/default/tasks?after=not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(400))
+                .andExpect(jsonPath("$.details").value("Invalid page cursor 'not-a-cursor'"));
+
+        mockMvc.perform(get("/api/default/tasks?limit=0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(400));
+    }
+
     @Test
     public void findUserTasks_whenValidationErrors_returnBadRequest() throws Exception {
         mockMvc.perform(get("/api/ /tasks"))
@@ -114,10 +199,9 @@ public class TaskControllerTest {
 
     @Test
     public void whenCorrectRequest_returnUserIntervals() throws Exception {
-        Task task = new Task("new task",
+        TaskView task = new TaskView(1L, "new task",
                 OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC),
-                OffsetDateTime.of(2000, 1, 1, 14, 0, 0, 0, ZoneOffset.UTC));
-        task.setId(1L);
+                OffsetDateTime.of(2000, 1, 1, 14, 0, 0, 0, ZoneOffset.UTC), Duration.ofHours(2));
         when(taskService.findUserIntervals(eq("default"), any(), any())).thenReturn(List.of(task));
 
         mockMvc.perform(get("/api/default/tasks/work-intervals"))
@@ -145,6 +229,53 @@ public class TaskControllerTest {
                 .andExpect(jsonPath("$[0].finishedAt").value("2000-01-01T14:00:00Z"));
     }
 
+    @Test
+    public void whenNdjsonRequested_streamUserIntervals() throws Exception {
+        TaskView task1 = new TaskView(1L, "task 1",
+                OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(2000, 1, 1, 14, 0, 0, 0, ZoneOffset.UTC), Duration.ofHours(2));
+        TaskView task2 = new TaskView(2L, "task 2",
+                OffsetDateTime.of(2000, 1, 1, 15, 0, 0, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(2000, 1, 1, 16, 0, 0, 0, ZoneOffset.UTC), Duration.ofHours(1));
+        doAnswer(invocation -> {
+            Consumer<TaskView> consumer = invocation.getArgument(3);
+            consumer.accept(task1);
+            consumer.accept(task2);
+            return null;
+        }).when(taskService).streamUserIntervals(eq("default"), any(), any(), any());
+
+        String body = mockMvc.perform(get("/api/default/tasks/work-intervals")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = body.lines().toList();
+        assertEquals(2, lines.size());
+        assertEquals("task 1", objectMapper.readTree(lines.get(0)).get("taskDescription").asText());
+        assertEquals("2000-01-01T15:00:00Z", objectMapper.readTree(lines.get(1)).get("startedAt").asText());
+    }
+
+    @Test
+    public void whenNdjsonRequested_streamUserTasks() throws Exception {
+        TaskView task = new TaskView(1L, "task 1",
+                OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(2000, 1, 1, 14, 0, 0, 0, ZoneOffset.UTC), Duration.ofHours(2));
+        doAnswer(invocation -> {
+            Consumer<TaskView> consumer = invocation.getArgument(3);
+            consumer.accept(task);
+            return null;
+        }).when(taskService).streamUserTasks(eq("default"), any(), any(), any());
+
+        String body = mockMvc.perform(get("/api/default/tasks")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("02:00", objectMapper.readTree(body.lines().findFirst().orElseThrow()).get("duration").asText());
+    }
+
     @Test
     public void findUserIntervals_whenValidationErrors_returnBadRequest() throws Exception {
         mockMvc.perform(get("/api/ /tasks/work-intervals"))
@@ -156,6 +287,22 @@ public class TaskControllerTest {
 
     }
 
+    @Test
+    public void whenCorrectRequest_returnActiveTasks() throws Exception {
+        OffsetDateTime startedAt = OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        when(taskService.findActiveTasks("default")).thenReturn(List.of(
+                new TaskView(1L, "task 1", startedAt, null, Duration.ofMinutes(75))));
+
+        mockMvc.perform(get("/api/default/tasks/active"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.size()").value(1))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].description").value("task 1"))
+                .andExpect(jsonPath("$[0].startedAt").value("2000-01-01T12:00:00Z"))
+                .andExpect(jsonPath("$[0].duration").value("01:15"));
+    }
+
     @Test
     public void whenCorrectRequest_returnUserWorkTime() throws Exception {
         when(taskService.findUserWorkTime(eq("default"), any(), any())).thenReturn(Duration.ofHours(2));
@@ -176,6 +323,22 @@ public class TaskControllerTest {
                 .andExpect(jsonPath("$.duration").value("02:00"));
     }
 
+    @Test
+    public void whenCorrectRequest_returnUserWorkHistogram() throws Exception {
+        when(taskService.findUserWorkHistogram(eq("default"), any(), any(), eq(Granularity.WEEK)))
+                .thenReturn(List.of(new WorkBucket(LocalDate.of(2000, 1, 3), Duration.ofMinutes(150))));
+
+        mockMvc.perform(get("/api/default/tasks/work-histogram?granularity=week"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.size()").value(1))
+                .andExpect(jsonPath("$[0].start").value("2000-01-03"))
+                .andExpect(jsonPath("$[0].duration").value("02:30"));
+
+        mockMvc.perform(get("/api/default/tasks/work-histogram?granularity=hour"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void findUserWorkTime_whenValidationErrors_returnBadRequest() throws Exception {
         mockMvc.perform(get("/api/ /tasks/work-time"))
@@ -0,0 +1,94 @@
+package edu.spring.javatimetracker.journal;
+
+import edu.spring.javatimetracker.configuration.AppProperties;
+import edu.spring.javatimetracker.service.TaskService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JournalApplierTest {
+
+    private static final UUID USER_ID = UUID.randomUUID();
+
+    private static final Instant TIME = Instant.parse("2000-01-01T12:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private JournaledTaskWriter writer;
+
+    @Mock
+    private TaskService taskService;
+
+    /**
+     * Проверяется: пакет, перенос которого завершился ошибкой вне БД, не теряется, а повторяется и после
+     * успешного переноса отмечается в журнале
+     */
+    @Test
+    public void retryOnFailureTest() throws Exception {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getJournal().setDirectory(directory);
+        appProperties.getJournal().setBatchDelay(Duration.ofMillis(10));
+        TaskJournal journal = new TaskJournal(appProperties);
+        when(taskService.applyJournal(anyList()))
+                .thenThrow(new IllegalStateException("transaction setup failed"))
+                .thenReturn(1);
+
+        JournalApplier applier = new JournalApplier(journal, writer, taskService, appProperties);
+        applier.start();
+        TaskEvent event = journal.append(TaskEvent.start(1, USER_ID, "task 1", TIME));
+        Instant deadline = Instant.now().plusSeconds(10);
+        while (journal.pending() > 0 && Instant.now().isBefore(deadline)) {
+            Thread.sleep(10);
+        }
+        applier.stop();
+
+        verify(taskService, times(2)).applyJournal(List.of(event));
+        verify(writer).applied(List.of(event));
+        assertEquals(0, journal.pending());
+        journal.destroy();
+    }
+
+    /**
+     * Проверяется: пакет, нарушающий ограничения БД, переносится по одному; отклоненное событие пропускается
+     * и передается writer, чтобы его задача ушла из реестра запущенных задач
+     */
+    @Test
+    public void rejectedEventTest() throws Exception {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getJournal().setDirectory(directory);
+        TaskJournal journal = new TaskJournal(appProperties);
+        TaskEvent accepted = journal.append(TaskEvent.start(1, USER_ID, "task 1", TIME));
+        TaskEvent rejected = journal.append(TaskEvent.start(2, USER_ID, "task 2", TIME));
+        List<TaskEvent> events = List.of(accepted, rejected);
+        when(taskService.applyJournal(anyList())).thenAnswer(invocation -> {
+            if (invocation.<List<TaskEvent>>getArgument(0).contains(rejected)) {
+                throw new DataIntegrityViolationException("duplicate key");
+            }
+            return 1;
+        });
+
+        new JournalApplier(journal, writer, taskService, appProperties).apply(events);
+
+        verify(taskService).applyJournal(List.of(accepted));
+        verify(writer).rejected(rejected);
+        verify(writer, never()).rejected(accepted);
+        verify(writer).applied(events);
+        journal.destroy();
+    }
+}
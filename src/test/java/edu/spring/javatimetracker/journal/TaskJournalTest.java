@@ -0,0 +1,121 @@
+package edu.spring.javatimetracker.journal;
+
+import edu.spring.javatimetracker.configuration.AppProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskJournalTest {
+
+    private static final UUID USER_ID = UUID.randomUUID();
+
+    private static final Instant TIME = Instant.parse("2000-01-01T12:00:00.123456789Z");
+
+    @TempDir
+    Path directory;
+
+    private AppProperties properties(TaskJournal.FsyncPolicy fsync, DataSize segmentSize) {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getJournal().setDirectory(directory);
+        appProperties.getJournal().setFsync(fsync);
+        appProperties.getJournal().setSegmentSize(segmentSize);
+        appProperties.getJournal().setFsyncInterval(Duration.ofMillis(1));
+        return appProperties;
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>События получают возрастающие номера и попадают в очередь переноса</li>
+     *     <li>Не перенесенные события читаются при повторном открытии без изменений</li>
+     *     <li>Перенесенные события после контрольной точки повторно не читаются</li>
+     * </ul>
+     */
+    @Test
+    public void replayTest() throws Exception {
+        TaskJournal journal = new TaskJournal(properties(TaskJournal.FsyncPolicy.ALWAYS, DataSize.ofKilobytes(64)));
+        TaskEvent start = journal.append(TaskEvent.start(1, USER_ID, "задача 1", TIME));
+        TaskEvent stop = journal.append(TaskEvent.stop(1, USER_ID, TIME.plusSeconds(60)));
+        TaskEvent next = journal.append(TaskEvent.start(2, USER_ID, "task 2", TIME));
+        assertEquals(List.of(1L, 2L, 3L), List.of(start.seq(), stop.seq(), next.seq()));
+
+        List<TaskEvent> batch = journal.poll(2, Duration.ofMillis(10));
+        assertEquals(List.of(start, stop), batch);
+        journal.markApplied(batch);
+        assertEquals(1, journal.pending());
+        journal.destroy();
+
+        TaskJournal reopened = new TaskJournal(properties(TaskJournal.FsyncPolicy.ALWAYS, DataSize.ofKilobytes(64)));
+        assertEquals(List.of(new TaskEvent(3, TaskEvent.Type.START, 2, USER_ID, "task 2", TIME)), reopened.recovered());
+        assertEquals(reopened.recovered(), reopened.poll(10, Duration.ofMillis(10)));
+        assertEquals(4, reopened.append(TaskEvent.stop(2, USER_ID, TIME)).seq());
+        reopened.destroy();
+    }
+
+    /**
+     * Проверяется: при заполнении сегмента создается новый, а сегменты, все события которых перенесены,
+     * удаляются
+     */
+    @Test
+    public void segmentRollTest() throws Exception {
+        TaskJournal journal = new TaskJournal(properties(TaskJournal.FsyncPolicy.INTERVAL, DataSize.ofBytes(256)));
+        for (int i = 1; i <= 10; i++) {
+            journal.append(TaskEvent.start(i, USER_ID, "task " + i, TIME));
+        }
+        assertTrue(JournalSegment.list(directory).size() > 1);
+
+        List<TaskEvent> events = journal.poll(10, Duration.ofMillis(10));
+        assertEquals(10, events.size());
+        journal.markApplied(events);
+        assertEquals(0, journal.pending());
+        assertEquals(1, JournalSegment.list(directory).size());
+        journal.destroy();
+
+        TaskJournal reopened = new TaskJournal(properties(TaskJournal.FsyncPolicy.INTERVAL, DataSize.ofBytes(256)));
+        assertTrue(reopened.recovered().isEmpty());
+        assertEquals(11, reopened.append(TaskEvent.stop(1, USER_ID, TIME)).seq());
+        reopened.destroy();
+    }
+
+    /**
+     * Проверяется: недописанная запись и следующие за ней не читаются, предыдущие читаются
+     */
+    @Test
+    public void tornRecordTest() throws Exception {
+        TaskJournal journal = new TaskJournal(properties(TaskJournal.FsyncPolicy.NONE, DataSize.ofKilobytes(64)));
+        journal.append(TaskEvent.start(1, USER_ID, "task 1", TIME));
+        journal.append(TaskEvent.start(2, USER_ID, "task 2", TIME));
+        journal.destroy();
+
+        Path segment = JournalSegment.list(directory).get(0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            long offset = 8 + 49 + "task 1".length() + 8 + 20;
+            file.seek(offset);
+            int value = file.read();
+            file.seek(offset);
+            file.write(value ^ 0xFF);
+        }
+
+        TaskJournal reopened = new TaskJournal(properties(TaskJournal.FsyncPolicy.NONE, DataSize.ofKilobytes(64)));
+        assertEquals(List.of(1L), reopened.recovered().stream().map(TaskEvent::taskId).toList());
+        assertEquals(2, reopened.append(TaskEvent.stop(1, USER_ID, TIME)).seq());
+        reopened.destroy();
+    }
+
+    @Test
+    public void closedTest() throws IOException {
+        TaskJournal journal = new TaskJournal(properties(TaskJournal.FsyncPolicy.ALWAYS, DataSize.ofKilobytes(64)));
+        journal.destroy();
+        assertThrows(IllegalStateException.class, () -> journal.append(TaskEvent.stop(1, USER_ID, TIME)));
+    }
+}
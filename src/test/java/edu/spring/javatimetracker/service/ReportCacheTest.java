@@ -0,0 +1,109 @@
+package edu.spring.javatimetracker.service;
+
+import edu.spring.javatimetracker.configuration.AppProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class ReportCacheTest {
+
+    private final UUID user1 = UUID.randomUUID();
+
+    private final UUID user2 = UUID.randomUUID();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    private ReportCache reportCache;
+
+    @BeforeEach
+    public void setUp() {
+        Clock clock = Clock.fixed(Instant.parse("2000-01-10T12:00:00Z"), ZoneOffset.UTC);
+        reportCache = new ReportCache(new AppProperties(), clock, transactionManager);
+    }
+
+    private List<String> load() {
+        loads.incrementAndGet();
+        return List.of("task");
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Повторный запрос с тем же пользователем, видом и периодом не строит отчет заново</li>
+     *     <li>Другой период и другой вид отчета кэшируются отдельно</li>
+     *     <li>Отчет строится вне транзакции сервиса, чтобы не читать его с реплики</li>
+     * </ul>
+     */
+    @Test
+    public void getTest() {
+        LocalDate from = LocalDate.of(2000, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 5);
+
+        assertEquals(List.of("task"), reportCache.get(user1, ReportCache.Kind.TASKS, from, to, this::load));
+        reportCache.get(user1, ReportCache.Kind.TASKS, from, to, this::load);
+        assertEquals(1, loads.get());
+
+        reportCache.get(user1, ReportCache.Kind.TASKS, from, null, this::load);
+        reportCache.get(user1, ReportCache.Kind.INTERVALS, from, to, this::load);
+        assertEquals(3, loads.get());
+        verify(transactionManager, times(3)).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_NOT_SUPPORTED));
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Отчеты нескольких пользователей строятся одним вызовом загрузчика только для промахов</li>
+     *     <li>Записи общие с отчетами, полученными по одному пользователю</li>
+     * </ul>
+     */
+    @Test
+    public void getAllTest() {
+        LocalDate from = LocalDate.of(2000, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 5);
+        reportCache.get(user1, ReportCache.Kind.WORK_TIME, from, to, () -> Duration.ofHours(1));
+
+        List<Set<UUID>> requested = new ArrayList<>();
+        Map<UUID, Duration> reports = reportCache.getAll(List.of(user1, user2), ReportCache.Kind.WORK_TIME, from, to,
+                missing -> {
+                    requested.add(Set.copyOf(missing));
+                    return Map.of(user2, Duration.ofHours(2));
+                });
+        assertEquals(Map.of(user1, Duration.ofHours(1), user2, Duration.ofHours(2)), reports);
+        assertEquals(List.of(Set.of(user2)), requested);
+
+        assertEquals(Duration.ofHours(2), reportCache.get(user2, ReportCache.Kind.WORK_TIME, from, to, () -> Duration.ZERO));
+    }
+
+    /**
+     * Проверяется: сбрасываются отчеты только указанного пользователя
+     */
+    @Test
+    public void invalidateTest() {
+        reportCache.get(user1, ReportCache.Kind.WORK_TIME, null, null, () -> loads.incrementAndGet());
+        reportCache.get(user2, ReportCache.Kind.WORK_TIME, null, null, () -> loads.incrementAndGet());
+
+        reportCache.invalidate(user1);
+        reportCache.get(user1, ReportCache.Kind.WORK_TIME, null, null, () -> loads.incrementAndGet());
+        reportCache.get(user2, ReportCache.Kind.WORK_TIME, null, null, () -> loads.incrementAndGet());
+        assertEquals(3, loads.get());
+
+        reportCache.invalidateAll();
+        reportCache.get(user2, ReportCache.Kind.WORK_TIME, null, null, () -> loads.incrementAndGet());
+        assertEquals(4, loads.get());
+    }
+}
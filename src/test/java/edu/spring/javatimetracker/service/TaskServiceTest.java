@@ -1,25 +1,53 @@
 package edu.spring.javatimetracker.service;
 
+import edu.spring.javatimetracker.configuration.AppProperties;
+import edu.spring.javatimetracker.db.bulk.TaskBulkLoader;
+import edu.spring.javatimetracker.db.bulk.TaskIdAllocator;
+import edu.spring.javatimetracker.db.bulk.TaskRow;
+import edu.spring.javatimetracker.db.projection.RunningTask;
+import edu.spring.javatimetracker.db.projection.TaskKey;
+import edu.spring.javatimetracker.db.projection.TaskTimes;
+import edu.spring.javatimetracker.db.projection.TaskView;
+import edu.spring.javatimetracker.db.projection.UserIdentity;
+import edu.spring.javatimetracker.db.report.EffectiveWorkTimeQuery;
+import edu.spring.javatimetracker.db.report.WorkHistogramQuery;
 import edu.spring.javatimetracker.db.repository.TaskJpaRepository;
 import edu.spring.javatimetracker.db.repository.UserJpaRepository;
 import edu.spring.javatimetracker.domain.Task;
 import edu.spring.javatimetracker.domain.User;
+import edu.spring.javatimetracker.journal.TaskEvent;
+import edu.spring.javatimetracker.service.importer.ImportLine;
+import edu.spring.javatimetracker.service.intervals.IntervalStore;
+import edu.spring.javatimetracker.service.importer.ImportedInterval;
 import edu.spring.javatimetracker.util.exception.NotFoundException;
 import edu.spring.javatimetracker.util.exception.ResourceExistsException;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
 
 import java.time.*;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -32,6 +60,36 @@ public class TaskServiceTest {
     @Mock
     private UserJpaRepository userJpaRepository;
 
+    @Mock
+    private WorkTimeRollupService rollupService;
+
+    @Mock
+    private UserIdCache userIdCache;
+
+    @Mock
+    private ReportCache reportCache;
+
+    @Mock
+    private RunningTaskRegistry runningTaskRegistry;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private AppProperties appProperties;
+
+    @Mock
+    private TaskIdAllocator taskIdAllocator;
+
+    @Mock
+    private TaskBulkLoader taskBulkLoader;
+
+    @Mock
+    private WorkHistogramQuery workHistogramQuery;
+
+    @Mock
+    private EffectiveWorkTimeQuery effectiveWorkTimeQuery;
+
+    @Mock
+    private ObjectProvider<IntervalStore> intervalStore;
+
     @Spy
     private Clock clock = Clock.systemDefaultZone();
 
@@ -56,25 +114,177 @@ public class TaskServiceTest {
      *     <li>Если задача существует - исключение</li>
      *     <li>Если нет - сохранить задачу в бд</li>
      *     <li>Запустить задачу</li>
-     *     <li>Назначить ответственного на задачу</li>
+     *     <li>Назначить ответственного на задачу по идентификатору из кэша</li>
+     *     <li>Нарушение уникальности описания - ResourceExistsException, другие нарушения не заменяются</li>
+     *     <li>Если пользователь не найден - исключение</li>
      * </ul>
      */
     @Test
     public void createTaskTest() {
-        when(taskJpaRepository.findByDescription("task 1")).thenReturn(Optional.of(task1));
-        when(taskJpaRepository.findByDescription("task 2")).thenReturn(Optional.empty());
+        when(taskJpaRepository.saveAndFlush(any(Task.class))).thenAnswer(invocation -> {
+            Task task = invocation.getArgument(0);
+            String constraint = switch (task.getDescription()) {
+                case "task 1" -> "PUBLIC.TASK_ASSIGNEE_DESCRIPTION_KEY_INDEX_2";
+                case "task 3" -> "fk_task_assignee";
+                default -> null;
+            };
+            if (constraint != null) {
+                throw new DataIntegrityViolationException("constraint violation",
+                        new ConstraintViolationException("constraint violation", null, constraint));
+            }
+            return task;
+        });
 
         User user = new User("username", "pass", "name", "name");
-        when(userJpaRepository.findByUsername("username")).thenReturn(Optional.of(user));
+        user.setId(UUID.randomUUID());
+        when(userIdCache.find("username")).thenReturn(Optional.of(user.getId()));
+        when(userIdCache.find("unknown")).thenReturn(Optional.empty());
+        when(userJpaRepository.getReferenceById(user.getId())).thenReturn(user);
 
         Exception ex = assertThrows(ResourceExistsException.class, () -> taskService.createTask("username", "task 1"));
         assertEquals("Task 'task 1' already exists", ex.getMessage());
+        assertThrows(DataIntegrityViolationException.class, () -> taskService.createTask("username", "task 3"));
 
         Task task = taskService.createTask("username", "task 2");
         assertEquals("task 2", task.getDescription());
         assertNotNull(task.getStartedAt());
         assertEquals(user, task.getAssignee());
-        assertEquals(Set.of(task), user.getTasks());
+        verify(taskJpaRepository).saveAndFlush(task);
+        verify(taskJpaRepository, never()).existsByAssigneeIdAndDescription(any(), any());
+        verify(runningTaskRegistry).add(new RunningTask(task.getId(), user.getId(), "task 2", task.getStartedAt()));
+        verify(reportCache).invalidate(user.getId());
+
+        ex = assertThrows(NotFoundException.class, () -> taskService.createTask("unknown", "task 2"));
+        assertEquals("User 'unknown' not found", ex.getMessage());
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Повторяющиеся и уже занятые описания - исключение</li>
+     *     <li>Задачи сохраняются одним вызовом, запускаются и назначаются пользователю</li>
+     * </ul>
+     */
+    @Test
+    public void createTasksTest() {
+        User user = new User("username", "pass", "name", "name");
+        user.setId(UUID.randomUUID());
+        when(taskJpaRepository.findExistingDescriptions(eq(user.getId()), any())).thenAnswer(invocation ->
+                invocation.<Collection<String>>getArgument(1).contains("task 1") ? List.of("task 1") : List.of());
+        when(userIdCache.find("username")).thenReturn(Optional.of(user.getId()));
+        when(userJpaRepository.getReferenceById(user.getId())).thenReturn(user);
+
+        Exception ex = assertThrows(ResourceExistsException.class,
+                () -> taskService.createTasks("username", List.of("task 2", "task 2")));
+        assertEquals("Task descriptions in the batch are not unique", ex.getMessage());
+
+        ex = assertThrows(ResourceExistsException.class,
+                () -> taskService.createTasks("username", List.of("task 1", "task 2")));
+        assertEquals("Tasks 'task 1' already exist", ex.getMessage());
+
+        List<Task> tasks = taskService.createTasks("username", List.of("task 2", "task 3"));
+        assertEquals(List.of("task 2", "task 3"), tasks.stream().map(Task::getDescription).toList());
+        assertTrue(tasks.stream().allMatch(task -> task.getStartedAt() != null && task.getAssignee() == user));
+        verify(taskJpaRepository).saveAllAndFlush(tasks);
+        verify(reportCache).invalidate(user.getId());
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Строки с неизвестным пользователем, занятым описанием и обратным интервалом отклоняются</li>
+     *     <li>Остальные загружаются с выделенными идентификаторами и учитываются в агрегатах</li>
+     * </ul>
+     */
+    @Test
+    public void importIntervalsTest() {
+        UUID userId = UUID.randomUUID();
+        OffsetDateTime start = OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        when(userJpaRepository.findIdentities(any())).thenReturn(List.of(new UserIdentity(userId, "username")));
+        when(taskJpaRepository.findExistingKeys(any(), any())).thenReturn(List.of(new TaskKey(userId, "task 1")));
+        when(taskIdAllocator.allocate(2)).thenReturn(new long[] {51L, 52L});
+
+        List<String> rejected = taskService.importIntervals(List.of(
+                new ImportLine(2, new ImportedInterval("username", "task 1", start, start.plusHours(1)), null),
+                new ImportLine(3, new ImportedInterval("username", "task 2", start, start.plusHours(1)), null),
+                new ImportLine(4, new ImportedInterval("unknown", "task 3", start, start.plusHours(1)), null),
+                new ImportLine(5, new ImportedInterval("username", "task 4", start, start.minusHours(1)), null),
+                new ImportLine(6, new ImportedInterval("username", "task 2", start, start.plusHours(2)), null),
+                new ImportLine(7, new ImportedInterval("username", "task 5", start, start.plusHours(2)), null)));
+
+        assertEquals(List.of(2L, 4L, 5L, 6L), rejected.stream()
+                .map(reason -> Long.parseLong(reason.substring("line ".length(), reason.indexOf(':')))).toList());
+        List<TaskRow> rows = List.of(
+                new TaskRow(51L, "task 2", start, start.plusHours(1), userId),
+                new TaskRow(52L, "task 5", start, start.plusHours(2), userId));
+        verify(taskBulkLoader).load(rows);
+        verify(rollupService).add(List.of(
+                new TaskTimes(51L, userId, start, start.plusHours(1)),
+                new TaskTimes(52L, userId, start, start.plusHours(2))));
+        verify(reportCache).invalidate(userId);
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Запуски загружаются пакетом, уже сохраненные задачи пропускаются</li>
+     *     <li>Завершаются только запущенные задачи, каждая со своим временем; повтор завершения не учитывается</li>
+     *     <li>Время завершенных задач учтено в агрегатах, отчеты пользователя сброшены</li>
+     * </ul>
+     */
+    @Test
+    public void applyJournalTest() {
+        UUID userId = UUID.randomUUID();
+        OffsetDateTime start = OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC)
+                .atZoneSameInstant(clock.getZone()).toOffsetDateTime();
+        when(taskJpaRepository.findExistingIds(List.of(1L, 2L))).thenReturn(List.of(1L));
+        when(taskJpaRepository.findRunningTasks(anyCollection())).thenReturn(List.of(
+                new TaskTimes(2L, userId, start, null),
+                new TaskTimes(3L, userId, start, null)));
+        when(taskBulkLoader.finish(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        int changed = taskService.applyJournal(List.of(
+                new TaskEvent(1, TaskEvent.Type.START, 1L, userId, "task 1", start.toInstant()),
+                new TaskEvent(2, TaskEvent.Type.START, 2L, userId, "task 2", start.toInstant()),
+                new TaskEvent(3, TaskEvent.Type.STOP, 2L, userId, null, start.plusHours(1).toInstant()),
+                new TaskEvent(4, TaskEvent.Type.STOP, 3L, userId, null, start.plusHours(2).toInstant()),
+                new TaskEvent(5, TaskEvent.Type.STOP, 3L, userId, null, start.plusHours(3).toInstant()),
+                new TaskEvent(6, TaskEvent.Type.STOP, 4L, userId, null, start.plusHours(3).toInstant())));
+
+        assertEquals(3, changed);
+        verify(taskBulkLoader).load(List.of(new TaskRow(2L, "task 2", start, null, userId)));
+        verify(taskJpaRepository).findRunningTasks(Set.of(2L, 3L, 4L));
+        List<TaskTimes> finished = List.of(
+                new TaskTimes(2L, userId, start, start.plusHours(1)),
+                new TaskTimes(3L, userId, start, start.plusHours(2)));
+        verify(taskBulkLoader).finish(finished);
+        verify(rollupService).add(finished);
+        verify(reportCache).invalidate(userId);
+    }
+
+    /**
+     * Проверяется: удаление задач пользователя применяется в порядке журнала - запуск до него сохраняется
+     * и удаляется вместе с задачами пользователя, запуск после него остается
+     */
+    @Test
+    public void applyJournalClearTest() {
+        UUID userId = UUID.randomUUID();
+        OffsetDateTime start = OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC)
+                .atZoneSameInstant(clock.getZone()).toOffsetDateTime();
+        when(taskJpaRepository.findExistingIds(anyList())).thenReturn(List.of());
+
+        int changed = taskService.applyJournal(List.of(
+                new TaskEvent(1, TaskEvent.Type.START, 1L, userId, "task 1", start.toInstant()),
+                new TaskEvent(2, TaskEvent.Type.CLEAR, 0L, userId, null, start.plusHours(1).toInstant()),
+                new TaskEvent(3, TaskEvent.Type.START, 2L, userId, "task 1", start.plusHours(2).toInstant())));
+
+        assertEquals(2, changed);
+        InOrder inOrder = inOrder(taskBulkLoader, taskJpaRepository, rollupService);
+        inOrder.verify(taskBulkLoader).load(List.of(new TaskRow(1L, "task 1", start, null, userId)));
+        inOrder.verify(taskJpaRepository).deleteUserTasks(userId);
+        inOrder.verify(rollupService).clearUser(userId);
+        inOrder.verify(taskBulkLoader).load(List.of(new TaskRow(2L, "task 1", start.plusHours(2), null, userId)));
+        verify(runningTaskRegistry, never()).removeUser(any());
     }
 
     /**
@@ -82,78 +292,177 @@ public class TaskServiceTest {
      * <ul>
      *     <li>Если задача не существует - исключение</li>
      *     <li>Если существует - заполнить finishedAt</li>
+     *     <li>Время задачи учтено в агрегатах, отчеты пользователя сброшены</li>
      * </ul>
      */
     @Test
     public void finishTaskTest() {
+        User user = new User("username", "pass", "name", "name");
+        user.setId(UUID.randomUUID());
         Task task = new Task("test",
                 OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC),
                 null);
+        task.setId(1L);
+        user.addTask(task);
         when(taskJpaRepository.findById(1L)).thenReturn(Optional.of(task));
         when(taskJpaRepository.findById(2L)).thenReturn(Optional.empty());
 
         taskService.finishTask(1L);
         assertNotNull(task.getFinishedAt());
+        verify(rollupService).add(List.of(new TaskTimes(1L, user.getId(), task.getStartedAt(), task.getFinishedAt())));
+        verify(reportCache).invalidate(user.getId());
 
         Exception ex = assertThrows(NotFoundException.class, () -> taskService.finishTask(2L));
         assertEquals("Task with id '2' not found", ex.getMessage());
     }
 
     /**
-     * Проверяется:
-     * <p>Завершить все не завершенные задачи</p>
+     * Проверяется: задачи передаются обработчику в порядке чтения
      */
     @Test
-    public void finishAllTasksTest() {
-        task1.start(clock);
-        task1.finish(clock);
-        task2.start(clock);
-        Task task3 = new Task("task 3",
+    public void streamUserIntervalsTest() {
+        TaskView view1 = new TaskView(1L, "task 1",
                 OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC),
-                null);
-        when(taskJpaRepository.findAll()).thenReturn(List.of(task1, task2, task3));
+                OffsetDateTime.of(2000, 1, 1, 14, 0, 0, 0, ZoneOffset.UTC), Duration.ofHours(2));
+        TaskView view2 = new TaskView(2L, "task 2",
+                OffsetDateTime.of(2000, 1, 1, 15, 0, 0, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(2000, 1, 1, 16, 0, 0, 0, ZoneOffset.UTC), Duration.ofHours(1));
+        UUID userId = UUID.randomUUID();
+        when(userIdCache.find("username")).thenReturn(Optional.of(userId));
+        when(taskJpaRepository.streamUserIntervals(eq(userId), any(), any())).thenReturn(Stream.of(view1, view2));
+
+        List<TaskView> actual = new ArrayList<>();
+        taskService.streamUserIntervals("username", null, null, actual::add);
+
+        assertEquals(List.of(view1, view2), actual);
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Порция запущенных задач завершается одним пакетом UPDATE</li>
+     *     <li>Время завершенных задач учтено в агрегатах</li>
+     *     <li>Если запущенных задач нет - обновление не выполняется</li>
+     * </ul>
+     */
+    @Test
+    public void finishRunningTasksTest() {
+        UUID userId = UUID.randomUUID();
+        OffsetDateTime startedAt = OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime now = OffsetDateTime.of(2000, 1, 1, 23, 59, 0, 0, ZoneOffset.UTC);
+        when(clock.instant()).thenReturn(now.toInstant());
+        when(taskJpaRepository.findRunningTasks(any(Pageable.class))).thenReturn(List.of(
+                new TaskTimes(2L, userId, startedAt, null),
+                new TaskTimes(3L, userId, startedAt, null)));
+        when(taskBulkLoader.finish(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertEquals(2, taskService.finishRunningTasks(10));
+        verify(taskBulkLoader).finish(List.of(
+                new TaskTimes(2L, userId, startedAt, now),
+                new TaskTimes(3L, userId, startedAt, now)));
+        verify(rollupService).add(argThat(tasks -> tasks.size() == 2 && tasks.stream()
+                .allMatch(task -> task.finishedAt().isEqual(now))));
 
-        assertFalse(task2.isFinished());
-        assertFalse(task3.isFinished());
+        when(taskJpaRepository.findRunningTasks(any(Pageable.class))).thenReturn(List.of());
 
-        taskService.finishAllTasks();
-        assertTrue(task2.isFinished());
-        assertTrue(task3.isFinished());
+        assertEquals(0, taskService.finishRunningTasks(10));
+        verify(taskBulkLoader, times(1)).finish(anyList());
     }
 
     /**
      * Проверяется:
      * <ul>
-     *     <li>Если после завершения задачи прошло больше укзанного времени - удалить задачу</li>
-     *     <li>Если задача не завершенна - игнорировать её</li>
+     *     <li>Кандидаты берутся из реестра и перепроверяются по БД, таблица задач не просматривается</li>
+     *     <li>Уже не запущенные задачи удаляются из реестра, завершенные - удаляются после фиксации</li>
+     * </ul>
+     */
+    @Test
+    public void finishRunningTasksFromRegistryTest() {
+        UUID userId = UUID.randomUUID();
+        OffsetDateTime startedAt = OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        RunningTask running = new RunningTask(2L, userId, "task 2", startedAt);
+        RunningTask stale = new RunningTask(5L, userId, "task 5", startedAt);
+        when(runningTaskRegistry.snapshot(10)).thenReturn(List.of(running, stale));
+        when(taskJpaRepository.findRunningTasks(List.of(2L, 5L)))
+                .thenReturn(List.of(new TaskTimes(2L, userId, startedAt, null)));
+        when(taskBulkLoader.finish(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertEquals(1, taskService.finishRunningTasks(10));
+        verify(runningTaskRegistry).forget(List.of(stale));
+        verify(runningTaskRegistry).remove(userId, 2L);
+        verify(taskJpaRepository, never()).findRunningTasks(any(Pageable.class));
+    }
+
+    /**
+     * Проверяется: активные задачи берутся из реестра, длительность считается от запуска до текущего момента
+     */
+    @Test
+    public void findActiveTasksTest() {
+        UUID userId = UUID.randomUUID();
+        OffsetDateTime startedAt = OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        when(clock.instant()).thenReturn(startedAt.plusMinutes(90).toInstant());
+        when(userIdCache.find("username")).thenReturn(Optional.of(userId));
+        when(userIdCache.find("unknown")).thenReturn(Optional.empty());
+        when(runningTaskRegistry.find(userId)).thenReturn(List.of(new RunningTask(1L, userId, "task 1", startedAt)));
+
+        assertEquals(List.of(new TaskView(1L, "task 1", startedAt, null, Duration.ofMinutes(90))),
+                taskService.findActiveTasks("username"));
+        assertTrue(taskService.findActiveTasks("unknown").isEmpty());
+        verifyNoInteractions(taskJpaRepository);
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Порция устаревших задач удаляется одним запросом</li>
+     *     <li>Время удаленных задач вычтено из агрегатов</li>
+     *     <li>Если устаревших задач нет - удаление не выполняется</li>
      * </ul>
      */
     @Test
     public void deleteOldTasksTest() {
-        when(clock.instant()).thenReturn(Instant.from(
+        OffsetDateTime threshold = OffsetDateTime.of(2000, 1, 1, 13, 0, 0, 0, ZoneOffset.UTC);
+        List<TaskTimes> oldTasks = List.of(new TaskTimes(1L, UUID.randomUUID(),
+                OffsetDateTime.of(2000, 1, 1, 10, 0, 0, 0, ZoneOffset.UTC),
                 OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC)));
-        task1.start(clock);
-        task1.finish(clock);
+        when(taskJpaRepository.findFinishedBefore(eq(threshold), any())).thenReturn(oldTasks);
+        when(taskJpaRepository.deleteTasks(List.of(1L))).thenReturn(1);
 
-        when(clock.instant()).thenReturn(Instant.from(
-                OffsetDateTime.of(2000, 1, 1, 15, 0, 0, 0, ZoneOffset.UTC)));
-        task2.start(clock);
-        task2.finish(clock);
+        assertEquals(1, taskService.deleteOldTasks(threshold, 10));
+        verify(rollupService).subtract(oldTasks);
 
-        Task task3 = new Task("task 3",
-                OffsetDateTime.of(2000, 1, 1, 15, 0, 0, 0, ZoneOffset.UTC),
-                null);
+        when(taskJpaRepository.findFinishedBefore(eq(threshold), any())).thenReturn(List.of());
 
-        when(taskJpaRepository.findAll()).thenReturn(List.of(task1, task2, task3));
+        assertEquals(0, taskService.deleteOldTasks(threshold, 10));
+        verify(taskJpaRepository, times(1)).deleteTasks(any());
+    }
 
-        Duration ttl = Duration.ofHours(5);
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Время пользователей читается одним запросом к агрегатам с границами периода findUserWorkTime</li>
+     *     <li>Результат в порядке запроса, неизвестный пользователь получает нулевое время</li>
+     * </ul>
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void findUsersWorkTimeTest() {
+        UUID user1 = UUID.randomUUID();
+        UUID user2 = UUID.randomUUID();
+        LocalDate from = LocalDate.of(2000, 1, 1);
+        LocalDate to = LocalDate.of(2000, 1, 31);
+        List<String> usernames = List.of("user2", "unknown", "user1");
+        when(userIdCache.findAll(usernames)).thenReturn(Map.of("user1", user1, "user2", user2));
+        when(reportCache.getAll(eq(Set.of(user1, user2)), eq(ReportCache.Kind.WORK_TIME), eq(from), eq(to), any()))
+                .thenAnswer(invocation -> invocation.getArgument(4, Function.class).apply(Set.of(user1, user2)));
+        when(rollupService.getUsersTimeSums(Set.of(user1, user2), from, to.plusDays(1)))
+                .thenReturn(Map.of(user1, Duration.ofHours(1), user2, Duration.ZERO));
 
-        when(clock.instant()).thenReturn(Instant.from(
-                OffsetDateTime.of(2000, 1, 1, 18, 0, 0, 0, ZoneOffset.UTC)));
-        taskService.deleteOldTasks(ttl);
+        Map<String, Duration> workTime = taskService.findUsersWorkTime(usernames, from, to);
 
-        verify(taskJpaRepository).delete(eq(task1));
-        verify(taskJpaRepository, never()).delete(eq(task2));
-        verify(taskJpaRepository, never()).delete(eq(task3));
+        assertEquals(usernames, List.copyOf(workTime.keySet()));
+        assertEquals(Duration.ofHours(1), workTime.get("user1"));
+        assertEquals(Duration.ZERO, workTime.get("user2"));
+        assertEquals(Duration.ZERO, workTime.get("unknown"));
     }
 }
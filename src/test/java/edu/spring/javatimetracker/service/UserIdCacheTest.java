@@ -0,0 +1,76 @@
+package edu.spring.javatimetracker.service;
+
+import edu.spring.javatimetracker.configuration.AppProperties;
+import edu.spring.javatimetracker.db.repository.UserJpaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserIdCacheTest {
+
+    @Mock
+    private UserJpaRepository userJpaRepository;
+
+    private UserIdCache userIdCache;
+
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    public void setUp() {
+        userIdCache = new UserIdCache(userJpaRepository, new AppProperties());
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Повторное разрешение имени не обращается к БД</li>
+     *     <li>Отсутствующий пользователь не кэшируется</li>
+     *     <li>После удаления из кэша имя разрешается заново</li>
+     * </ul>
+     */
+    @Test
+    public void findAndEvictTest() {
+        when(userJpaRepository.findIdByUsername("username")).thenReturn(Optional.of(userId));
+        when(userJpaRepository.findIdByUsername("unknown")).thenReturn(Optional.empty());
+
+        assertEquals(Optional.of(userId), userIdCache.find("username"));
+        assertEquals(Optional.of(userId), userIdCache.find("username"));
+        verify(userJpaRepository, times(1)).findIdByUsername("username");
+
+        assertEquals(Optional.empty(), userIdCache.find("unknown"));
+        assertEquals(Optional.empty(), userIdCache.find("unknown"));
+        verify(userJpaRepository, times(2)).findIdByUsername("unknown");
+
+        userIdCache.evict("username");
+        userIdCache.find("username");
+        verify(userJpaRepository, times(2)).findIdByUsername("username");
+    }
+
+    /**
+     * Проверяется: статистика кэша публикуется как метрики
+     */
+    @Test
+    public void metricsTest() {
+        when(userJpaRepository.findIdByUsername("username")).thenReturn(Optional.of(userId));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        userIdCache.bindTo(registry);
+
+        userIdCache.find("username");
+        userIdCache.find("username");
+
+        assertEquals(1, registry.get("cache.gets").tag("cache", UserIdCache.CACHE_NAME).tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tag("cache", UserIdCache.CACHE_NAME).tag("result", "miss")
+                .functionCounter().count());
+    }
+}
@@ -16,7 +16,9 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -26,6 +28,18 @@ public class UserServiceTest {
     @Mock
     private UserJpaRepository userJpaRepository;
 
+    @Mock
+    private WorkTimeRollupService rollupService;
+
+    @Mock
+    private UserIdCache userIdCache;
+
+    @Mock
+    private ReportCache reportCache;
+
+    @Mock
+    private RunningTaskRegistry runningTaskRegistry;
+
     @InjectMocks
     private UserService userService;
 
@@ -41,6 +55,7 @@ public class UserServiceTest {
         user2.setId(UUID.randomUUID());
         when(userJpaRepository.findByUsername("username_1")).thenReturn(Optional.of(user1));
         when(userJpaRepository.findByUsername("username_2")).thenReturn(Optional.empty());
+        lenient().when(userJpaRepository.save(any(User.class))).then(invocation -> invocation.getArgument(0));
     }
 
     /**
@@ -64,6 +79,7 @@ public class UserServiceTest {
      * <ul>
      *     <li>Новый пользователь имеет тот же id, что и старый</li>
      *     <li>Новый пользователь сохранен в бд</li>
+     *     <li>Старое и новое имя удалены из кэша идентификаторов</li>
      *     <li>Исключение, если пользователь с данным именем не найден</li>
      * </ul>
      */
@@ -72,6 +88,8 @@ public class UserServiceTest {
         userService.updateUser("username_1", user2);
         assertEquals(user1.getId(), user2.getId());
         verify(userJpaRepository).save(user2);
+        verify(userIdCache).evict("username_1");
+        verify(userIdCache).evict("username_2");
 
         Exception ex = assertThrows(NotFoundException.class, () -> userService.updateUser("username_2", user2));
         assertEquals("User 'username_2' not found", ex.getMessage());
@@ -81,6 +99,8 @@ public class UserServiceTest {
      * Проверяется:
      * <ul>
      *     <li>пользователь удален из бд</li>
+     *     <li>Агрегаты рабочего времени пользователя удалены</li>
+     *     <li>Имя удалено из кэша идентификаторов, отчеты пользователя сброшены</li>
      *     <li>Исключение, если пользователь с данным именем не найден</li>
      * </ul>
      */
@@ -88,6 +108,10 @@ public class UserServiceTest {
     public void deleteUserTest() {
         userService.deleteUser("username_1");
         verify(userJpaRepository).delete(user1);
+        verify(rollupService).clearUser(user1.getId());
+        verify(userIdCache).evict("username_1");
+        verify(reportCache).invalidate(user1.getId());
+        verify(runningTaskRegistry).removeUser(user1.getId());
 
         Exception ex = assertThrows(NotFoundException.class, () -> userService.deleteUser("username_2"));
         assertEquals("User 'username_2' not found", ex.getMessage());
@@ -0,0 +1,110 @@
+package edu.spring.javatimetracker.service;
+
+import edu.spring.javatimetracker.db.bulk.WorkTimeRollupWriter;
+import edu.spring.javatimetracker.db.projection.TaskTimes;
+import edu.spring.javatimetracker.db.repository.TaskJpaRepository;
+import edu.spring.javatimetracker.db.repository.WorkTimeRollupJpaRepository;
+import edu.spring.javatimetracker.domain.WorkTimeRollupId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.*;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class WorkTimeRollupServiceTest {
+
+    @Mock
+    private WorkTimeRollupJpaRepository rollupJpaRepository;
+
+    @Mock
+    private WorkTimeRollupWriter rollupWriter;
+
+    @Mock
+    private TaskJpaRepository taskJpaRepository;
+
+    @Spy
+    private Clock clock = Clock.system(ZoneId.of("Europe/Moscow"));
+
+    @InjectMocks
+    private WorkTimeRollupService rollupService;
+
+    private final UUID userId = UUID.randomUUID();
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Время задач суммируется по пользователю и дням в часовом поясе приложения</li>
+     *     <li>Незавершенные задачи и задачи без ответственного не учитываются</li>
+     * </ul>
+     */
+    @Test
+    public void addTest() {
+        rollupService.add(List.of(
+                new TaskTimes(1L, userId,
+                        OffsetDateTime.of(2000, 1, 1, 10, 0, 0, 0, ZoneOffset.UTC),
+                        OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC)),
+                new TaskTimes(2L, userId,
+                        OffsetDateTime.of(2000, 1, 1, 13, 0, 0, 0, ZoneOffset.UTC),
+                        OffsetDateTime.of(2000, 1, 1, 13, 30, 0, 0, ZoneOffset.UTC)),
+                new TaskTimes(3L, userId,
+                        OffsetDateTime.of(2000, 1, 1, 21, 0, 0, 0, ZoneOffset.UTC),
+                        OffsetDateTime.of(2000, 1, 1, 22, 0, 0, 0, ZoneOffset.UTC)),
+                new TaskTimes(4L, userId, OffsetDateTime.of(2000, 1, 1, 13, 0, 0, 0, ZoneOffset.UTC), null),
+                new TaskTimes(5L, null,
+                        OffsetDateTime.of(2000, 1, 1, 13, 0, 0, 0, ZoneOffset.UTC),
+                        OffsetDateTime.of(2000, 1, 1, 14, 0, 0, 0, ZoneOffset.UTC))));
+
+        LocalDate day = LocalDate.of(2000, 1, 1);
+        LocalDate nextDay = LocalDate.of(2000, 1, 2);
+        verify(rollupWriter).add(Map.of(
+                new WorkTimeRollupId(userId, day, day), Duration.ofMinutes(150).toNanos(),
+                new WorkTimeRollupId(userId, nextDay, nextDay), Duration.ofHours(1).toNanos()));
+        verifyNoInteractions(rollupJpaRepository);
+    }
+
+    /**
+     * Проверяется: время вычитается, опустевшие агрегаты удаляются
+     */
+    @Test
+    public void subtractTest() {
+        rollupService.subtract(List.of(new TaskTimes(1L, userId,
+                OffsetDateTime.of(2000, 1, 1, 10, 0, 0, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC))));
+
+        LocalDate day = LocalDate.of(2000, 1, 1);
+        verify(rollupWriter).add(Map.of(new WorkTimeRollupId(userId, day, day), -Duration.ofHours(2).toNanos()));
+        verify(rollupJpaRepository).deleteEmpty(List.of(userId));
+    }
+
+    /**
+     * Проверяется: порция пересчета читает задачи после указанного идентификатора и учитывает их в агрегатах
+     */
+    @Test
+    public void rebuildChunkTest() {
+        TaskTimes task1 = new TaskTimes(1L, userId,
+                OffsetDateTime.of(2000, 1, 1, 10, 0, 0, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC));
+        TaskTimes task2 = new TaskTimes(7L, userId,
+                OffsetDateTime.of(2000, 1, 1, 13, 0, 0, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(2000, 1, 1, 14, 0, 0, 0, ZoneOffset.UTC));
+        when(taskJpaRepository.findFinishedTasks(eq(0L), any())).thenReturn(List.of(task1, task2));
+        when(taskJpaRepository.findFinishedTasks(eq(7L), any())).thenReturn(List.of());
+
+        assertEquals(List.of(task1, task2), rollupService.rebuildChunk(0, 2));
+        assertEquals(List.of(), rollupService.rebuildChunk(7, 2));
+
+        LocalDate day = LocalDate.of(2000, 1, 1);
+        verify(rollupWriter).add(Map.of(new WorkTimeRollupId(userId, day, day), Duration.ofHours(3).toNanos()));
+        verify(rollupWriter).add(Map.of());
+    }
+}
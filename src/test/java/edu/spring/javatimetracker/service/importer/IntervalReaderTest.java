@@ -0,0 +1,70 @@
+package edu.spring.javatimetracker.service.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntervalReaderTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private List<ImportLine> read(String content, IntervalReader.Format format) {
+        List<ImportLine> lines = new ArrayList<>();
+        new IntervalReader(new BufferedReader(new StringReader(content)), format, objectMapper)
+                .forEachRemaining(lines::add);
+        return lines;
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Заголовок и пустые строки пропускаются, номера строк сохраняются</li>
+     *     <li>Значения в кавычках могут содержать запятые и кавычки</li>
+     *     <li>Некорректные строки отклоняются без остановки чтения</li>
+     * </ul>
+     */
+    @Test
+    public void readCsvTest() {
+        List<ImportLine> lines = read("""
+                username,description,startedAt,finishedAt
+                user,"task, ""quoted\""",2000-01-01T12:00:00Z,2000-01-01T14:00:00Z
+
+                user,task 2,yesterday,2000-01-01T14:00:00Z
+                user,task 3
+                """, IntervalReader.Format.CSV);
+
+        assertEquals(3, lines.size());
+        assertEquals(new ImportLine(2, new ImportedInterval("user", "task, \"quoted\"",
+                OffsetDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(2000, 1, 1, 14, 0, 0, 0, ZoneOffset.UTC)), null), lines.get(0));
+        assertTrue(lines.get(1).isRejected());
+        assertEquals(4, lines.get(1).number());
+        assertEquals("malformed record: expected 4 columns, got 2", lines.get(2).error());
+    }
+
+    /**
+     * Проверяется: разбор NDJSON и отклонение некорректного JSON
+     */
+    @Test
+    public void readNdjsonTest() {
+        List<ImportLine> lines = read("""
+                {"username":"user","description":"task 1","startedAt":"2000-01-01T12:00:00Z","finishedAt":"2000-01-01T14:00:00Z"}
+                {"username":"user",
+                """, IntervalReader.Format.NDJSON);
+
+        assertEquals(2, lines.size());
+        assertFalse(lines.get(0).isRejected());
+        assertEquals("task 1", lines.get(0).interval().description());
+        assertEquals(1, lines.get(0).number());
+        assertTrue(lines.get(1).isRejected());
+    }
+}
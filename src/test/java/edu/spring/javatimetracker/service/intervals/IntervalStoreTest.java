@@ -0,0 +1,108 @@
+package edu.spring.javatimetracker.service.intervals;
+
+import edu.spring.javatimetracker.configuration.AppProperties;
+import edu.spring.javatimetracker.db.projection.TaskView;
+import edu.spring.javatimetracker.db.repository.TaskJpaRepository;
+import edu.spring.javatimetracker.service.ReportCache;
+import edu.spring.javatimetracker.service.TaskService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.*;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class IntervalStoreTest {
+
+    private final UUID userId = UUID.randomUUID();
+
+    private final TaskJpaRepository taskRepository = mock(TaskJpaRepository.class);
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private final Clock clock = Clock.fixed(Instant.parse("2000-01-10T12:00:00Z"), ZoneOffset.UTC);
+
+    private ReportCache reportCache;
+
+    private IntervalStore intervalStore;
+
+    @BeforeEach
+    public void setUp() {
+        AppProperties appProperties = new AppProperties();
+        reportCache = new ReportCache(appProperties, clock, transactionManager);
+        intervalStore = new IntervalStore(taskRepository, reportCache, appProperties, clock, transactionManager);
+        intervalStore.bindTo(registry);
+        when(taskRepository.findUserIntervals(userId, TaskService.LOWER_TIME_BOUNDARY, TaskService.UPPER_TIME_BOUNDARY))
+                .thenReturn(List.of(task(1, 0, 2), task(2, 5, 6)));
+    }
+
+    private static TaskView task(long id, int startHour, int endHour) {
+        OffsetDateTime startedAt = time(startHour);
+        OffsetDateTime finishedAt = time(endHour);
+        return new TaskView(id, "task " + id, startedAt, finishedAt, Duration.between(startedAt, finishedAt));
+    }
+
+    private static OffsetDateTime time(int hour) {
+        return OffsetDateTime.of(2000, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC).plusHours(hour);
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Задачи пользователя загружаются один раз и перезагружаются после изменения его данных</li>
+     *     <li>Загрузка выполняется вне транзакции сервиса, чтобы не читать снимок с реплики</li>
+     *     <li>Попадания, промахи и размер хранилища видны в метриках</li>
+     * </ul>
+     */
+    @Test
+    public void loadTest() {
+        assertEquals(Duration.ofHours(3), intervalStore.getTimeSum(userId, time(0), time(24)));
+        assertEquals(2, intervalStore.findIntervals(userId, time(0), time(24)).size());
+        verify(taskRepository, times(1)).findUserIntervals(any(), any(), any());
+        verify(transactionManager).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_NOT_SUPPORTED));
+        assertEquals(1, registry.get("cache.gets").tag("cache", IntervalStore.CACHE_NAME).tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(2, registry.get("app.interval-store.intervals").gauge().value());
+        assertEquals((4 * 2 + 1) * Long.BYTES + 2 * (Integer.BYTES + 24 + "task 1".length()),
+                registry.get("app.interval-store.memory").tag("area", "heap").gauge().value());
+        assertEquals(0, registry.get("app.interval-store.memory").tag("area", "off-heap").gauge().value());
+
+        reportCache.invalidate(userId);
+        intervalStore.getTimeSum(userId, time(0), time(24));
+        verify(taskRepository, times(2)).findUserIntervals(any(), any(), any());
+    }
+
+    /**
+     * Проверяется: завершенная задача добавляется в загруженный снимок без чтения из БД;
+     * если данные пользователя изменились параллельно, снимок перезагружается
+     */
+    @Test
+    public void finishedTest() {
+        intervalStore.getTimeSum(userId, time(0), time(24));
+
+        long generation = reportCache.generation(userId);
+        long expectedGeneration = reportCache.invalidate(userId);
+        intervalStore.finished(userId, generation, expectedGeneration, task(3, 1, 4));
+        assertEquals(Duration.ofHours(6), intervalStore.getTimeSum(userId, time(0), time(24)));
+        assertEquals(List.of(1L, 3L, 2L), intervalStore.findIntervals(userId, time(0), time(24)).stream()
+                .map(TaskView::id).toList());
+        verify(taskRepository, times(1)).findUserIntervals(any(), any(), any());
+
+        generation = reportCache.generation(userId);
+        expectedGeneration = reportCache.invalidate(userId);
+        reportCache.invalidate(userId);
+        intervalStore.finished(userId, generation, expectedGeneration, task(4, 7, 8));
+        assertEquals(Duration.ofHours(3), intervalStore.getTimeSum(userId, time(0), time(24)));
+        verify(taskRepository, times(2)).findUserIntervals(any(), any(), any());
+    }
+}
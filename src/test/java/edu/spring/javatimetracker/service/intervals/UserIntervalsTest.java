@@ -0,0 +1,67 @@
+package edu.spring.javatimetracker.service.intervals;
+
+import edu.spring.javatimetracker.db.projection.TaskView;
+import edu.spring.javatimetracker.db.projection.WorkTimeTotals;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class UserIntervalsTest {
+
+    private static TaskView task(long id, int startHour, int endHour) {
+        OffsetDateTime startedAt = time(startHour);
+        OffsetDateTime finishedAt = time(endHour);
+        return new TaskView(id, "task " + id, startedAt, finishedAt, Duration.between(startedAt, finishedAt));
+    }
+
+    private static OffsetDateTime time(int hour) {
+        return OffsetDateTime.of(2000, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC).plusHours(hour);
+    }
+
+    /**
+     * Проверяется:
+     * <ul>
+     *     <li>Сумма и список за период выбирают задачи, начатые в [from, to) и завершенные до to</li>
+     *     <li>Эффективное время учитывает пересечения один раз</li>
+     *     <li>Одинаково для столбцов в куче и вне ее</li>
+     * </ul>
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void rangeTest(boolean offHeap) {
+        UserIntervals intervals = UserIntervals.of(List.of(
+                task(1, 0, 2), task(2, 1, 3), task(3, 5, 6), task(4, 8, 30)), 0, offHeap);
+
+        assertEquals(Duration.ofHours(5), intervals.sum(time(0), time(24)));
+        assertEquals(Duration.ofHours(3), intervals.sum(time(1), time(24)));
+        assertEquals(Duration.ofHours(27), intervals.sum(time(0), time(48)));
+        assertEquals(Duration.ZERO, intervals.sum(time(6), time(24)));
+        assertEquals(new WorkTimeTotals(Duration.ofHours(5), Duration.ofHours(4)), intervals.totals(time(0), time(24)));
+        assertEquals(List.of(task(2, 1, 3), task(3, 5, 6)), intervals.list(time(1), time(24), ZoneOffset.UTC));
+        assertEquals(4, intervals.size());
+    }
+
+    /**
+     * Проверяется: добавленная задача встает на место по времени запуска, суммы пересчитываются
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void insertTest(boolean offHeap) {
+        UserIntervals intervals = UserIntervals.of(List.of(task(1, 0, 2), task(3, 5, 6)), 0, offHeap);
+
+        UserIntervals inserted = intervals.insert(task(2, 1, 10), 2);
+
+        assertEquals(2, inserted.generation());
+        assertEquals(List.of(task(1, 0, 2), task(2, 1, 10), task(3, 5, 6)),
+                inserted.list(time(0), time(24), ZoneOffset.UTC));
+        assertEquals(Duration.ofHours(12), inserted.sum(time(0), time(24)));
+        assertEquals(Duration.ofHours(3), inserted.sum(time(0), time(9)));
+        assertEquals(Duration.ofHours(3), intervals.sum(time(0), time(24)));
+    }
+}